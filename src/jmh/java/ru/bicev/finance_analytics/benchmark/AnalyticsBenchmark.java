@@ -0,0 +1,142 @@
+package ru.bicev.finance_analytics.benchmark;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.bicev.finance_analytics.FinanceAnalyticsApplication;
+import ru.bicev.finance_analytics.dto.CategoryExpenseDto;
+import ru.bicev.finance_analytics.dto.DailyExpenseDto;
+import ru.bicev.finance_analytics.dto.DateRange;
+import ru.bicev.finance_analytics.dto.MonthlyExpenseDto;
+import ru.bicev.finance_analytics.dto.SummaryDto;
+import ru.bicev.finance_analytics.security.CustomUserPrincipal;
+import ru.bicev.finance_analytics.service.AnalyticsCache;
+import ru.bicev.finance_analytics.service.AnalyticsService;
+import ru.bicev.finance_analytics.service.SqlAnalyticsService;
+
+/**
+ * Сравнение движков аналитики: {@link AnalyticsService} (агрегация в
+ * приложении и по дневным суммам) и {@link SqlAnalyticsService} (агрегация в
+ * бд) на синтетических наборах из 1 тыс., 100 тыс. и 1 млн транзакций
+ * <p>
+ * Кэш аналитики очищается перед каждым вызовом, поэтому измеряется вычисление
+ * результата, а не попадание в кэш. Запуск с профилированием аллокаций:
+ * {@code mvn -Pbenchmark test-compile exec:exec}, аргументы JMH передаются
+ * через {@code -Djmh.args}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsBenchmark {
+
+    private static final YearMonth MONTH = YearMonth.of(2025, 6);
+    private static final DateRange YEAR = new DateRange(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31));
+
+    @Param({ "1000", "100000", "1000000" })
+    private int transactions;
+
+    private ConfigurableApplicationContext context;
+    private AnalyticsService analyticsService;
+    private SqlAnalyticsService sqlAnalyticsService;
+    private AnalyticsCache analyticsCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(FinanceAnalyticsApplication.class)
+                .profiles("benchmark")
+                .run();
+        analyticsService = context.getBean(AnalyticsService.class);
+        sqlAnalyticsService = context.getBean(SqlAnalyticsService.class);
+        analyticsCache = context.getBean(AnalyticsCache.class);
+
+        Long userId = new BenchmarkData(
+                context.getBean(JdbcTemplate.class),
+                new TransactionTemplate(context.getBean(PlatformTransactionManager.class)))
+                .prepare(transactions);
+
+        // потоки JMH не наследуют контекст безопасности потока, выполнившего setUp
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                new CustomUserPrincipal(userId, Map.of()), null, List.of()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Benchmark
+    public List<CategoryExpenseDto> inMemoryExpensesByCategory() {
+        analyticsCache.evictAll();
+        return analyticsService.getExpensesByCategory(MONTH);
+    }
+
+    @Benchmark
+    public List<CategoryExpenseDto> sqlExpensesByCategory() {
+        analyticsCache.evictAll();
+        return sqlAnalyticsService.getExpensesByCategory(MONTH);
+    }
+
+    @Benchmark
+    public List<DailyExpenseDto> inMemoryDailyExpenses() {
+        analyticsCache.evictAll();
+        return analyticsService.getDailyExpenses(MONTH);
+    }
+
+    @Benchmark
+    public List<DailyExpenseDto> sqlDailyExpenses() {
+        analyticsCache.evictAll();
+        return sqlAnalyticsService.getDailyExpenses(MONTH);
+    }
+
+    @Benchmark
+    public List<MonthlyExpenseDto> inMemoryMonthlyExpenses() {
+        return analyticsService.getMonthlyExpenses(YEAR);
+    }
+
+    @Benchmark
+    public List<MonthlyExpenseDto> sqlMonthlyExpenses() {
+        return sqlAnalyticsService.getMonthlyExpenses(YEAR);
+    }
+
+    @Benchmark
+    public SummaryDto inMemorySummary() {
+        analyticsCache.evictAll();
+        return analyticsService.getSummary(MONTH);
+    }
+
+    @Benchmark
+    public SummaryDto sqlSummary() {
+        analyticsCache.evictAll();
+        return sqlAnalyticsService.getSummary(MONTH);
+    }
+
+}
@@ -0,0 +1,122 @@
+package ru.bicev.finance_analytics.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ru.bicev.finance_analytics.controller.AnalyticsResponseCache;
+import ru.bicev.finance_analytics.controller.DataVersionETagInterceptor;
+import ru.bicev.finance_analytics.dto.CategoryBudgetStatusDto;
+import ru.bicev.finance_analytics.dto.CategoryExpenseDto;
+import ru.bicev.finance_analytics.dto.DailyExpenseDto;
+import ru.bicev.finance_analytics.dto.DashboardDto;
+import ru.bicev.finance_analytics.dto.SummaryDto;
+import ru.bicev.finance_analytics.dto.TopCategoryDto;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Стоимость формирования тела ответа дашборда: сериализация Jackson, она же со
+ * сжатием gzip (как при сжатии ответов Tomcat) и выдача готового ответа из
+ * {@link AnalyticsResponseCache}
+ * <p>
+ * Разница между первыми двумя режимами и попаданием в кэш - процессорное время,
+ * экономимое на каждом повторном запросе. Бд не требуется. Запуск:
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="AnalyticsResponseBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsResponseBenchmark {
+
+    private ObjectMapper objectMapper;
+    private DashboardDto dashboard;
+    private AnalyticsResponseCache responseCache;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        objectMapper = JsonMapper.builder().build();
+        dashboard = dashboard();
+        responseCache = new AnalyticsResponseCache(objectMapper, 64L * 1024 * 1024, Duration.ofMinutes(10),
+                new SimpleMeterRegistry());
+
+        request = new MockHttpServletRequest("GET", "/api/analytics/dashboard");
+        request.setParameter("month", "2025-06");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        request.setAttribute(DataVersionETagInterceptor.DATA_VERSION_TAG_ATTRIBUTE, "1-1-2025-06-30");
+        responseCache.respond(request, () -> dashboard);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return objectMapper.writeValueAsBytes(dashboard);
+    }
+
+    @Benchmark
+    public byte[] serializeAndGzip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(objectMapper.writeValueAsBytes(dashboard));
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> cached() {
+        return responseCache.respond(request, () -> dashboard);
+    }
+
+    /**
+     * Дашборд месяца с 30 днями расходов, 20 категориями и 10 бюджетами
+     */
+    private static DashboardDto dashboard() {
+        List<CategoryExpenseDto> categories = new ArrayList<>();
+        List<CategoryBudgetStatusDto> budgets = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            BigDecimal total = BigDecimal.valueOf(i * 1234.56);
+            categories.add(new CategoryExpenseDto("Category " + i, total));
+            if (i <= 10) {
+                budgets.add(new CategoryBudgetStatusDto("Category " + i, BigDecimal.valueOf(20000.00), total,
+                        BigDecimal.valueOf(i * 6.17)));
+            }
+        }
+        List<TopCategoryDto> top = categories.reversed().stream()
+                .limit(5)
+                .map(category -> new TopCategoryDto(category.category(), category.total()))
+                .toList();
+        List<DailyExpenseDto> daily = new ArrayList<>();
+        for (int day = 1; day <= 30; day++) {
+            daily.add(new DailyExpenseDto(LocalDate.of(2025, 6, day), BigDecimal.valueOf(day * 87.45)));
+        }
+        return new DashboardDto(
+                new SummaryDto(BigDecimal.valueOf(300000.00), BigDecimal.valueOf(259257.60),
+                        BigDecimal.valueOf(40742.40)),
+                categories, top, daily, budgets);
+    }
+
+}
@@ -0,0 +1,104 @@
+package ru.bicev.finance_analytics.benchmark;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.bicev.finance_analytics.util.TestUtil;
+
+/**
+ * Генератор синтетических данных для бенчмарков
+ * <p>
+ * Для каждого размера набора создается отдельный пользователь с 20 категориями
+ * расходов и 4 категориями поступлений. Транзакции равномерно распределены по
+ * дням 2025 года и по категориям, суммы детерминированы, поэтому результаты
+ * разных запусков сравнимы. Созданный набор переиспользуется последующими
+ * запусками
+ */
+class BenchmarkData {
+
+    static final String PROVIDER = "benchmark";
+
+    private static final int EXPENSE_CATEGORIES = 20;
+    private static final int INCOME_CATEGORIES = 4;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final Logger logger = LoggerFactory.getLogger(BenchmarkData.class);
+
+    BenchmarkData(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Возвращает пользователя с набором указанного размера, создавая его при
+     * необходимости
+     *
+     * @param transactions количество транзакций в наборе
+     * @return идентификатор пользователя набора
+     */
+    Long prepare(int transactions) {
+        String providerId = "transactions-" + transactions;
+        List<Long> existing = jdbcTemplate.queryForList(
+                "SELECT id FROM app_user WHERE provider = ? AND provider_id = ?", Long.class, PROVIDER, providerId);
+        if (!existing.isEmpty()) {
+            logger.info("Benchmark data set reused, transactions: {}; user: {}", transactions, existing.get(0));
+            return existing.get(0);
+        }
+
+        Long userId = transactionTemplate.execute(status -> {
+            Long id = jdbcTemplate.queryForObject("""
+                    INSERT INTO app_user (provider, provider_id, email, name, created_at, last_login_at)
+                    VALUES (?, ?, ?, ?, LOCALTIMESTAMP, LOCALTIMESTAMP)
+                    RETURNING id
+                    """, Long.class, PROVIDER, providerId, providerId + "@benchmark.local", providerId);
+            insertCategories(id, "EXPENSE", EXPENSE_CATEGORIES);
+            insertCategories(id, "INCOME", INCOME_CATEGORIES);
+            insertTransactions(id, transactions);
+            TestUtil.rebuildDailyTotals(jdbcTemplate, id);
+            return id;
+        });
+        jdbcTemplate.execute("ANALYZE transaction");
+        jdbcTemplate.execute("ANALYZE daily_category_total");
+        logger.info("Benchmark data set created, transactions: {}; user: {}", transactions, userId);
+        return userId;
+    }
+
+    /**
+     * Служебный метод, создающий категории пользователя
+     *
+     * @param userId идентификатор пользователя
+     * @param type   тип категорий
+     * @param count  количество категорий
+     */
+    private void insertCategories(Long userId, String type, int count) {
+        jdbcTemplate.update("""
+                INSERT INTO category (id, user_id, name, type, color, created_at)
+                SELECT gen_random_uuid(), ?, ? || ' ' || g, ?, '#808080', LOCALTIMESTAMP
+                FROM generate_series(1, ?) g
+                """, userId, type, type, count);
+    }
+
+    /**
+     * Служебный метод, создающий транзакции пользователя одним запросом
+     *
+     * @param userId       идентификатор пользователя
+     * @param transactions количество транзакций
+     */
+    private void insertTransactions(Long userId, int transactions) {
+        jdbcTemplate.update("""
+                INSERT INTO transaction (id, user_id, category_id, amount, date, description, created_at, is_planned)
+                SELECT gen_random_uuid(), ?, c.ids[1 + g % array_length(c.ids, 1)],
+                (1 + (g * 7919) % 500000) / 100.0, DATE '2025-01-01' + g % 365,
+                'benchmark', LOCALTIMESTAMP, false
+                FROM generate_series(1, ?) g,
+                (SELECT array_agg(id ORDER BY type, name) AS ids FROM category WHERE user_id = ?) c
+                """, userId, transactions, userId);
+    }
+
+}
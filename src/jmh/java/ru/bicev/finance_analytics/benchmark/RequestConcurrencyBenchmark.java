@@ -0,0 +1,133 @@
+package ru.bicev.finance_analytics.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.bicev.finance_analytics.FinanceAnalyticsApplication;
+import ru.bicev.finance_analytics.security.jwt.JwtService;
+
+/**
+ * Нагрузочный тест эндпоинтов транзакций и аналитики по HTTP: обработка
+ * запросов Tomcat на потоках платформы и на виртуальных потоках
+ * <p>
+ * Клиентских потоков больше, чем потоков Tomcat, поэтому на потоках платформы
+ * часть запросов ждет свободного потока, пока остальные заблокированы на
+ * запросах к бд. Режим {@link Mode#SampleTime} дополнительно показывает
+ * перцентили задержки. Закрепление виртуальных потоков за носителями
+ * выводится в лог через {@code -Djdk.tracePinnedThreads=short}. Запуск:
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="RequestConcurrencyBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+public class RequestConcurrencyBenchmark {
+
+    private static final int TRANSACTIONS = 100_000;
+
+    @Param({ "false", "true" })
+    private boolean virtualThreads;
+
+    @Param({ "50" })
+    private int tomcatThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private String cookie;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(FinanceAnalyticsApplication.class)
+                .profiles("benchmark")
+                .properties(
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.threads.max=" + tomcatThreads)
+                .run();
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        Long userId = new BenchmarkData(
+                context.getBean(JdbcTemplate.class),
+                new TransactionTemplate(context.getBean(PlatformTransactionManager.class)))
+                .prepare(TRANSACTIONS);
+        cookie = "ACCESS_TOKEN=" + context.getBean(JwtService.class).generateToken(userId);
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    public String transactionsPage() throws IOException, InterruptedException {
+        return send(get("/api/transactions/page?size=100"));
+    }
+
+    @Benchmark
+    public String transactionsForMonth() throws IOException, InterruptedException {
+        return send(get("/api/transactions?start=2025-06-01&end=2025-06-30"));
+    }
+
+    @Benchmark
+    public String monthlyExpenses() throws IOException, InterruptedException {
+        return send(request("/api/analytics/monthly")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"start\":\"2025-01-01\",\"end\":\"2025-12-31\"}"))
+                .build());
+    }
+
+    @Benchmark
+    public String dashboard() throws IOException, InterruptedException {
+        return send(get("/api/analytics/dashboard?month=2025-06"));
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Cookie", cookie);
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.uri() + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+
+}
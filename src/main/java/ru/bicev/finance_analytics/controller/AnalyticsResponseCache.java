@@ -0,0 +1,139 @@
+package ru.bicev.finance_analytics.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Кэш готовых ответов аналитики
+ * <p>
+ * Хранит сериализованный JSON и его gzip-вариант, поэтому повторный запрос
+ * отдается из памяти без сериализации и сжатия. Ключ включает метку версии
+ * данных пользователя из {@link DataVersionETagInterceptor}, адрес и параметры
+ * запроса: изменение данных меняет метку, и старые записи вытесняются по
+ * размеру или сроку хранения, отсчитываемому от записи. Тело ответа
+ * вычисляется по данным не старше версии из метки:
+ * {@link ru.bicev.finance_analytics.service.AnalyticsCache} не отдает
+ * результаты более старых версий. Ответы меньше {@value #MIN_COMPRESSED_SIZE} байт
+ * не сжимаются. Время сериализации и сжатия при промахе публикуется в таймере
+ * {@code analytics.response.serialization}, статистика кэша - в метриках
+ * {@code cache.*} с тегом {@code cache=analytics-responses}
+ */
+@Component
+public class AnalyticsResponseCache {
+
+    static final int MIN_COMPRESSED_SIZE = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Key, CachedResponse> cache;
+    private final Timer serializationTimer;
+
+    public AnalyticsResponseCache(ObjectMapper objectMapper,
+            @Value("${app.analytics.response-cache.maximum-bytes:67108864}") long maximumBytes,
+            @Value("${app.analytics.response-cache.ttl:PT10M}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((Key key, CachedResponse response) -> response.size())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.serializationTimer = meterRegistry.timer("analytics.response.serialization");
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "analytics-responses");
+    }
+
+    /**
+     * Возвращает ответ из кэша или вычисляет, сериализует и кэширует его
+     * <p>
+     * Без метки версии данных (запрос не прошел через
+     * {@link DataVersionETagInterceptor}) ответ не кэшируется
+     *
+     * @param request запрос
+     * @param body    вычисление тела ответа
+     * @return ответ с JSON, сжатый gzip, если клиент его принимает
+     */
+    public ResponseEntity<byte[]> respond(HttpServletRequest request, Supplier<?> body) {
+        Object tag = request.getAttribute(DataVersionETagInterceptor.DATA_VERSION_TAG_ATTRIBUTE);
+        CachedResponse response;
+        if (tag == null) {
+            response = serialize(body.get());
+        } else {
+            Key key = new Key(tag.toString(), request.getRequestURI(), parameters(request));
+            response = cache.getIfPresent(key);
+            if (response == null) {
+                response = serialize(body.get());
+                cache.put(key, response);
+            }
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (response.gzip() != null && DataVersionETagInterceptor.acceptsGzip(request)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.gzip());
+        }
+        return builder.body(response.json());
+    }
+
+    /**
+     * Служебный метод, сериализующий тело ответа и сжимающий его, если оно
+     * достаточно велико
+     */
+    private CachedResponse serialize(Object body) {
+        return serializationTimer.record(() -> {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new CachedResponse(json, json.length >= MIN_COMPRESSED_SIZE ? gzip(json) : null);
+        });
+    }
+
+    /**
+     * Служебный метод, возвращающий параметры запроса в виде, сравнимом по
+     * значению и не зависящем от порядка параметров в адресе
+     */
+    private static Map<String, List<String>> parameters(HttpServletRequest request) {
+        Map<String, List<String>> parameters = new TreeMap<>();
+        request.getParameterMap().forEach((name, values) -> parameters.put(name, List.of(values)));
+        return parameters;
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private record Key(String tag, String uri, Map<String, List<String>> parameters) {
+    }
+
+    private record CachedResponse(byte[] json, byte[] gzip) {
+
+        int size() {
+            return json.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+
+}
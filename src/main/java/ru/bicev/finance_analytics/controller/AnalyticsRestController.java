@@ -4,6 +4,7 @@ import java.time.YearMonth;
 import java.util.List;
 import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -15,16 +16,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.Min;
-import ru.bicev.finance_analytics.dto.CategoryBudgetStatusDto;
-import ru.bicev.finance_analytics.dto.CategoryExpenseDto;
-import ru.bicev.finance_analytics.dto.DailyExpenseDto;
 import ru.bicev.finance_analytics.dto.DateRange;
 import ru.bicev.finance_analytics.dto.MonthlyExpenseDto;
-import ru.bicev.finance_analytics.dto.RecurringForecastDto;
-import ru.bicev.finance_analytics.dto.SummaryDto;
-import ru.bicev.finance_analytics.dto.TopCategoryDto;
 import ru.bicev.finance_analytics.service.AnalyticsService;
+import ru.bicev.finance_analytics.service.SqlAnalyticsService;
+import ru.bicev.finance_analytics.util.AnalyticsEngine;
 
 @Validated
 @RestController
@@ -32,49 +30,93 @@ import ru.bicev.finance_analytics.service.AnalyticsService;
 public class AnalyticsRestController {
 
     private final AnalyticsService analyticsService;
+    private final SqlAnalyticsService sqlAnalyticsService;
+    private final AnalyticsResponseCache responseCache;
 
-    public AnalyticsRestController(AnalyticsService analyticsService) {
+    @Value("${app.analytics.engine.categories:MEMORY}")
+    private AnalyticsEngine categoriesEngine = AnalyticsEngine.MEMORY;
+
+    @Value("${app.analytics.engine.top-categories:MEMORY}")
+    private AnalyticsEngine topCategoriesEngine = AnalyticsEngine.MEMORY;
+
+    @Value("${app.analytics.engine.daily:MEMORY}")
+    private AnalyticsEngine dailyEngine = AnalyticsEngine.MEMORY;
+
+    @Value("${app.analytics.engine.monthly:MEMORY}")
+    private AnalyticsEngine monthlyEngine = AnalyticsEngine.MEMORY;
+
+    @Value("${app.analytics.engine.summary:MEMORY}")
+    private AnalyticsEngine summaryEngine = AnalyticsEngine.MEMORY;
+
+    public AnalyticsRestController(AnalyticsService analyticsService, SqlAnalyticsService sqlAnalyticsService,
+            AnalyticsResponseCache responseCache) {
         this.analyticsService = analyticsService;
+        this.sqlAnalyticsService = sqlAnalyticsService;
+        this.responseCache = responseCache;
     }
 
     @GetMapping("/categories")
-    public ResponseEntity<List<CategoryExpenseDto>> getExpensesByCategory(
-            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
-        return ResponseEntity.ok(analyticsService.getExpensesByCategory(month));
+    public ResponseEntity<byte[]> getExpensesByCategory(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month, HttpServletRequest request) {
+        return responseCache.respond(request, () -> categoriesEngine == AnalyticsEngine.SQL
+                ? sqlAnalyticsService.getExpensesByCategory(month)
+                : analyticsService.getExpensesByCategory(month));
     }
 
     @GetMapping("/categories/top")
-    public ResponseEntity<List<TopCategoryDto>> getTopCategories(@RequestParam @Min(1) int limit,
-            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
-        return ResponseEntity.ok(analyticsService.getTopCategories(month, limit));
+    public ResponseEntity<byte[]> getTopCategories(@RequestParam @Min(1) int limit,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month, HttpServletRequest request) {
+        return responseCache.respond(request, () -> topCategoriesEngine == AnalyticsEngine.SQL
+                ? sqlAnalyticsService.getTopCategories(month, limit)
+                : analyticsService.getTopCategories(month, limit));
     }
 
     @GetMapping("/daily")
-    public ResponseEntity<List<DailyExpenseDto>> getDailyExpenses(
-            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
-        return ResponseEntity.ok(analyticsService.getDailyExpenses(month));
+    public ResponseEntity<byte[]> getDailyExpenses(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month, HttpServletRequest request) {
+        return responseCache.respond(request, () -> dailyEngine == AnalyticsEngine.SQL
+                ? sqlAnalyticsService.getDailyExpenses(month)
+                : analyticsService.getDailyExpenses(month));
     }
 
     @PostMapping("/monthly")
     public ResponseEntity<List<MonthlyExpenseDto>> getMonthlyExpenses(@RequestBody DateRange range) {
-        return ResponseEntity.ok(analyticsService.getMonthlyExpenses(range));
+        return ResponseEntity.ok(monthlyEngine == AnalyticsEngine.SQL
+                ? sqlAnalyticsService.getMonthlyExpenses(range)
+                : analyticsService.getMonthlyExpenses(range));
+    }
+
+    @GetMapping("/trends")
+    public ResponseEntity<byte[]> getTrends(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth to, HttpServletRequest request) {
+        return responseCache.respond(request, () -> sqlAnalyticsService.getTrends(from, to));
     }
 
     @GetMapping("/summary")
-    public ResponseEntity<SummaryDto> getSummary(
-            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
-        return ResponseEntity.ok(analyticsService.getSummary(month));
+    public ResponseEntity<byte[]> getSummary(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month, HttpServletRequest request) {
+        return responseCache.respond(request, () -> summaryEngine == AnalyticsEngine.SQL
+                ? sqlAnalyticsService.getSummary(month)
+                : analyticsService.getSummary(month));
+    }
+
+    @GetMapping("/dashboard")
+    public ResponseEntity<byte[]> getDashboard(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            @RequestParam(defaultValue = "5") @Min(1) int limit, HttpServletRequest request) {
+        return responseCache.respond(request, () -> analyticsService.getDashboard(month, limit));
     }
 
     @GetMapping("/budget/{budgetId}")
-    public ResponseEntity<CategoryBudgetStatusDto> getCategoryBudgetStatus(
-            @PathVariable UUID budgetId) {
-        return ResponseEntity.ok(analyticsService.getCategoryBudgetStatus(budgetId));
+    public ResponseEntity<byte[]> getCategoryBudgetStatus(
+            @PathVariable UUID budgetId, HttpServletRequest request) {
+        return responseCache.respond(request, () -> analyticsService.getCategoryBudgetStatus(budgetId));
     }
 
     @GetMapping("/upcoming")
-    public ResponseEntity<List<RecurringForecastDto>> getUpcomingRecurringPayments() {
-        return ResponseEntity.ok(analyticsService.getUpcomingRecurringPayments());
+    public ResponseEntity<byte[]> getUpcomingRecurringPayments(HttpServletRequest request) {
+        return responseCache.respond(request, analyticsService::getUpcomingRecurringPayments);
     }
 
 }
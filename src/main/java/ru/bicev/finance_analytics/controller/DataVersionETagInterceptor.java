@@ -0,0 +1,81 @@
+package ru.bicev.finance_analytics.controller;
+
+import java.time.LocalDate;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import ru.bicev.finance_analytics.security.CustomUserPrincipal;
+import ru.bicev.finance_analytics.service.DataVersionService;
+
+/**
+ * Условные GET-запросы по версии данных пользователя
+ * <p>
+ * ETag строится из идентификатора пользователя, версии его данных и текущей
+ * даты: ответы зависят только от данных пользователя, параметров запроса и
+ * даты (например, предстоящие платежи). Если клиент принимает gzip, ETag
+ * получает суффикс {@code -gzip}, так как ответ может быть сжат. Если клиент
+ * прислал совпадающий {@code If-None-Match}, отвечает 304 до вызова
+ * контроллера, не обращаясь к таблицам с данными
+ * <p>
+ * Версия читается с основной базы, а тело ответа - с реплик, применивших эту
+ * версию, или с основной базы, поэтому данные ответа не старше его ETag
+ */
+@Component
+public class DataVersionETagInterceptor implements HandlerInterceptor {
+
+    /**
+     * Атрибут запроса с меткой версии данных без учета кодирования ответа
+     */
+    public static final String DATA_VERSION_TAG_ATTRIBUTE = DataVersionETagInterceptor.class.getName() + ".TAG";
+
+    private final DataVersionService dataVersionService;
+
+    public DataVersionETagInterceptor(DataVersionService dataVersionService) {
+        this.dataVersionService = dataVersionService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (!"GET".equals(request.getMethod()) || auth == null
+                || !(auth.getPrincipal() instanceof CustomUserPrincipal principal)) {
+            return true;
+        }
+
+        Long userId = principal.getUserId();
+        String tag = userId + "-" + dataVersionService.current(userId) + "-" + LocalDate.now();
+        request.setAttribute(DATA_VERSION_TAG_ATTRIBUTE, tag);
+        String etag = "\"" + tag + (acceptsGzip(request) ? "-gzip" : "") + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+
+    /**
+     * Служебный метод, проверяющий, что клиент принимает ответ в gzip
+     *
+     * @param request запрос
+     * @return true, если {@code Accept-Encoding} содержит gzip без {@code q=0}
+     */
+    static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+}
@@ -1,10 +1,14 @@
 package ru.bicev.finance_analytics.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,10 +22,18 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import ru.bicev.finance_analytics.dto.TransactionBatchResultDto;
 import ru.bicev.finance_analytics.dto.TransactionDto;
+import ru.bicev.finance_analytics.dto.TransactionPageDto;
 import ru.bicev.finance_analytics.dto.TransactionRequest;
 import ru.bicev.finance_analytics.service.TransactionService;
+import tools.jackson.databind.ObjectMapper;
 
 @Validated
 @RestController
@@ -29,9 +41,11 @@ import ru.bicev.finance_analytics.service.TransactionService;
 public class TransactionRestController {
 
     private final TransactionService transactionService;
+    private final ObjectMapper objectMapper;
 
-    public TransactionRestController(TransactionService transactionService) {
+    public TransactionRestController(TransactionService transactionService, ObjectMapper objectMapper) {
         this.transactionService = transactionService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -46,6 +60,12 @@ public class TransactionRestController {
 
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<TransactionBatchResultDto> createTransactions(
+            @RequestBody @NotEmpty @Size(max = 5000) List<TransactionRequest> requests) {
+        return ResponseEntity.ok(transactionService.createTransactions(requests));
+    }
+
     @GetMapping
     public ResponseEntity<List<TransactionDto>> getTransactions(
             @RequestParam(required = false) LocalDate start,
@@ -60,6 +80,32 @@ public class TransactionRestController {
         return ResponseEntity.ok(transactions);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<TransactionPageDto> getTransactionsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int size) {
+        return ResponseEntity.ok(transactionService.getTransactionsPage(cursor, size));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamTransactions(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        try {
+            transactionService.streamTransactions(transaction -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(transaction));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
     @GetMapping("/{transactionId}")
     public ResponseEntity<TransactionDto> getTransactionById(@PathVariable UUID transactionId) {
         var transaction = transactionService.getTransactionById(transactionId);
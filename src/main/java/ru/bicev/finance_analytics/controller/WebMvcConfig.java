@@ -0,0 +1,23 @@
+package ru.bicev.finance_analytics.controller;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final DataVersionETagInterceptor dataVersionETagInterceptor;
+
+    public WebMvcConfig(DataVersionETagInterceptor dataVersionETagInterceptor) {
+        this.dataVersionETagInterceptor = dataVersionETagInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(dataVersionETagInterceptor)
+                .addPathPatterns("/api/analytics/**", "/api/transactions/**", "/api/budgets/**",
+                        "/api/categories/**");
+    }
+
+}
@@ -0,0 +1,121 @@
+package ru.bicev.finance_analytics.datasource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ru.bicev.finance_analytics.security.CustomUserPrincipal;
+
+/**
+ * Защита от чтения устаревших данных с реплики
+ * <p>
+ * После фиксации пишущей транзакции пользователя его читающие транзакции в
+ * течение заданного окна выполняются на основной базе, чтобы пользователь видел
+ * собственные изменения, еще не доехавшие до реплик. Окно хранится в памяти
+ * экземпляра приложения
+ * <p>
+ * Кроме того, прочитанная версия данных пользователя становится нижней границей
+ * для его чтений с реплик: реплика, на которой версия меньше, пропускается.
+ * Так ответ с меткой версии не собирается из данных старше этой версии, даже
+ * если запись сделана на другом экземпляре или окно еще не открыто
+ */
+public class ReadYourWritesGuard implements TransactionExecutionListener {
+
+    private static final String VERSION_QUERY = "SELECT data_version FROM app_user WHERE id = ?";
+
+    private final Cache<Long, Boolean> recentWriters;
+    private final Cache<Long, Long> requiredVersions;
+
+    public ReadYourWritesGuard(Duration window, long maximumSize) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(window)
+                .build();
+        this.requiredVersions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    /**
+     * Проверяет, должен ли текущий пользователь читать с основной базы
+     *
+     * @return {@code true}, если пользователь недавно изменял данные
+     */
+    public boolean requiresPrimary() {
+        Long userId = currentUserId();
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+
+    /**
+     * Открывает окно чтения с основной базы для пользователя
+     *
+     * @param userId идентификатор пользователя
+     */
+    public void markWrite(Long userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+    }
+
+    /**
+     * Запрещает чтение данных пользователя с реплик, не применивших указанную
+     * версию его данных. Граница не уменьшается
+     *
+     * @param userId  идентификатор пользователя
+     * @param version прочитанная версия данных
+     */
+    public void requireVersion(Long userId, long version) {
+        requiredVersions.asMap().merge(userId, version, Math::max);
+    }
+
+    /**
+     * Проверяет, что на реплике есть версия данных текущего пользователя не
+     * меньше прочитанной им ранее
+     *
+     * @param connection соединение с репликой
+     * @return {@code true}, если реплика подходит для чтения данных пользователя
+     * @throws SQLException если проверочный запрос не выполнен
+     */
+    public boolean isCaughtUp(Connection connection) throws SQLException {
+        Long userId = currentUserId();
+        Long required = userId != null ? requiredVersions.getIfPresent(userId) : null;
+        if (required == null) {
+            return true;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(VERSION_QUERY)) {
+            statement.setLong(1, userId);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getLong(1) >= required;
+            }
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly()) {
+            return;
+        }
+        Long userId = currentUserId();
+        if (userId != null) {
+            markWrite(userId);
+        }
+    }
+
+    private static Long currentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof CustomUserPrincipal principal)) {
+            return null;
+        }
+        return principal.getUserId();
+    }
+
+}
@@ -0,0 +1,108 @@
+package ru.bicev.finance_analytics.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Маршрутизация соединений между основной базой и репликами
+ * <p>
+ * Включается, если задан список {@code app.datasource.replicas.urls}. Пишущие
+ * транзакции выполняются на основной базе, транзакции
+ * {@code @Transactional(readOnly = true)} - на репликах. Физическое соединение
+ * берется при первом запросе транзакции, когда признак только чтения уже
+ * установлен. Пулы реплик используют настройки пула основной базы
+ * <p>
+ * Окно чтения своих записей должно быть не короче допустимого отставания
+ * реплики плюс интервал ее проверки: только тогда реплика, признанная
+ * доступной, гарантированно применила записи, сделанные до начала окна. Иначе
+ * приложение не запускается
+ */
+@Configuration
+@ConditionalOnExpression("!'${app.datasource.replicas.urls:}'.isBlank()")
+public class ReplicaDataSourceConfig {
+
+    @Value("${app.datasource.replicas.urls}")
+    private List<String> replicaUrls;
+
+    @Value("${app.datasource.replicas.max-lag:PT10S}")
+    private Duration maxLag;
+
+    @Value("${app.datasource.replicas.health-check-interval:PT10S}")
+    private Duration healthCheckInterval;
+
+    @Value("${app.datasource.replicas.read-your-writes-window:PT30S}")
+    private Duration readYourWritesWindow;
+
+    @Value("${app.datasource.replicas.read-your-writes-maximum-size:100000}")
+    private long readYourWritesMaximumSize;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReadYourWritesGuard readYourWritesGuard() {
+        checkReadYourWritesWindow(readYourWritesWindow, maxLag, healthCheckInterval);
+        return new ReadYourWritesGuard(readYourWritesWindow, readYourWritesMaximumSize);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+            ReadYourWritesGuard readYourWritesGuard) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(replicaUrls.get(i).trim());
+            config.setPoolName("replica-" + i);
+            config.setReadOnly(true);
+            config.setInitializationFailTimeout(-1);
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, readYourWritesGuard, maxLag);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+            ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+
+    /**
+     * Проверяет, что окно чтения своих записей покрывает отставание реплик
+     *
+     * @param window              окно чтения своих записей
+     * @param maxLag              допустимое отставание реплики
+     * @param healthCheckInterval интервал проверки реплик
+     * @throws IllegalStateException если окно короче отставания плюс интервал
+     *                               проверки
+     */
+    static void checkReadYourWritesWindow(Duration window, Duration maxLag, Duration healthCheckInterval) {
+        Duration minimum = maxLag.plus(healthCheckInterval);
+        if (window.compareTo(minimum) < 0) {
+            throw new IllegalStateException("app.datasource.replicas.read-your-writes-window " + window
+                    + " must be at least max-lag plus health-check-interval " + minimum);
+        }
+    }
+
+}
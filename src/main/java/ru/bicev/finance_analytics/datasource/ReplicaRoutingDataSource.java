@@ -0,0 +1,173 @@
+package ru.bicev.finance_analytics.datasource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Источник соединений для читающих транзакций
+ * <p>
+ * Реплики выбираются по кругу, недоступные и отстающие больше допустимого
+ * реплики пропускаются до следующей успешной проверки. Реплика, не применившая
+ * прочитанную пользователем версию его данных, пропускается для этого
+ * соединения. Если подходящей реплики нет или пользователь недавно изменял
+ * данные, соединение берется из основной базы
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    /**
+     * Отставание реплики в секундах, нулевое для основной базы и для реплики,
+     * применившей все полученные изменения
+     */
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+            END
+            """;
+
+    private static final int HEALTH_CHECK_TIMEOUT_SECONDS = 5;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWritesGuard guard;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas, ReadYourWritesGuard guard,
+            Duration maxLag) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.guard = guard;
+        this.maxLag = maxLag;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!guard.requiresPrimary()) {
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+                if (!replica.healthy) {
+                    continue;
+                }
+                Connection connection = null;
+                try {
+                    connection = replica.dataSource.getConnection();
+                    if (guard.isCaughtUp(connection)) {
+                        return connection;
+                    }
+                    connection.close();
+                    logger.debug("getConnection() replica {} is behind user data version", replica.dataSource);
+                } catch (SQLException e) {
+                    closeQuietly(connection);
+                    replica.healthy = false;
+                    logger.warn("getConnection() replica {} marked unhealthy: {}", replica.dataSource, e.getMessage());
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Возвращает соединение основной базы с указанными учетными данными
+     * <p>
+     * Пулы реплик открыты с учетными данными основной базы, поэтому соединение с
+     * другими учетными данными всегда берется из основной базы
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Проверяет доступность и отставание реплик
+     * <p>
+     * Реплика, отстающая больше {@code app.datasource.replicas.max-lag}, не
+     * используется до следующей проверки
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.health-check-interval:PT10S}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection();
+                    PreparedStatement statement = connection.prepareStatement(LAG_QUERY)) {
+                statement.setQueryTimeout(HEALTH_CHECK_TIMEOUT_SECONDS);
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    double lagSeconds = rs.getDouble(1);
+                    healthy = lagSeconds * 1000 <= maxLag.toMillis();
+                    if (!healthy) {
+                        logger.warn("checkHealth() replica {} lag {}s exceeds {}", replica.dataSource, lagSeconds,
+                                maxLag);
+                    }
+                }
+            } catch (SQLException e) {
+                healthy = false;
+                logger.warn("checkHealth() replica {} unavailable: {}", replica.dataSource, e.getMessage());
+            }
+            if (healthy && !replica.healthy) {
+                logger.info("checkHealth() replica {} is available", replica.dataSource);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    /**
+     * Возвращает количество реплик, прошедших последнюю проверку
+     *
+     * @return количество доступных реплик
+     */
+    public int getHealthyReplicaCount() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.debug("closeQuietly() failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Пул соединений реплики и результат его последней проверки. До первой
+     * проверки реплика не используется
+     */
+    private static final class Replica {
+
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+    }
+
+}
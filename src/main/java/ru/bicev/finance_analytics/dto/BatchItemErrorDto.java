@@ -0,0 +1,7 @@
+package ru.bicev.finance_analytics.dto;
+
+import java.util.List;
+
+public record BatchItemErrorDto(int index, List<FieldErrorDto> errors) {
+
+}
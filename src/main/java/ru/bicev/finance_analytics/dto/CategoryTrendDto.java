@@ -0,0 +1,7 @@
+package ru.bicev.finance_analytics.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+public record CategoryTrendDto(UUID categoryId, String category, List<MonthlyTrendDto> months) {
+}
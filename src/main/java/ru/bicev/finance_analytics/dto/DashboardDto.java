@@ -0,0 +1,11 @@
+package ru.bicev.finance_analytics.dto;
+
+import java.util.List;
+
+public record DashboardDto(
+        SummaryDto summary,
+        List<CategoryExpenseDto> categories,
+        List<TopCategoryDto> topCategories,
+        List<DailyExpenseDto> daily,
+        List<CategoryBudgetStatusDto> budgets) {
+}
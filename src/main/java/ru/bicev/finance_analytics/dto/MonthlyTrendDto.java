@@ -0,0 +1,13 @@
+package ru.bicev.finance_analytics.dto;
+
+import java.math.BigDecimal;
+
+public record MonthlyTrendDto(
+        String month,
+        BigDecimal total,
+        BigDecimal monthOverMonth,
+        BigDecimal yearOverYear,
+        BigDecimal movingAverage3,
+        BigDecimal movingAverage6,
+        BigDecimal movingAverage12) {
+}
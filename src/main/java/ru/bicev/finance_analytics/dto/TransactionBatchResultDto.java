@@ -0,0 +1,7 @@
+package ru.bicev.finance_analytics.dto;
+
+import java.util.List;
+
+public record TransactionBatchResultDto(int received, int created, List<BatchItemErrorDto> errors) {
+
+}
@@ -0,0 +1,7 @@
+package ru.bicev.finance_analytics.dto;
+
+import java.util.List;
+
+public record TransactionPageDto(List<TransactionDto> items, String nextCursor) {
+
+}
@@ -0,0 +1,6 @@
+package ru.bicev.finance_analytics.dto;
+
+import java.util.List;
+
+public record TrendsDto(List<MonthlyTrendDto> months, List<CategoryTrendDto> categories) {
+}
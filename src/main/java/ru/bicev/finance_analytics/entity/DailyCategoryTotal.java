@@ -0,0 +1,53 @@
+package ru.bicev.finance_analytics.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Предрассчитанная сумма транзакций пользователя по категории за один день.
+ * <p>
+ * Строки поддерживаются инкрементально при каждом изменении транзакций, поэтому
+ * аналитика за месяц читает не более (категории × дни) строк вместо всех
+ * транзакций месяца
+ */
+@Entity
+@Table(name = "daily_category_total", uniqueConstraints = @UniqueConstraint(columnNames = { "user_id",
+        "category_id", "date" }))
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class DailyCategoryTotal {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "category_id", nullable = false)
+    private UUID categoryId;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false)
+    private BigDecimal total;
+
+    @Column(nullable = false)
+    private long transactionCount;
+
+}
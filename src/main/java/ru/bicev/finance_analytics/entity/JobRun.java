@@ -0,0 +1,62 @@
+package ru.bicev.finance_analytics.entity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.bicev.finance_analytics.util.JobRunStatus;
+
+/**
+ * Запись истории запуска задачи по расписанию
+ */
+@Entity
+@Table(name = "job_run")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class JobRun {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(nullable = false, length = 64)
+    private String jobName;
+
+    @Column(nullable = false)
+    private String ownerId;
+
+    @Column(nullable = false)
+    private long fencingToken;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime finishedAt;
+
+    @Column(nullable = false)
+    private long durationMs;
+
+    @Column(nullable = false)
+    private long rowsProcessed;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobRunStatus status;
+
+    @Column(length = 1000)
+    private String error;
+
+}
@@ -0,0 +1,56 @@
+package ru.bicev.finance_analytics.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Снимок показателей пользователя за закрытый месяц: суммы по категориям,
+ * расходы по дням, поступления, траты и состояние бюджетов
+ * <p>
+ * Снимок, помеченный устаревшим, не используется до пересчета
+ */
+@Entity
+@Table(name = "month_snapshot", uniqueConstraints = @UniqueConstraint(columnNames = { "user_id", "month" }))
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class MonthSnapshot {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * Первый день месяца
+     */
+    @Column(nullable = false)
+    private LocalDate month;
+
+    @Column(columnDefinition = "text")
+    private String data;
+
+    @Column(nullable = false)
+    private boolean stale;
+
+    @Column(nullable = false)
+    private long revision;
+
+    private LocalDateTime computedAt;
+
+}
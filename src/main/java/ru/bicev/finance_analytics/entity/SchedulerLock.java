@@ -0,0 +1,45 @@
+package ru.bicev.finance_analytics.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Аренда задачи по расписанию.
+ * <p>
+ * Одна строка на задачу. Узел, захвативший аренду, выполняет задачу до
+ * {@code lockedUntil}; при каждом новом захвате токен {@code fencingToken}
+ * увеличивается, что позволяет отсечь записи от узла, потерявшего аренду
+ */
+@Entity
+@Table(name = "scheduler_lock")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class SchedulerLock {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private String ownerId;
+
+    @Column(nullable = false)
+    private LocalDateTime lockedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime lockedUntil;
+
+    @Column(nullable = false)
+    private long fencingToken;
+
+}
@@ -0,0 +1,9 @@
+package ru.bicev.finance_analytics.exception;
+
+public class LeaseLostException extends IllegalStateException {
+
+    public LeaseLostException(String message) {
+        super(message);
+    }
+
+}
@@ -1,29 +1,52 @@
 package ru.bicev.finance_analytics.repo;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import ru.bicev.finance_analytics.entity.Budget;
 
 public interface BudgetRepository extends JpaRepository<Budget, UUID> {
 
+    @EntityGraph(attributePaths = "category")
     List<Budget> findAllByUserId(Long userId);
 
+    @EntityGraph(attributePaths = "category")
     List<Budget> findByUserIdAndMonth(Long userId, YearMonth month);
 
     @Query("SELECT SUM(b.amount) from Budget b where b.user.id = :userId and b.month = :month")
     Optional<BigDecimal> sumAmountByUserIdAndMonth(Long userId, YearMonth month);
 
+    @EntityGraph(attributePaths = "category")
     Optional<Budget> findByIdAndUserId(UUID id, Long userId);
 
     Optional<Budget> findByUserIdAndCategoryIdAndMonth(Long userId, UUID categoryId, YearMonth month);
 
     boolean existsByUserIdAndCategoryIdAndMonth(Long userId, UUID categoryId, YearMonth month);
 
+    /**
+     * Создает бюджеты на указанный месяц по всем активным шаблонам одним
+     * запросом. Бюджеты, уже существующие для пары пользователь-категория в этом
+     * месяце, пропускаются благодаря уникальному ограничению
+     * 
+     * @return количество созданных бюджетов
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO Budget (id, user, category, month, amount, createdAt)
+            SELECT function('gen_random_uuid'), t.user, t.category, :month, t.amount, :createdAt
+            FROM BudgetTemplate t
+            WHERE t.active = true
+            ON CONFLICT DO NOTHING
+            """)
+    int insertFromActiveTemplates(YearMonth month, LocalDateTime createdAt);
+
 }
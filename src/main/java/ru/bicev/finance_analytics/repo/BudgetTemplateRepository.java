@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import ru.bicev.finance_analytics.entity.BudgetTemplate;
@@ -12,8 +13,10 @@ public interface BudgetTemplateRepository extends JpaRepository<BudgetTemplate,
 
     List<BudgetTemplate> findByActiveTrue();
 
+    @EntityGraph(attributePaths = "category")
     List<BudgetTemplate> findAllByUserId(Long userId);
 
+    @EntityGraph(attributePaths = "category")
     Optional<BudgetTemplate> findByIdAndUserId(UUID id, Long userId);
 
     boolean existsByUserIdAndCategoryId(Long userId, UUID categoryId);
@@ -1,6 +1,7 @@
 package ru.bicev.finance_analytics.repo;
 
 import java.util.List;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,4 +18,6 @@ public interface CategoryRepository extends JpaRepository<Category, UUID> {
 
     Optional<Category> findByIdAndUserId(UUID id, Long userId);
 
+    List<Category> findAllByUserIdAndIdIn(Long userId, Collection<UUID> ids);
+
 }
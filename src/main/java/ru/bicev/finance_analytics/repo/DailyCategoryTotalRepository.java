@@ -0,0 +1,83 @@
+package ru.bicev.finance_analytics.repo;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import ru.bicev.finance_analytics.dto.CategoryExpenseDto;
+import ru.bicev.finance_analytics.dto.DailyExpenseDto;
+import ru.bicev.finance_analytics.entity.DailyCategoryTotal;
+import ru.bicev.finance_analytics.repo.projection.CategoryDayTotalProjection;
+import ru.bicev.finance_analytics.repo.projection.CategoryTypeTotalProjection;
+import ru.bicev.finance_analytics.util.CategoryType;
+
+public interface DailyCategoryTotalRepository extends JpaRepository<DailyCategoryTotal, UUID> {
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO daily_category_total (id, user_id, category_id, date, total, transaction_count)
+            VALUES (gen_random_uuid(), :userId, :categoryId, :date, :amount, :count)
+            ON CONFLICT (user_id, category_id, date) DO UPDATE
+            SET total = daily_category_total.total + EXCLUDED.total,
+            transaction_count = daily_category_total.transaction_count + EXCLUDED.transaction_count
+            """, nativeQuery = true)
+    int addToTotal(Long userId, UUID categoryId, LocalDate date, BigDecimal amount, long count);
+
+    @Modifying
+    @Query("""
+            DELETE FROM DailyCategoryTotal d
+            WHERE d.userId = :userId AND d.categoryId = :categoryId AND d.date = :date
+            AND d.transactionCount <= 0
+            """)
+    int deleteEmpty(Long userId, UUID categoryId, LocalDate date);
+
+    @Query("""
+            SELECT new ru.bicev.finance_analytics.dto.CategoryExpenseDto(
+            c.name,
+            SUM(d.total)
+            )
+            FROM DailyCategoryTotal d
+            JOIN Category c ON c.id = d.categoryId
+            WHERE d.userId = :userId AND c.type = :type AND d.date BETWEEN :start AND :end
+            GROUP BY c.id, c.name
+            ORDER BY SUM(d.total) DESC, c.name ASC
+            """)
+    List<CategoryExpenseDto> sumByCategory(Long userId, CategoryType type, LocalDate start, LocalDate end);
+
+    @Query("""
+            SELECT new ru.bicev.finance_analytics.dto.DailyExpenseDto(
+            d.date,
+            SUM(d.total)
+            )
+            FROM DailyCategoryTotal d
+            JOIN Category c ON c.id = d.categoryId
+            WHERE d.userId = :userId AND c.type = :type AND d.date BETWEEN :start AND :end
+            GROUP BY d.date
+            ORDER BY d.date ASC
+            """)
+    List<DailyExpenseDto> sumByDay(Long userId, CategoryType type, LocalDate start, LocalDate end);
+
+    @Query("""
+            SELECT c.type AS type, SUM(d.total) AS total
+            FROM DailyCategoryTotal d
+            JOIN Category c ON c.id = d.categoryId
+            WHERE d.userId = :userId AND d.date BETWEEN :start AND :end
+            GROUP BY c.type
+            """)
+    List<CategoryTypeTotalProjection> sumByType(Long userId, LocalDate start, LocalDate end);
+
+    @Query("""
+            SELECT d.date AS date, d.categoryId AS categoryId, c.name AS categoryName, c.type AS type,
+            d.total AS total
+            FROM DailyCategoryTotal d
+            JOIN Category c ON c.id = d.categoryId
+            WHERE d.userId = :userId AND d.date BETWEEN :start AND :end
+            """)
+    List<CategoryDayTotalProjection> findAllWithCategory(Long userId, LocalDate start, LocalDate end);
+
+}
@@ -0,0 +1,14 @@
+package ru.bicev.finance_analytics.repo;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import ru.bicev.finance_analytics.entity.JobRun;
+
+public interface JobRunRepository extends JpaRepository<JobRun, UUID> {
+
+    List<JobRun> findTop20ByJobNameOrderByStartedAtDesc(String jobName);
+
+}
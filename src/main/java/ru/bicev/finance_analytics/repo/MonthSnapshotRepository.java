@@ -0,0 +1,100 @@
+package ru.bicev.finance_analytics.repo;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import ru.bicev.finance_analytics.entity.MonthSnapshot;
+
+public interface MonthSnapshotRepository extends JpaRepository<MonthSnapshot, UUID> {
+
+    @Query("SELECT s.data FROM MonthSnapshot s WHERE s.userId = :userId AND s.month = :month AND s.stale = false")
+    Optional<String> findFreshData(Long userId, LocalDate month);
+
+    /**
+     * Создает устаревший снимок, если снимка еще нет, и возвращает его текущую
+     * ревизию
+     * <p>
+     * Если строку одновременно вставила другая транзакция, запрос дождется ее
+     * фиксации, но не увидит строку в своем снимке и вернет пустой результат
+     */
+    @Query(value = """
+            WITH inserted AS (
+                INSERT INTO month_snapshot (id, user_id, month, stale, revision)
+                VALUES (gen_random_uuid(), :userId, :month, true, 0)
+                ON CONFLICT (user_id, month) DO NOTHING
+                RETURNING revision
+            )
+            SELECT revision FROM inserted
+            UNION ALL
+            SELECT revision FROM month_snapshot WHERE user_id = :userId AND month = :month
+            LIMIT 1
+            """, nativeQuery = true)
+    Optional<Long> open(Long userId, LocalDate month);
+
+    @Query("SELECT s.revision FROM MonthSnapshot s WHERE s.userId = :userId AND s.month = :month")
+    Optional<Long> findRevision(Long userId, LocalDate month);
+
+    /**
+     * Сохраняет пересчитанный снимок, если он не изменялся с ревизии
+     * {@code revision}
+     * 
+     * @return 1, если снимок сохранен, иначе 0
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE month_snapshot
+            SET data = :data, stale = false, computed_at = LOCALTIMESTAMP
+            WHERE user_id = :userId AND month = :month AND revision = :revision
+            """, nativeQuery = true)
+    int complete(Long userId, LocalDate month, long revision, String data);
+
+    /**
+     * Помечает снимок устаревшим и увеличивает его ревизию, создавая устаревший
+     * снимок, если его еще нет
+     * <p>
+     * Блокировка строки снимка держится до конца пишущей транзакции, поэтому
+     * {@link #open(Long, LocalDate)} дождется ее фиксации и вернет уже
+     * увеличенную ревизию
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO month_snapshot (id, user_id, month, stale, revision)
+            VALUES (gen_random_uuid(), :userId, :month, true, 1)
+            ON CONFLICT (user_id, month) DO UPDATE
+            SET stale = true, revision = month_snapshot.revision + 1
+            """, nativeQuery = true)
+    int reopen(Long userId, LocalDate month);
+
+    @Modifying
+    @Query(value = """
+            UPDATE month_snapshot SET stale = true, revision = revision + 1
+            WHERE user_id = :userId
+            """, nativeQuery = true)
+    int reopenUser(Long userId);
+
+    @Modifying
+    @Query(value = "UPDATE month_snapshot SET stale = true, revision = revision + 1 WHERE month = :month", nativeQuery = true)
+    int reopenMonth(LocalDate month);
+
+    /**
+     * Пользователи, у которых есть транзакции или бюджеты за месяц
+     */
+    @Query("""
+            SELECT d.userId FROM DailyCategoryTotal d WHERE d.date BETWEEN :start AND :end
+            UNION
+            SELECT b.user.id FROM Budget b WHERE b.month = :month
+            """)
+    List<Long> findUserIdsWithData(LocalDate start, LocalDate end, YearMonth month);
+
+    @Query("SELECT s FROM MonthSnapshot s WHERE s.stale = true ORDER BY s.month, s.userId")
+    List<MonthSnapshot> findStale(Limit limit);
+
+}
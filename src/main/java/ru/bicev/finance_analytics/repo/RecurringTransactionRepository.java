@@ -5,21 +5,50 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import ru.bicev.finance_analytics.entity.RecurringTransaction;
 
 public interface RecurringTransactionRepository extends JpaRepository<RecurringTransaction, UUID> {
 
-    List<RecurringTransaction> findAllByUserId(Long userId);
+    @EntityGraph(attributePaths = "category")
+    List<RecurringTransaction> findAllByUserIdOrderByNextExecutionDateAsc(Long userId);
 
-    List<RecurringTransaction> findAllByUserIdAndNextExecutionDateLessThanEqual(Long userId, LocalDate date);
+    @EntityGraph(attributePaths = "category")
+    List<RecurringTransaction> findAllByUserIdAndNextExecutionDateLessThanEqualOrderByNextExecutionDateAsc(Long userId,
+            LocalDate date);
 
     List<RecurringTransaction> findAllByIsActiveAndNextExecutionDateLessThanEqual(boolean isActive, LocalDate date);
 
     List<RecurringTransaction> findAllByUserIdAndIsActiveAndNextExecutionDateGreaterThanEqual(Long userId, boolean isActive,
             LocalDate date);
 
+    @EntityGraph(attributePaths = "category")
     Optional<RecurringTransaction> findByIdAndUserId(UUID id, Long userId);
 
+    /**
+     * Захватывает порцию просроченных активных рекуррентных транзакций одной партиции
+     * <p>
+     * Строки блокируются через {@code FOR UPDATE SKIP LOCKED}: строки, уже
+     * захваченные другим потоком или экземпляром приложения, пропускаются, а не
+     * ожидаются
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "-2"))
+    @Query("""
+            SELECT r FROM RecurringTransaction r
+            WHERE r.isActive = true AND r.nextExecutionDate <= :date
+            AND MOD(r.user.id, :partitions) = :partition
+            ORDER BY r.id ASC
+            """)
+    List<RecurringTransaction> claimDue(LocalDate date, int partition, int partitions, Limit limit);
+
 }
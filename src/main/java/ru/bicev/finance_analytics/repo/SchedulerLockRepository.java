@@ -0,0 +1,61 @@
+package ru.bicev.finance_analytics.repo;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import ru.bicev.finance_analytics.entity.SchedulerLock;
+
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    /**
+     * Захватывает аренду, если она свободна или истекла. Время берется из
+     * базы данных, чтобы расхождение часов между узлами не влияло на аренду
+     * 
+     * @return 1, если аренда захвачена, иначе 0
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO scheduler_lock (name, owner_id, locked_at, locked_until, fencing_token)
+            VALUES (:name, :ownerId, LOCALTIMESTAMP, LOCALTIMESTAMP + make_interval(secs => :leaseSeconds), 1)
+            ON CONFLICT (name) DO UPDATE
+            SET owner_id = EXCLUDED.owner_id,
+            locked_at = EXCLUDED.locked_at,
+            locked_until = EXCLUDED.locked_until,
+            fencing_token = scheduler_lock.fencing_token + 1
+            WHERE scheduler_lock.locked_until <= LOCALTIMESTAMP
+            """, nativeQuery = true)
+    int tryAcquire(String name, String ownerId, long leaseSeconds);
+
+    @Modifying
+    @Query(value = """
+            UPDATE scheduler_lock
+            SET locked_until = LOCALTIMESTAMP + make_interval(secs => :leaseSeconds)
+            WHERE name = :name AND owner_id = :ownerId AND fencing_token = :fencingToken
+            """, nativeQuery = true)
+    int renew(String name, String ownerId, long fencingToken, long leaseSeconds);
+
+    /**
+     * Освобождает аренду, но не раньше чем через {@code minHoldSeconds} после
+     * захвата, чтобы узлы с отстающими часами не запустили тот же запуск
+     * повторно
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE scheduler_lock
+            SET locked_until = GREATEST(LOCALTIMESTAMP, locked_at + make_interval(secs => :minHoldSeconds))
+            WHERE name = :name AND owner_id = :ownerId AND fencing_token = :fencingToken
+            """, nativeQuery = true)
+    int release(String name, String ownerId, long fencingToken, long minHoldSeconds);
+
+    /**
+     * Возвращает текущий токен аренды, блокируя строку в разделяемом режиме до
+     * конца транзакции: пока транзакция, проверившая токен, не завершена,
+     * другой узел не может перехватить аренду
+     */
+    @Query(value = "SELECT fencing_token FROM scheduler_lock WHERE name = :name AND owner_id = :ownerId FOR SHARE", nativeQuery = true)
+    Optional<Long> findFencingTokenForShare(String name, String ownerId);
+
+}
@@ -4,44 +4,48 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 
 import ru.bicev.finance_analytics.dto.CategoryExpenseDto;
 import ru.bicev.finance_analytics.dto.DailyExpenseDto;
+import ru.bicev.finance_analytics.dto.TopCategoryDto;
 import ru.bicev.finance_analytics.entity.Transaction;
+import ru.bicev.finance_analytics.repo.projection.CategoryTypeTotalProjection;
 import ru.bicev.finance_analytics.repo.projection.MonthlyExpenseProjection;
-import ru.bicev.finance_analytics.repo.projection.SummaryProjection;
-import ru.bicev.finance_analytics.repo.projection.TopCategoryProjection;
+import ru.bicev.finance_analytics.repo.projection.MonthlyTrendProjection;
+import ru.bicev.finance_analytics.util.CategoryType;
 
 @org.springframework.stereotype.Repository
 public interface TransactionAnalyticsRepository extends Repository<Transaction, UUID> {
 
     @Query("""
             SELECT new ru.bicev.finance_analytics.dto.CategoryExpenseDto(
-            t.category.name,
+            c.name,
             SUM(t.amount)
             )
             FROM Transaction t
-            WHERE t.user.id = :userId AND t.date BETWEEN :start AND :end
-            GROUP BY t.category.name
-            ORDER BY SUM(t.amount) DESC
+            JOIN t.category c
+            WHERE t.user.id = :userId AND c.type = :type AND t.date BETWEEN :start AND :end
+            GROUP BY c.id, c.name
+            ORDER BY SUM(t.amount) DESC, c.name ASC
             """)
-    List<CategoryExpenseDto> getExpensesByCategory(Long userId, LocalDate start, LocalDate end);
+    List<CategoryExpenseDto> getTotalsByCategory(Long userId, CategoryType type, LocalDate start, LocalDate end);
 
-    @Query(value = """
-            SELECT
-            c.name AS categoryName,
-            SUM(t.amount) AS totalAmount
-            FROM transaction t
-            JOIN сategory c ON t.category_id = c.id
-            WHERE t.user_id = :userId
-            AND t.date BETWEEN :start AND :end
-            GROUP BY c.name
-            ORDER BY totalAmount DESC
-            LIMIT :limit
-            """, nativeQuery = true)
-    List<TopCategoryProjection> getTopCategories(Long userId, LocalDate start, LocalDate end, int limit);
+    @Query("""
+            SELECT new ru.bicev.finance_analytics.dto.TopCategoryDto(
+            c.name,
+            SUM(t.amount)
+            )
+            FROM Transaction t
+            JOIN t.category c
+            WHERE t.user.id = :userId AND c.type = :type AND t.date BETWEEN :start AND :end
+            GROUP BY c.id, c.name
+            ORDER BY SUM(t.amount) DESC, c.name ASC
+            """)
+    List<TopCategoryDto> getTopCategories(Long userId, CategoryType type, LocalDate start, LocalDate end,
+            Limit limit);
 
     @Query("""
             SELECT new ru.bicev.finance_analytics.dto.DailyExpenseDto(
@@ -49,32 +53,88 @@ public interface TransactionAnalyticsRepository extends Repository<Transaction,
             SUM(t.amount)
             )
             FROM Transaction t
-            WHERE t.user.id = :userId AND t.date BETWEEN :start AND :end
+            JOIN t.category c
+            WHERE t.user.id = :userId AND c.type = :type AND t.date BETWEEN :start AND :end
             GROUP BY t.date
             ORDER BY t.date ASC
             """)
-    List<DailyExpenseDto> getDailyExpenses(Long userId, LocalDate start, LocalDate end);
+    List<DailyExpenseDto> getDailyTotals(Long userId, CategoryType type, LocalDate start, LocalDate end);
 
-    @Query(value = """
-            SELECT
-            DATE_TRUNC('month', t.date) AS month,
-            SUM(t.amount) AS totalAmount
-            FROM transaction t
-            WHERE t.user_id = :userId
-            AND t.date BETWEEN :start AND :end
-            GROUP BY month
-            ORDER BY month
-            """, nativeQuery = true)
-    List<MonthlyExpenseProjection> getMonthlyExpenses(Long userId, LocalDate start, LocalDate end);
+    @Query("""
+            SELECT YEAR(t.date) AS year, MONTH(t.date) AS month, SUM(t.amount) AS totalAmount
+            FROM Transaction t
+            JOIN t.category c
+            WHERE t.user.id = :userId AND c.type = :type AND t.date BETWEEN :start AND :end
+            GROUP BY YEAR(t.date), MONTH(t.date)
+            ORDER BY YEAR(t.date), MONTH(t.date)
+            """)
+    List<MonthlyExpenseProjection> getMonthlyTotals(Long userId, CategoryType type, LocalDate start, LocalDate end);
+
+    @Query("""
+            SELECT c.type AS type, SUM(t.amount) AS total
+            FROM Transaction t
+            JOIN t.category c
+            WHERE t.user.id = :userId AND t.date BETWEEN :start AND :end
+            GROUP BY c.type
+            """)
+    List<CategoryTypeTotalProjection> getTotalsByType(Long userId, LocalDate start, LocalDate end);
 
+    /**
+     * Тренды расходов по месяцам с {@code from} по {@code end} (не включая) в
+     * целом и по категориям: сумма, изменение к предыдущему месяцу и к тому же
+     * месяцу прошлого года, скользящие средние за 3, 6 и 12 месяцев
+     * <p>
+     * Суммы считаются с {@code start}, за 12 месяцев до {@code from}, чтобы
+     * окна первых месяцев были полными. Месяцы без расходов учитываются с
+     * нулевой суммой. Строки общего итога имеют пустую категорию и идут первыми
+     */
     @Query(value = """
+            WITH months AS (
+                SELECT CAST(m AS date) AS month
+                FROM generate_series(CAST(:start AS date), CAST(:end AS date) - interval '1 month',
+                    interval '1 month') m
+            ),
+            totals AS (
+                SELECT t.category_id, CAST(date_trunc('month', t.date) AS date) AS month, SUM(t.amount) AS total
+                FROM transaction t
+                JOIN category c ON c.id = t.category_id
+                WHERE t.user_id = :userId AND c.type = 'EXPENSE' AND t.date >= :start AND t.date < :end
+                GROUP BY t.category_id, CAST(date_trunc('month', t.date) AS date)
+            ),
+            series AS (
+                SELECT k.category_id, m.month, COALESCE(SUM(tt.total), 0.00) AS total
+                FROM (SELECT DISTINCT category_id FROM totals UNION ALL SELECT NULL) k
+                CROSS JOIN months m
+                LEFT JOIN totals tt ON tt.month = m.month
+                    AND (k.category_id IS NULL OR tt.category_id = k.category_id)
+                GROUP BY k.category_id, m.month
+            ),
+            trends AS (
+                SELECT s.category_id, s.month, s.total,
+                s.total - LAG(s.total) OVER w AS month_over_month,
+                s.total - LAG(s.total, 12) OVER w AS year_over_year,
+                ROUND(AVG(s.total) OVER (w ROWS BETWEEN 2 PRECEDING AND CURRENT ROW), 2) AS moving_average3,
+                ROUND(AVG(s.total) OVER (w ROWS BETWEEN 5 PRECEDING AND CURRENT ROW), 2) AS moving_average6,
+                ROUND(AVG(s.total) OVER (w ROWS BETWEEN 11 PRECEDING AND CURRENT ROW), 2) AS moving_average12
+                FROM series s
+                WINDOW w AS (PARTITION BY s.category_id ORDER BY s.month)
+            )
             SELECT
-            SUM(CASE WHEN t.type = 'INCOME' then t.amount ELSE 0 END)::numeric AS income,
-            SUM(CASE WHEN t.type = 'EXPENSE' then t.amount ELSE 0 END)::numeric AS expense
-            FROM transaction t
-            WHERE t.user_id = :userId
-            AND t.date BETWEEN :start AND :end
+            tr.category_id AS categoryId,
+            c.name AS categoryName,
+            CAST(EXTRACT(YEAR FROM tr.month) AS integer) AS year,
+            CAST(EXTRACT(MONTH FROM tr.month) AS integer) AS month,
+            tr.total AS total,
+            tr.month_over_month AS monthOverMonth,
+            tr.year_over_year AS yearOverYear,
+            tr.moving_average3 AS movingAverage3,
+            tr.moving_average6 AS movingAverage6,
+            tr.moving_average12 AS movingAverage12
+            FROM trends tr
+            LEFT JOIN category c ON c.id = tr.category_id
+            WHERE tr.month >= :from
+            ORDER BY tr.category_id NULLS FIRST, tr.month
             """, nativeQuery = true)
-    SummaryProjection getSummary(Long userId, LocalDate start, LocalDate end);
+    List<MonthlyTrendProjection> getMonthlyTrends(Long userId, LocalDate start, LocalDate from, LocalDate end);
 
 }
@@ -4,26 +4,65 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import jakarta.persistence.QueryHint;
 import ru.bicev.finance_analytics.entity.Transaction;
 import ru.bicev.finance_analytics.util.CategoryType;
 
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
 
-        List<Transaction> findAllByUserId(Long userId);
+        @EntityGraph(attributePaths = "category")
+        List<Transaction> findAllByUserIdOrderByDateAsc(Long userId);
 
+        @EntityGraph(attributePaths = "category")
         List<Transaction> findAllByUserIdAndCategoryId(Long userId, UUID categoryId);
 
         List<Transaction> findAllByUserIdAndCategoryIdAndDateBetween(Long userId, UUID categoryId, LocalDate start,
                         LocalDate end);
 
-        List<Transaction> findAllByUserIdAndDateBetween(Long userId, LocalDate start, LocalDate end);
+        @EntityGraph(attributePaths = "category")
+        List<Transaction> findAllByUserIdAndDateBetweenOrderByDateAsc(Long userId, LocalDate start, LocalDate end);
 
         List<Transaction> findAllByUserIdAndCategory_TypeAndDateBetween(Long userId,
                         CategoryType type, LocalDate start, LocalDate end);
 
+        @EntityGraph(attributePaths = "category")
         Optional<Transaction> findByIdAndUserId(UUID id, Long userId);
 
+        @Query("""
+                        SELECT t FROM Transaction t JOIN FETCH t.category
+                        WHERE t.user.id = :userId
+                        ORDER BY t.date ASC, t.id ASC
+                        """)
+        List<Transaction> findPageByUserId(Long userId, Limit limit);
+
+        @Query("""
+                        SELECT t FROM Transaction t JOIN FETCH t.category
+                        WHERE t.user.id = :userId
+                        AND (t.date > :date OR (t.date = :date AND t.id > :id))
+                        ORDER BY t.date ASC, t.id ASC
+                        """)
+        List<Transaction> findPageByUserIdAfter(Long userId, LocalDate date, UUID id, Limit limit);
+
+        @QueryHints({
+                        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+        @Query("""
+                        SELECT t FROM Transaction t JOIN FETCH t.category
+                        WHERE t.user.id = :userId
+                        ORDER BY t.date ASC, t.id ASC
+                        """)
+        Stream<Transaction> streamAllByUserId(Long userId);
+
+        @Query(value = "SELECT create_transaction_partitions(:from, :months)", nativeQuery = true)
+        int createPartitions(LocalDate from, int months);
+
 }
@@ -1,8 +1,13 @@
 package ru.bicev.finance_analytics.repo;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import ru.bicev.finance_analytics.entity.User;
 
@@ -12,4 +17,79 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    /**
+     * Создает пользователя, если пользователя с таким провайдером и
+     * идентификатором провайдера еще нет, и возвращает его идентификатор
+     * <p>
+     * Существующий пользователь не изменяется
+     */
+    @Query(value = """
+            WITH inserted AS (
+                INSERT INTO app_user (provider, provider_id, email, name, avatar_url, created_at, last_login_at)
+                VALUES (:provider, :providerId, :email, :name, :avatarUrl, :now, :now)
+                ON CONFLICT (provider, provider_id) DO NOTHING
+                RETURNING id
+            )
+            SELECT id FROM inserted
+            UNION ALL
+            SELECT id FROM app_user WHERE provider = :provider AND provider_id = :providerId
+            LIMIT 1
+            """, nativeQuery = true)
+    Optional<Long> upsertByProvider(String provider, String providerId, String email, String name,
+            String avatarUrl, LocalDateTime now);
+
+    /**
+     * Обновляет время последнего входа пользователей одним запросом, не
+     * уменьшая уже сохраненное время
+     * 
+     * @param userIds      идентификаторы пользователей
+     * @param lastLoginAts время последнего входа, в порядке идентификаторов
+     * @return количество обновленных пользователей
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE app_user u SET last_login_at = v.last_login_at
+            FROM unnest(CAST(:userIds AS bigint[]), CAST(:lastLoginAts AS timestamp[])) AS v(id, last_login_at)
+            WHERE u.id = v.id AND (u.last_login_at IS NULL OR u.last_login_at < v.last_login_at)
+            """, nativeQuery = true)
+    int updateLastLoginAt(Long[] userIds, LocalDateTime[] lastLoginAts);
+
+    /**
+     * Читает версию данных пользователя в текущей транзакции или без нее
+     * <p>
+     * Без транзакции соединение не помечается только для чтения, поэтому запрос
+     * выполняется на основной базе и, в отличие от пишущей транзакции, не
+     * открывает окно чтения с нее в
+     * {@link ru.bicev.finance_analytics.datasource.ReadYourWritesGuard}
+     *
+     * @param userId идентификатор пользователя
+     * @return версия данных, если пользователь существует
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Query(value = "SELECT data_version FROM app_user WHERE id = :userId", nativeQuery = true)
+    Optional<Long> findDataVersion(Long userId);
+
+    @Modifying
+    @Query(value = "UPDATE app_user SET data_version = data_version + 1 WHERE id = :userId", nativeQuery = true)
+    int incrementDataVersion(Long userId);
+
+    @Modifying
+    @Query(value = """
+            UPDATE app_user SET data_version = data_version + 1
+            WHERE id = ANY(CAST(:userIds AS bigint[]))
+            """, nativeQuery = true)
+    int incrementDataVersions(Long[] userIds);
+
+    /**
+     * Увеличивает версию данных пользователей, у которых есть активные шаблоны
+     * бюджетов
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE app_user SET data_version = data_version + 1
+            WHERE id IN (SELECT t.user_id FROM budget_template t WHERE t.active)
+            """, nativeQuery = true)
+    int incrementDataVersionsWithActiveTemplates();
+
 }
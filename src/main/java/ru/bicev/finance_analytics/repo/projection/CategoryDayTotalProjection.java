@@ -0,0 +1,20 @@
+package ru.bicev.finance_analytics.repo.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import ru.bicev.finance_analytics.util.CategoryType;
+
+public interface CategoryDayTotalProjection {
+    LocalDate getDate();
+
+    UUID getCategoryId();
+
+    String getCategoryName();
+
+    CategoryType getType();
+
+    BigDecimal getTotal();
+
+}
@@ -0,0 +1,12 @@
+package ru.bicev.finance_analytics.repo.projection;
+
+import java.math.BigDecimal;
+
+import ru.bicev.finance_analytics.util.CategoryType;
+
+public interface CategoryTypeTotalProjection {
+    CategoryType getType();
+
+    BigDecimal getTotal();
+
+}
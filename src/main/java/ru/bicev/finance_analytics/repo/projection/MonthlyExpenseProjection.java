@@ -1,10 +1,11 @@
 package ru.bicev.finance_analytics.repo.projection;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 
 public interface MonthlyExpenseProjection {
-    LocalDateTime getMonth();
+    Integer getYear();
+
+    Integer getMonth();
 
     BigDecimal getTotalAmount();
 
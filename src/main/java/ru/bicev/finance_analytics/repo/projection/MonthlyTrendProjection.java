@@ -0,0 +1,27 @@
+package ru.bicev.finance_analytics.repo.projection;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public interface MonthlyTrendProjection {
+    UUID getCategoryId();
+
+    String getCategoryName();
+
+    Integer getYear();
+
+    Integer getMonth();
+
+    BigDecimal getTotal();
+
+    BigDecimal getMonthOverMonth();
+
+    BigDecimal getYearOverYear();
+
+    BigDecimal getMovingAverage3();
+
+    BigDecimal getMovingAverage6();
+
+    BigDecimal getMovingAverage12();
+
+}
@@ -1,10 +0,0 @@
-package ru.bicev.finance_analytics.repo.projection;
-
-import java.math.BigDecimal;
-
-public interface SummaryProjection {
-    BigDecimal getIncome();
-
-    BigDecimal getExpense();
-
-}
@@ -1,9 +0,0 @@
-package ru.bicev.finance_analytics.repo.projection;
-
-import java.math.BigDecimal;
-
-public interface TopCategoryProjection {
-    String getCategoryName();
-    BigDecimal getTotalAmount();
-
-}
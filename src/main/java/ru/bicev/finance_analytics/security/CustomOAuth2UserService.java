@@ -6,7 +6,6 @@ import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 
-import ru.bicev.finance_analytics.entity.User;
 import ru.bicev.finance_analytics.service.UserService;
 
 @Service
@@ -24,8 +23,8 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
         String provider = userRequest.getClientRegistration().getRegistrationId();
 
-        User user = userService.getOrCreateOAuthUser(provider, oAuth2User);
-        return new CustomUserPrincipal(user.getId(), oAuth2User.getAttributes());
+        Long userId = userService.provisionOAuthUser(provider, oAuth2User);
+        return new CustomUserPrincipal(userId, oAuth2User.getAttributes());
     }
 
 }
@@ -15,7 +15,6 @@ import org.springframework.stereotype.Component;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import ru.bicev.finance_analytics.entity.User;
 import ru.bicev.finance_analytics.security.jwt.JwtService;
 import ru.bicev.finance_analytics.service.UserService;
 
@@ -46,10 +45,10 @@ public class OAuth2AuthenticationSuccessHandler implements AuthenticationSuccess
         if (principalObj instanceof CustomUserPrincipal) {
             principal = (CustomUserPrincipal) principalObj;
         } else if (principalObj instanceof OAuth2User oAuth2User) {
-            User user = userService.getOrCreateOAuthUser(
+            Long userId = userService.provisionOAuthUser(
                     ((OAuth2AuthenticationToken) authentication).getAuthorizedClientRegistrationId(),
                     oAuth2User);
-            principal = new CustomUserPrincipal(user.getId(), oAuth2User.getAttributes());
+            principal = new CustomUserPrincipal(userId, oAuth2User.getAttributes());
         } else {
             throw new IllegalStateException("Unsupported principal type: " + principalObj.getClass());
         }
@@ -42,6 +42,7 @@ public class SecurityConfig {
                 config.setAllowedOrigins(List.of(REDIRECT_URL));
                 config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
                 config.setAllowedHeaders(List.of("*"));
+                config.setExposedHeaders(List.of(HttpHeaders.ETAG));
 
                 config.setAllowCredentials(true);
 
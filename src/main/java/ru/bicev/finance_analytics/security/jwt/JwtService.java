@@ -1,39 +1,86 @@
 package ru.bicev.finance_analytics.security.jwt;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
 
 import javax.crypto.SecretKey;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 
+/**
+ * Сервис выпуска и проверки JWT
+ * <p>
+ * Парсер создается один раз и используется всеми потоками. Проверенные
+ * токены кэшируются по SHA-256 токена до их срока действия, поэтому повторные
+ * запросы той же сессии не проверяют подпись заново. Статистика кэша
+ * публикуется в метриках {@code cache.*} с тегом {@code cache=jwt}, время
+ * проверки подписи - в таймере {@code jwt.verification}
+ */
 @Service
 public class JwtService {
 
     private final SecretKey key;
     private final Duration expiration;
     private final String issuer;
+    private final JwtParser parser;
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    private final Timer verificationTimer;
+    private final Clock clock;
 
+    @Autowired
     public JwtService(
             @Value("${jwt.secret}") String secret,
             @Value("${jwt.expiration}") Duration expiration,
-            @Value("${jwt.issuer}") String issuer) {
+            @Value("${jwt.issuer}") String issuer,
+            @Value("${jwt.cache.maximum-size:10000}") long cacheMaximumSize,
+            MeterRegistry meterRegistry) {
+        this(secret, expiration, issuer, cacheMaximumSize, meterRegistry, Clock.systemUTC());
+    }
+
+    JwtService(String secret, Duration expiration, String issuer, long cacheMaximumSize,
+            MeterRegistry meterRegistry, Clock clock) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.expiration = expiration;
         this.issuer = issuer;
+        this.clock = clock;
+        this.parser = Jwts.parser()
+                .requireIssuer(issuer)
+                .verifyWith(key)
+                .clock(() -> Date.from(clock.instant()))
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(Expiry.creating((String digest, VerifiedToken token) -> Duration
+                        .between(clock.instant(), token.expiresAt())))
+                .recordStats()
+                .build();
+        this.verificationTimer = meterRegistry.timer("jwt.verification");
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt");
     }
 
     public String generateToken(Long userId) {
-        Instant now = Instant.now();
+        Instant now = clock.instant();
 
         return Jwts.builder()
                 .issuer(issuer)
@@ -46,27 +93,50 @@ public class JwtService {
 
     public boolean isValid(String token) {
         try {
-            parse(token);
+            getUserId(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
 
+    /**
+     * Возвращает идентификатор пользователя из токена, проверяя подпись и
+     * издателя, если токен еще не проверялся
+     *
+     * @param token JWT
+     * @return идентификатор пользователя
+     * @throws JwtException если токен недействителен или истек
+     */
     public Long getUserId(String token) {
-        return Long.valueOf(
-                parse(token)
-                        .getPayload()
-                        .getSubject());
+        String digest = digest(token);
+        VerifiedToken verified = verifiedTokens.getIfPresent(digest);
+        if (verified != null && verified.expiresAt().isAfter(clock.instant())) {
+            return verified.userId();
+        }
+
+        Claims claims = verificationTimer.record(() -> parser.parseSignedClaims(token).getPayload());
+        Long userId = Long.valueOf(claims.getSubject());
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(digest, new VerifiedToken(userId, claims.getExpiration().toInstant()));
+        }
+        return userId;
     }
 
-    private Jws<Claims> parse(String token) {
-        return Jwts.parser()
-                .requireIssuer(issuer)
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token);
+    /**
+     * Служебный метод, вычисляющий ключ кэша по токену, чтобы кэш не хранил
+     * сами токены
+     */
+    private static String digest(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
+    private record VerifiedToken(Long userId, Instant expiresAt) {
     }
 
 }
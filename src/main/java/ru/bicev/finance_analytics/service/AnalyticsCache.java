@@ -0,0 +1,258 @@
+package ru.bicev.finance_analytics.service;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Кэш результатов аналитики, ключом которого служат пользователь, эндпоинт и
+ * месяц
+ * <p>
+ * Кэш ограничен по размеру и времени жизни записи. Записи удаляются сразу при
+ * изменении данных пользователя за месяц и повторно после фиксации транзакции,
+ * чтобы параллельный запрос не вернул в кэш данные, прочитанные до фиксации.
+ * Тренды месяца зависят от {@value #TREND_WINDOW_MONTHS} предыдущих месяцев,
+ * поэтому изменение месяца удаляет и тренды следующих за ним месяцев.
+ * Статистика попаданий, промахов и вытеснений публикуется в метриках
+ * {@code cache.*} с тегом {@code cache=analytics}
+ * <p>
+ * Удаление записей действует только на своем экземпляре приложения, поэтому
+ * каждая запись помечается версией данных пользователя, прочитанной до ее
+ * вычисления. Запись с версией меньше текущей считается промахом: так кэш не
+ * вернет результат, устаревший из-за записи на другом экземпляре или до
+ * удаления после фиксации
+ * <p>
+ * Результат вычисляется в потоке запроса вне блокировок кэша, а параллельные
+ * запросы того же ключа ждут его завершения. Поэтому запрос к бд внутри
+ * вычисления не закрепляет виртуальный поток за потоком-носителем
+ */
+@Service
+public class AnalyticsCache {
+
+    /**
+     * Кэшируемые эндпоинты аналитики
+     */
+    public enum Endpoint {
+        CATEGORIES, DAILY, SUMMARY, DASHBOARD, SQL_CATEGORIES, SQL_DAILY, SQL_SUMMARY, TRENDS
+    }
+
+    /**
+     * Количество предыдущих месяцев, от которых зависят тренды месяца
+     */
+    public static final int TREND_WINDOW_MONTHS = 12;
+
+    private final AsyncCache<Key, Versioned> asyncCache;
+    private final Cache<Key, Versioned> cache;
+    private final DataVersionService dataVersionService;
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsCache.class);
+
+    public AnalyticsCache(MeterRegistry meterRegistry,
+            DataVersionService dataVersionService,
+            @Value("${app.analytics.cache.maximum-size:10000}") long maximumSize,
+            @Value("${app.analytics.cache.ttl:PT10M}") Duration ttl) {
+        this.dataVersionService = dataVersionService;
+        this.asyncCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        this.cache = asyncCache.synchronous();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "analytics");
+    }
+
+    /**
+     * Возвращает закэшированный результат или вычисляет и кэширует его
+     * <p>
+     * Результат вычисляет первый запрос ключа, остальные ждут его. Если
+     * вычисление завершилось ошибкой, она пробрасывается всем ожидающим, а
+     * запись удаляется. Результат, вычисленный по более старой версии данных,
+     * удаляется и вычисляется заново
+     * 
+     * @param userId   идентификатор пользователя
+     * @param endpoint эндпоинт аналитики
+     * @param month    месяц
+     * @param loader   функция, вычисляющая результат при промахе
+     * @return результат аналитики
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long userId, Endpoint endpoint, YearMonth month, Supplier<T> loader) {
+        long version = version(userId);
+        Key key = new Key(userId, endpoint, month);
+        while (true) {
+            CompletableFuture<Versioned> loading = new CompletableFuture<>();
+            CompletableFuture<Versioned> result = asyncCache.get(key, (k, executor) -> loading);
+            if (result == loading) {
+                try {
+                    T value = loader.get();
+                    loading.complete(new Versioned(version, value));
+                    return value;
+                } catch (RuntimeException | Error e) {
+                    loading.completeExceptionally(e);
+                    throw e;
+                }
+            }
+            Versioned cached;
+            try {
+                cached = result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+            if (cached.version() >= version) {
+                return (T) cached.value();
+            }
+            asyncCache.asMap().remove(key, result);
+        }
+    }
+
+    /**
+     * Возвращает текущую версию данных пользователя, с которой сравниваются и
+     * которой помечаются записи кэша
+     * 
+     * @param userId идентификатор пользователя
+     * @return версия данных
+     */
+    public long version(Long userId) {
+        return dataVersionService.current(userId);
+    }
+
+    /**
+     * Возвращает закэшированный результат, если он есть и вычислен не по более
+     * старой версии данных
+     * 
+     * @param userId   идентификатор пользователя
+     * @param endpoint эндпоинт аналитики
+     * @param month    месяц
+     * @param version  версия данных, прочитанная через {@link #version(Long)}
+     * @return результат аналитики или {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getIfPresent(Long userId, Endpoint endpoint, YearMonth month, long version) {
+        Versioned cached = cache.getIfPresent(new Key(userId, endpoint, month));
+        return cached != null && cached.version() >= version ? (T) cached.value() : null;
+    }
+
+    /**
+     * Кэширует результат, вычисленный вместе с результатами других месяцев
+     * 
+     * @param userId   идентификатор пользователя
+     * @param endpoint эндпоинт аналитики
+     * @param month    месяц
+     * @param version  версия данных, прочитанная до вычисления
+     * @param value    результат аналитики
+     */
+    public void put(Long userId, Endpoint endpoint, YearMonth month, long version, Object value) {
+        cache.put(new Key(userId, endpoint, month), new Versioned(version, value));
+    }
+
+    /**
+     * Удаляет результаты всех эндпоинтов для пользователя за месяц
+     * 
+     * @param userId идентификатор пользователя
+     * @param month  месяц, данные которого изменились
+     */
+    public void evict(Long userId, YearMonth month) {
+        afterCommit(() -> {
+            for (Endpoint endpoint : Endpoint.values()) {
+                cache.invalidate(new Key(userId, endpoint, month));
+            }
+            for (int i = 1; i <= TREND_WINDOW_MONTHS; i++) {
+                cache.invalidate(new Key(userId, Endpoint.TRENDS, month.plusMonths(i)));
+            }
+        });
+        logger.debug("evict() for user: {}; month: {}", userId, month);
+    }
+
+    /**
+     * Удаляет все результаты пользователя
+     * 
+     * @param userId идентификатор пользователя
+     */
+    public void evictUser(Long userId) {
+        evictIf(key -> key.userId().equals(userId));
+        logger.debug("evictUser() for user: {}", userId);
+    }
+
+    /**
+     * Удаляет результаты всех пользователей за месяц
+     * 
+     * @param month месяц, данные которого изменились
+     */
+    public void evictMonth(YearMonth month) {
+        evictIf(key -> key.month().equals(month) || key.endpoint() == Endpoint.TRENDS
+                && key.month().isAfter(month) && !key.month().isAfter(month.plusMonths(TREND_WINDOW_MONTHS)));
+        logger.debug("evictMonth() for month: {}", month);
+    }
+
+    /**
+     * Удаляет все результаты
+     */
+    public void evictAll() {
+        afterCommit(cache::invalidateAll);
+        logger.debug("evictAll()");
+    }
+
+    /**
+     * Возвращает статистику кэша
+     * 
+     * @return количество попаданий, промахов и вытеснений
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Служебный метод, удаляющий записи, ключи которых удовлетворяют условию
+     * 
+     * @param predicate условие удаления
+     */
+    private void evictIf(Predicate<Key> predicate) {
+        afterCommit(() -> cache.asMap().keySet().removeIf(predicate));
+    }
+
+    /**
+     * Служебный метод, выполняющий действие сейчас и повторно после фиксации
+     * текущей транзакции, если она есть
+     * 
+     * @param action действие
+     */
+    private void afterCommit(Runnable action) {
+        action.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private record Key(Long userId, Endpoint endpoint, YearMonth month) {
+    }
+
+    private record Versioned(long version, Object value) {
+    }
+
+}
@@ -5,9 +5,15 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +23,7 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.bicev.finance_analytics.dto.CategoryBudgetStatusDto;
 import ru.bicev.finance_analytics.dto.CategoryExpenseDto;
 import ru.bicev.finance_analytics.dto.DailyExpenseDto;
+import ru.bicev.finance_analytics.dto.DashboardDto;
 import ru.bicev.finance_analytics.dto.DateRange;
 import ru.bicev.finance_analytics.dto.MonthlyExpenseDto;
 import ru.bicev.finance_analytics.dto.RecurringForecastDto;
@@ -27,9 +34,13 @@ import ru.bicev.finance_analytics.entity.RecurringTransaction;
 import ru.bicev.finance_analytics.entity.Transaction;
 import ru.bicev.finance_analytics.exception.NotFoundException;
 import ru.bicev.finance_analytics.repo.BudgetRepository;
+import ru.bicev.finance_analytics.repo.DailyCategoryTotalRepository;
 import ru.bicev.finance_analytics.repo.RecurringTransactionRepository;
 import ru.bicev.finance_analytics.repo.TransactionRepository;
+import ru.bicev.finance_analytics.repo.projection.CategoryDayTotalProjection;
+import ru.bicev.finance_analytics.repo.projection.CategoryTypeTotalProjection;
 import ru.bicev.finance_analytics.util.CategoryType;
+import ru.bicev.finance_analytics.util.CentsTotals;
 
 /**
  * Сервис, выполняющий аналитику расходов для текущего пользователя
@@ -41,46 +52,57 @@ public class AnalyticsService {
         private final TransactionRepository transactionRepository;
         private final RecurringTransactionRepository recurringTransactionRepository;
         private final BudgetRepository budgetRepository;
+        private final DailyCategoryTotalRepository dailyCategoryTotalRepository;
         private final UserService userService;
+        private final AnalyticsCache analyticsCache;
+        private final MonthSnapshotService monthSnapshotService;
+        private final QueryFanOut queryFanOut;
 
         private static final Logger logger = LoggerFactory.getLogger(AnalyticsService.class);
 
         private static final BigDecimal ZERO = BigDecimal.ZERO;
+        private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("MM.yyyy");
 
         public AnalyticsService(TransactionRepository transactionRepository,
                         RecurringTransactionRepository recurringTransactionRepository,
                         BudgetRepository budgetRepository,
-                        UserService userService) {
+                        DailyCategoryTotalRepository dailyCategoryTotalRepository,
+                        UserService userService,
+                        AnalyticsCache analyticsCache,
+                        MonthSnapshotService monthSnapshotService,
+                        QueryFanOut queryFanOut) {
                 this.transactionRepository = transactionRepository;
                 this.recurringTransactionRepository = recurringTransactionRepository;
                 this.budgetRepository = budgetRepository;
+                this.dailyCategoryTotalRepository = dailyCategoryTotalRepository;
                 this.userService = userService;
+                this.analyticsCache = analyticsCache;
+                this.monthSnapshotService = monthSnapshotService;
+                this.queryFanOut = queryFanOut;
         }
 
         /**
          * Возвращает список категорий расходов за указанный месяц.
          * <p>
-         * Категории сортируются по убыванию суммы расхода.
+         * Категории сортируются по убыванию суммы расхода. Закрытые месяцы
+         * читаются из снимка, если он актуален.
          * 
          * @param month месяц, за который рассчитываются расходы
          * @return список всех категорий за месяц с суммой расходов на них
          */
         public List<CategoryExpenseDto> getExpensesByCategory(YearMonth month) {
-                List<Transaction> transactions = getExpensesAndMonth(month);
-
                 logger.debug("getExpensesByCategory() for month: {}", month.toString());
-                return transactions.stream()
-                                .collect(Collectors.groupingBy(
-                                                Transaction::getCategory,
-                                                Collectors.reducing(ZERO, Transaction::getAmount,
-                                                                BigDecimal::add)))
-                                .entrySet()
-                                .stream()
-                                .map(e -> new CategoryExpenseDto(
-                                                e.getKey().getName(),
-                                                e.getValue().setScale(2)))
-                                .sorted((e1, e2) -> e2.total().compareTo(e1.total()))
-                                .toList();
+                Long userId = getCurrentUserId();
+                return analyticsCache.get(userId, AnalyticsCache.Endpoint.CATEGORIES, month,
+                                () -> monthSnapshotService.find(userId, month)
+                                                .map(DashboardDto::categories)
+                                                .orElseGet(() -> dailyCategoryTotalRepository.sumByCategory(userId,
+                                                                CategoryType.EXPENSE, month.atDay(1),
+                                                                month.atEndOfMonth())
+                                                                .stream()
+                                                                .map(e -> new CategoryExpenseDto(e.category(),
+                                                                                e.total().setScale(2)))
+                                                                .toList()));
 
         }
 
@@ -107,26 +129,25 @@ public class AnalyticsService {
         }
 
         /**
-         * Возвращает список расходов за указанный месяц по дням трат
+         * Возвращает список расходов за указанный месяц по дням трат. Закрытые
+         * месяцы читаются из снимка, если он актуален
          * 
          * @param month месяц, за который рассчитываются расходы
          * @return список трат за укзанный месяц по дням
          */
         public List<DailyExpenseDto> getDailyExpenses(YearMonth month) {
-                List<Transaction> transactions = getExpensesAndMonth(month);
-
                 logger.debug("getDailyExpenses() for month: {}", month.toString());
-                return transactions.stream()
-                                .collect(Collectors.groupingBy(
-                                                t -> t.getDate(),
-                                                Collectors.mapping(Transaction::getAmount,
-                                                                Collectors.reducing(ZERO,
-                                                                                BigDecimal::add))))
-                                .entrySet()
-                                .stream()
-                                .map(e -> new DailyExpenseDto(e.getKey(), e.getValue().setScale(2)))
-                                .sorted((e1, e2) -> e1.date().compareTo(e2.date()))
-                                .toList();
+                Long userId = getCurrentUserId();
+                return analyticsCache.get(userId, AnalyticsCache.Endpoint.DAILY, month,
+                                () -> monthSnapshotService.find(userId, month)
+                                                .map(DashboardDto::daily)
+                                                .orElseGet(() -> dailyCategoryTotalRepository.sumByDay(userId,
+                                                                CategoryType.EXPENSE, month.atDay(1),
+                                                                month.atEndOfMonth())
+                                                                .stream()
+                                                                .map(e -> new DailyExpenseDto(e.date(),
+                                                                                e.amount().setScale(2)))
+                                                                .toList()));
         }
 
         /**
@@ -147,47 +168,24 @@ public class AnalyticsService {
                                                 CategoryType.EXPENSE, range.start(), range.end());
                 logger.debug("getMonthlyExpenses() for range from: {}, to: {}", range.start().toString(),
                                 range.end().toString());
-                return transactions.stream()
-                                .collect(Collectors.groupingBy(
-                                                t -> YearMonth.from(t.getDate()),
-                                                Collectors.reducing(ZERO, Transaction::getAmount,
-                                                                BigDecimal::add)))
-                                .entrySet()
-                                .stream()
-                                .map(e -> new MonthlyExpenseDto(
-                                                e.getKey().format(DateTimeFormatter.ofPattern("MM.yyyy")),
-                                                e.getValue().setScale(2)))
-                                .sorted((e1, e2) -> e1.month().compareTo(e2.month()))
-                                .toList();
+                return toMonthlyAmounts(transactions, Transaction::getDate, Transaction::getAmount,
+                                MonthlyExpenseDto::new);
         }
 
         /**
-         * Возвращает поступления, суммы лититов бюджетов, траты и баланс за указанный месяц
+         * Возвращает поступления, суммы лититов бюджетов, траты и баланс за указанный месяц.
+         * Закрытые месяцы читаются из снимка, если он актуален
          * 
          * @param month месяц, за который рассчитываются транзакции
          * @return дто, в котором укзаны поступления, расходы и баланс за указанный
          *         месяц
          */
         public SummaryDto getSummary(YearMonth month) {
-                List<Transaction> transactions = getTransactionsForMonth(month);
-
-                BigDecimal income = budgetRepository.sumAmountByUserIdAndMonth(getCurrentUserId(), month)
-                                .orElse(ZERO);
-
-                BigDecimal expense = ZERO;
-
-                for (Transaction t : transactions) {
-                        if (t.getCategory().getType() == CategoryType.INCOME) {
-                                income = income.add(t.getAmount());
-                        } else {
-
-                                expense = expense.add(t.getAmount());
-                        }
-                }
-
-                BigDecimal balance = income.subtract(expense);
-
-                return new SummaryDto(income, expense, balance);
+                Long userId = getCurrentUserId();
+                return analyticsCache.get(userId, AnalyticsCache.Endpoint.SUMMARY, month,
+                                () -> monthSnapshotService.find(userId, month)
+                                                .map(DashboardDto::summary)
+                                                .orElseGet(() -> calculateSummary(userId, month)));
         }
 
         /**
@@ -213,24 +211,62 @@ public class AnalyticsService {
                                 userId,
                                 budget.getCategory().getId(), start, end);
 
-                BigDecimal spent = transactions.stream()
-                                .map(Transaction::getAmount)
-                                .reduce(ZERO, BigDecimal::add)
-                                .setScale(2, RoundingMode.HALF_UP);
+                long spentCents = 0;
+                for (Transaction t : transactions) {
+                        spentCents = CentsTotals.addExact(spentCents, CentsTotals.toCents(t.getAmount()));
+                }
 
-                BigDecimal percentUsed = ZERO;
-                if (budget.getAmount() != null && budget.getAmount().compareTo(ZERO) > 0) {
-                        percentUsed = spent
-                                        .divide(budget.getAmount(), 2, RoundingMode.HALF_UP)
-                                        .multiply(BigDecimal.valueOf(100))
-                                        .setScale(2, RoundingMode.HALF_UP);
+                return toBudgetStatus(budget, CentsTotals.toAmount(spentCents));
+        }
+
+        /**
+         * Возвращает все показатели дашборда за указанный месяц: поступления, траты и
+         * баланс, расходы по категориям, топ-категории, расходы по дням и состояние
+         * бюджетов месяца
+         * <p>
+         * Дневные суммы месяца читаются одним запросом, бюджеты месяца - вторым, все
+         * показатели рассчитываются за один проход по ним. Результат кэшируется с
+         * полным рейтингом категорий, который обрезается до {@code limit} при каждом
+         * запросе. Закрытые месяцы читаются из снимка, если он актуален
+         * 
+         * @param month месяц, за который рассчитываются показатели
+         * @param limit максимальное количество топ-категорий
+         * @return дто со всеми показателями дашборда
+         * @throws IllegalArgumentException если {@code limit} меньше или равен нулю
+         */
+        public DashboardDto getDashboard(YearMonth month, int limit) {
+                if (limit <= 0) {
+                        throw new IllegalArgumentException("Limit must be positive");
                 }
+                Long userId = getCurrentUserId();
+                logger.debug("getDashboard() for month: {}", month.toString());
+                DashboardDto dashboard = analyticsCache.get(userId, AnalyticsCache.Endpoint.DASHBOARD, month,
+                                () -> monthSnapshotService.find(userId, month)
+                                                .orElseGet(() -> calculateDashboard(userId, month)));
+                List<TopCategoryDto> top = dashboard.topCategories();
+                return new DashboardDto(
+                                dashboard.summary(),
+                                dashboard.categories(),
+                                top.subList(0, Math.min(limit, top.size())),
+                                dashboard.daily(),
+                                dashboard.budgets());
+        }
 
-                return new CategoryBudgetStatusDto(
-                                budget.getCategory().getName(),
-                                budget.getAmount(),
-                                spent,
-                                percentUsed);
+        /**
+         * Рассчитывает показатели пользователя за месяц для снимка закрытого месяца,
+         * не используя кэш и существующий снимок
+         * <p>
+         * Выполняется в пишущей транзакции, чтобы читать основную базу: на
+         * отстающей реплике расчет мог бы не увидеть изменение, переоткрывшее снимок
+         * 
+         * @param userId идентификатор пользователя
+         * @param month  месяц, за который рассчитываются показатели
+         * @return дто с полным рейтингом категорий вместо топ-категорий
+         */
+        @Transactional
+        public DashboardDto calculateSnapshot(Long userId, YearMonth month) {
+                logger.debug("calculateSnapshot() for user: {}, month: {}", userId, month.toString());
+                return calculateDashboard(userId, month);
         }
 
         /**
@@ -247,43 +283,193 @@ public class AnalyticsService {
 
                 logger.debug("getUpcomintRecurringPayments() for user: {}", userId);
 
-                return transactions.stream()
-                                .collect(
-                                                Collectors.groupingBy(
-                                                                t -> t.getNextExecutionDate().format(
-                                                                                DateTimeFormatter.ofPattern("MM.yyyy")),
-                                                                Collectors.mapping(RecurringTransaction::getAmount,
-                                                                                Collectors.reducing(ZERO,
-                                                                                                BigDecimal::add))))
-                                .entrySet()
-                                .stream()
-                                .map(e -> new RecurringForecastDto(e.getKey(), e.getValue().setScale(2)))
-                                .sorted((e1, e2) -> e1.month().compareTo(e2.month()))
-                                .toList();
+                return toMonthlyAmounts(transactions, RecurringTransaction::getNextExecutionDate,
+                                RecurringTransaction::getAmount, RecurringForecastDto::new);
         }
 
         /**
-         * Служебный метод, возвращающий список транзакций за указанный месяц
+         * Служебный метод, суммирующий значения по месяцам их дат и возвращающий дто
+         * в формате "MM.yyyy" в хронологическом порядке
+         * <p>
+         * Накопитель содержит только месяцы, в которых есть данные, поэтому его размер
+         * не зависит от длины запрошенного периода или разброса дат
          * 
-         * @param month месяц, за который получаются транзакции
-         * @return список транзакций за указанный месяц
+         * @param items  элементы с датой и суммой
+         * @param date   дата элемента
+         * @param amount сумма элемента
+         * @param mapper конструктор дто из месяца и суммы
+         * @return список дто
          */
-        private List<Transaction> getTransactionsForMonth(YearMonth month) {
-                Long userId = getCurrentUserId();
-                return transactionRepository.findAllByUserIdAndDateBetween(userId,
-                                month.atDay(1), month.atEndOfMonth());
+        private static <E, T> List<T> toMonthlyAmounts(List<E> items, Function<E, LocalDate> date,
+                        Function<E, BigDecimal> amount, BiFunction<String, BigDecimal, T> mapper) {
+                long[] months = items.stream()
+                                .mapToLong(item -> CentsTotals.monthIndex(date.apply(item)))
+                                .sorted()
+                                .distinct()
+                                .toArray();
+                CentsTotals totals = new CentsTotals(months.length);
+                for (E item : items) {
+                        totals.add(Arrays.binarySearch(months, CentsTotals.monthIndex(date.apply(item))),
+                                        amount.apply(item));
+                }
+                List<T> result = new ArrayList<>(months.length);
+                for (int i = 0; i < months.length; i++) {
+                        result.add(mapper.apply(CentsTotals.month(months[i]).format(MONTH_FORMAT), totals.get(i)));
+                }
+                return result;
         }
 
         /**
-         * Служебный метод, возвращающий список расходов за указанный месяц
+         * Служебный метод, параллельно читающий дневные суммы и бюджеты месяца и
+         * рассчитывающий по ним показатели дашборда
          * 
-         * @param month месяц, за который получаются транзакции
-         * @return список расходов, за указанный месяц
+         * @param userId идентификатор пользователя
+         * @param month  месяц, за который рассчитываются показатели
+         * @return дто с полным рейтингом категорий вместо топ-категорий
          */
-        private List<Transaction> getExpensesAndMonth(YearMonth month) {
-                Long userId = getCurrentUserId();
-                return transactionRepository.findAllByUserIdAndCategory_TypeAndDateBetween(userId,
-                                CategoryType.EXPENSE, month.atDay(1), month.atEndOfMonth());
+        private DashboardDto calculateDashboard(Long userId, YearMonth month) {
+                return queryFanOut.join(
+                                () -> dailyCategoryTotalRepository.findAllWithCategory(userId, month.atDay(1),
+                                                month.atEndOfMonth()),
+                                () -> budgetRepository.findByUserIdAndMonth(userId, month),
+                                (totals, budgets) -> toDashboard(month, totals, budgets));
+        }
+
+        /**
+         * Служебный метод, рассчитывающий показатели дашборда за один проход по
+         * дневным суммам и бюджетам месяца
+         * 
+         * @param month   месяц, за который рассчитываются показатели
+         * @param totals  дневные суммы месяца по категориям
+         * @param budgets бюджеты месяца
+         * @return дто с полным рейтингом категорий вместо топ-категорий
+         */
+        private DashboardDto toDashboard(YearMonth month, List<CategoryDayTotalProjection> totals,
+                        List<Budget> budgets) {
+                LocalDate start = month.atDay(1);
+                CentsTotals daily = new CentsTotals(month.lengthOfMonth());
+                CentsTotals byCategory = new CentsTotals(totals.size());
+                Map<UUID, Integer> categoryIndexes = new HashMap<>();
+                List<CategoryDayTotalProjection> categories = new ArrayList<>();
+                long incomeCents = 0;
+                long expenseCents = 0;
+
+                for (CategoryDayTotalProjection t : totals) {
+                        long cents = CentsTotals.toCents(t.getTotal());
+                        int index = categoryIndexes.computeIfAbsent(t.getCategoryId(), id -> {
+                                categories.add(t);
+                                return categories.size() - 1;
+                        });
+                        byCategory.addCents(index, cents);
+                        if (t.getType() == CategoryType.INCOME) {
+                                incomeCents = CentsTotals.addExact(incomeCents, cents);
+                        } else {
+                                expenseCents = CentsTotals.addExact(expenseCents, cents);
+                                daily.addCents(t.getDate().getDayOfMonth() - 1, cents);
+                        }
+                }
+
+                List<CategoryExpenseDto> expenses = new ArrayList<>();
+                for (int i = 0; i < categories.size(); i++) {
+                        if (categories.get(i).getType() == CategoryType.EXPENSE) {
+                                expenses.add(new CategoryExpenseDto(categories.get(i).getCategoryName(),
+                                                byCategory.get(i)));
+                        }
+                }
+                expenses.sort(Comparator.comparing(CategoryExpenseDto::total).reversed()
+                                .thenComparing(CategoryExpenseDto::category));
+
+                List<DailyExpenseDto> dailyExpenses = new ArrayList<>();
+                for (int i = 0; i < daily.size(); i++) {
+                        if (daily.isPresent(i)) {
+                                dailyExpenses.add(new DailyExpenseDto(start.plusDays(i), daily.get(i)));
+                        }
+                }
+
+                List<CategoryBudgetStatusDto> budgetStatuses = new ArrayList<>();
+                for (Budget budget : budgets) {
+                        incomeCents = CentsTotals.addExact(incomeCents, CentsTotals.toCents(budget.getAmount()));
+                        Integer index = categoryIndexes.get(budget.getCategory().getId());
+                        budgetStatuses.add(toBudgetStatus(budget,
+                                        index != null ? byCategory.get(index) : CentsTotals.toAmount(0)));
+                }
+
+                BigDecimal income = CentsTotals.toAmount(incomeCents);
+                BigDecimal expense = CentsTotals.toAmount(expenseCents);
+
+                return new DashboardDto(
+                                new SummaryDto(income, expense, income.subtract(expense)),
+                                expenses,
+                                expenses.stream().map(e -> new TopCategoryDto(e.category(), e.total())).toList(),
+                                dailyExpenses,
+                                budgetStatuses);
+        }
+
+        /**
+         * Служебный метод, рассчитывающий состояние бюджета по потраченной сумме
+         * 
+         * @param budget бюджет
+         * @param spent  сумма, потраченная по категории бюджета за его месяц
+         * @return дто с именем категории, лимитом, потраченной суммой и
+         *         использованным процентом
+         */
+        private CategoryBudgetStatusDto toBudgetStatus(Budget budget, BigDecimal spent) {
+                BigDecimal percentUsed = ZERO;
+                if (budget.getAmount() != null && budget.getAmount().compareTo(ZERO) > 0) {
+                        percentUsed = spent
+                                        .divide(budget.getAmount(), 2, RoundingMode.HALF_UP)
+                                        .multiply(BigDecimal.valueOf(100))
+                                        .setScale(2, RoundingMode.HALF_UP);
+                }
+
+                return new CategoryBudgetStatusDto(
+                                budget.getCategory().getName(),
+                                budget.getAmount(),
+                                spent,
+                                percentUsed);
+        }
+
+        /**
+         * Служебный метод, рассчитывающий поступления, траты и баланс пользователя за
+         * месяц. Суммы бюджетов и дневные суммы по типам читаются параллельно
+         * 
+         * @param userId идентификатор пользователя
+         * @param month  месяц, за который рассчитываются транзакции
+         * @return дто с поступлениями, расходами и балансом
+         */
+        private SummaryDto calculateSummary(Long userId, YearMonth month) {
+                return queryFanOut.join(
+                                () -> dailyCategoryTotalRepository.sumByType(userId, month.atDay(1),
+                                                month.atEndOfMonth()),
+                                () -> budgetRepository.sumAmountByUserIdAndMonth(userId, month),
+                                (totals, budgets) -> toSummary(budgets.orElse(ZERO), totals));
+        }
+
+        /**
+         * Служебный метод, рассчитывающий поступления, траты и баланс по суммам
+         * бюджетов и дневным суммам по типам категорий
+         * 
+         * @param budgets сумма лимитов бюджетов месяца
+         * @param totals  суммы транзакций месяца по типам категорий
+         * @return дто с поступлениями, расходами и балансом
+         */
+        private static SummaryDto toSummary(BigDecimal budgets, List<CategoryTypeTotalProjection> totals) {
+                BigDecimal income = budgets;
+
+                BigDecimal expense = ZERO;
+
+                for (CategoryTypeTotalProjection t : totals) {
+                        if (t.getType() == CategoryType.INCOME) {
+                                income = income.add(t.getTotal());
+                        } else {
+
+                                expense = expense.add(t.getTotal());
+                        }
+                }
+
+                BigDecimal balance = income.subtract(expense);
+
+                return new SummaryDto(income, expense, balance);
         }
 
         /**
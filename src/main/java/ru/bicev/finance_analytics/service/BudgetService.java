@@ -33,14 +33,21 @@ public class BudgetService {
     private final BudgetRepository budgetRepository;
     private final CategoryRepository categoryRepository;
     private final UserService userService;
+    private final AnalyticsCache analyticsCache;
+    private final MonthSnapshotService monthSnapshotService;
+    private final DataVersionService dataVersionService;
 
     private static final Logger logger = LoggerFactory.getLogger(BudgetService.class);
 
     public BudgetService(BudgetRepository budgetRepository, CategoryRepository categoryRepository,
-            UserService userService) {
+            UserService userService, AnalyticsCache analyticsCache, MonthSnapshotService monthSnapshotService,
+            DataVersionService dataVersionService) {
         this.budgetRepository = budgetRepository;
         this.categoryRepository = categoryRepository;
         this.userService = userService;
+        this.analyticsCache = analyticsCache;
+        this.monthSnapshotService = monthSnapshotService;
+        this.dataVersionService = dataVersionService;
     }
 
     /**
@@ -70,7 +77,11 @@ public class BudgetService {
                 .createdAt(LocalDateTime.now())
                 .build();
 
-        return toDto(budgetRepository.save(budget));
+        Budget saved = budgetRepository.save(budget);
+        analyticsCache.evict(user.getId(), saved.getMonth());
+        monthSnapshotService.reopen(user.getId(), saved.getMonth());
+        dataVersionService.bump(user.getId());
+        return toDto(saved);
     }
 
     /**
@@ -131,6 +142,7 @@ public class BudgetService {
         Budget budget = budgetRepository.findByIdAndUserId(budgetId, user.getId())
                 .orElseThrow(() -> new NotFoundException("Budget not found"));
         logger.debug("updateBudget() with id: {}", budgetId.toString());
+        YearMonth previousMonth = budget.getMonth();
 
         if (request.categoryId() != null && request.month() != null) {
             Budget existing = budgetRepository
@@ -142,7 +154,7 @@ public class BudgetService {
         }
 
         if (request.categoryId() != null) {
-            Category category = categoryRepository.findByIdAndUserId(request.categoryId(), getCurrentUser().getId())
+            Category category = categoryRepository.findByIdAndUserId(request.categoryId(), user.getId())
                     .orElseThrow(() -> new NotFoundException("Category not found"));
             budget.setCategory(category);
         }
@@ -158,7 +170,13 @@ public class BudgetService {
             budget.setAmount(request.amount().setScale(2, RoundingMode.HALF_UP));
         }
 
-        return toDto(budgetRepository.save(budget));
+        Budget saved = budgetRepository.save(budget);
+        analyticsCache.evict(user.getId(), previousMonth);
+        monthSnapshotService.reopen(user.getId(), previousMonth);
+        analyticsCache.evict(user.getId(), saved.getMonth());
+        monthSnapshotService.reopen(user.getId(), saved.getMonth());
+        dataVersionService.bump(user.getId());
+        return toDto(saved);
     }
 
     /**
@@ -174,40 +192,38 @@ public class BudgetService {
                 .orElseThrow(() -> new NotFoundException("Budget not found"));
         logger.debug("deleteBudget() with id: {}", budgetId.toString());
         budgetRepository.delete(budget);
+        analyticsCache.evict(budget.getUser().getId(), budget.getMonth());
+        monthSnapshotService.reopen(budget.getUser().getId(), budget.getMonth());
+        dataVersionService.bump(budget.getUser().getId());
     }
 
     /**
-     * Метод для создания бюджетов для указанного пользователя и категории
+     * Метод для создания бюджетов на указанный месяц по всем активным шаблонам
+     * <p>
+     * Бюджеты создаются одним запросом {@code INSERT ... SELECT} на стороне базы
+     * данных, уже существующие бюджеты пропускаются, поэтому повторный запуск
+     * безопасен
      * 
-     * @param user     пользователь для которого создается бюджет
-     * @param category категория бюджета
-     * @param amount   лимит расходов для бюджета
-     * @param month    месяц бюджета
+     * @param month месяц бюджетов
+     * @return количество созданных бюджетов
      */
     @Transactional
-    public void createBudgetForCategoryAndUser(User user, Category category, BigDecimal amount, YearMonth month) {
-        if (budgetRepository.existsByUserIdAndCategoryIdAndMonth(user.getId(), category.getId(), month)) {
-            return;
-        }
-
-        Budget budget = Budget.builder()
-                .user(user)
-                .category(category)
-                .amount(amount)
-                .month(month)
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        budgetRepository.save(budget);
+    public int generateBudgetsFromTemplates(YearMonth month) {
+        int created = budgetRepository.insertFromActiveTemplates(month, LocalDateTime.now());
+        analyticsCache.evictMonth(month);
+        monthSnapshotService.reopenMonth(month);
+        dataVersionService.bumpWithActiveTemplates();
+        logger.debug("generateBudgetsFromTemplates() for month: {}; created: {}", month, created);
+        return created;
     }
 
     /**
      * Служебный метод, который получает теущего пользователя
      * 
-     * @return текущий пользователь
+     * @return ссылка на текущего пользователя без загрузки из бд
      */
     private User getCurrentUser() {
-        return userService.getCurrentUser();
+        return userService.getCurrentUserReference();
     }
 
     /**
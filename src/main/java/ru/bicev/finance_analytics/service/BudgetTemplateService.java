@@ -29,15 +29,18 @@ public class BudgetTemplateService {
     private final BudgetTemplateRepository budgetTemplateRepository;
     private final CategoryRepository categoryRepository;
     private final UserService userService;
+    private final DataVersionService dataVersionService;
 
     private static final Logger logger = LoggerFactory.getLogger(BudgetTemplateService.class);
     private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("MM.yyyy");
 
     public BudgetTemplateService(BudgetTemplateRepository budgetTemplateRepository,
-            CategoryRepository categoryRepository, UserService userService) {
+            CategoryRepository categoryRepository, UserService userService,
+            DataVersionService dataVersionService) {
         this.budgetTemplateRepository = budgetTemplateRepository;
         this.categoryRepository = categoryRepository;
         this.userService = userService;
+        this.dataVersionService = dataVersionService;
     }
 
     /**
@@ -71,6 +74,7 @@ public class BudgetTemplateService {
                 .build();
 
         var savedTemplate = budgetTemplateRepository.save(template);
+        dataVersionService.bump(user.getId());
         logger.debug("Budget template created: {}", savedTemplate.getId());
         return toDto(savedTemplate);
     }
@@ -136,7 +140,9 @@ public class BudgetTemplateService {
         }
 
         logger.debug("Budget template updated: {}", template.getId());
-        return toDto(budgetTemplateRepository.save(template));
+        var savedTemplate = budgetTemplateRepository.save(template);
+        dataVersionService.bump(userId);
+        return toDto(savedTemplate);
 
     }
 
@@ -152,15 +158,16 @@ public class BudgetTemplateService {
                 .orElseThrow(() -> new NotFoundException("Budget template not found"));
         logger.debug("Budget template deleted: {}", templateId);
         budgetTemplateRepository.delete(template);
+        dataVersionService.bump(template.getUser().getId());
     }
 
     /**
      * Служебный метод возвращающий текущего пользователя
      * 
-     * @return текущий пользователь
+     * @return ссылка на текущего пользователя без загрузки из бд
      */
     private User getCurrentUser() {
-        return userService.getCurrentUser();
+        return userService.getCurrentUserReference();
     }
 
     /**
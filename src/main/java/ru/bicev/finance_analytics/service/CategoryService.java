@@ -26,12 +26,20 @@ public class CategoryService {
 
     private final UserService userService;
     private final CategoryRepository categoryRepository;
+    private final AnalyticsCache analyticsCache;
+    private final MonthSnapshotService monthSnapshotService;
+    private final DataVersionService dataVersionService;
 
     private static final Logger logger = LoggerFactory.getLogger(CategoryService.class);
 
-    public CategoryService(UserService userService, CategoryRepository categoryRepository) {
+    public CategoryService(UserService userService, CategoryRepository categoryRepository,
+            AnalyticsCache analyticsCache, MonthSnapshotService monthSnapshotService,
+            DataVersionService dataVersionService) {
         this.userService = userService;
         this.categoryRepository = categoryRepository;
+        this.analyticsCache = analyticsCache;
+        this.monthSnapshotService = monthSnapshotService;
+        this.dataVersionService = dataVersionService;
     }
 
     /**
@@ -53,7 +61,9 @@ public class CategoryService {
                 .createdAt(LocalDateTime.now())
                 .build();
         logger.debug("createCategory() for user: {}", user.getId());
-        return toDto(categoryRepository.save(category));
+        Category saved = categoryRepository.save(category);
+        dataVersionService.bump(user.getId());
+        return toDto(saved);
 
     }
 
@@ -104,7 +114,11 @@ public class CategoryService {
         category.setType(request.type());
         category.setColor(request.color());
         logger.debug("updateCategory() with id: {}", categoryId);
-        return toDto(categoryRepository.save(category));
+        Category saved = categoryRepository.save(category);
+        analyticsCache.evictUser(getCurrentUserId());
+        monthSnapshotService.reopenUser(getCurrentUserId());
+        dataVersionService.bump(getCurrentUserId());
+        return toDto(saved);
     }
 
     /**
@@ -120,6 +134,9 @@ public class CategoryService {
                 .orElseThrow(() -> new NotFoundException("Category not found"));
         logger.debug("deleteCategory() with id: {}", categoryId);
         categoryRepository.delete(category);
+        analyticsCache.evictUser(getCurrentUserId());
+        monthSnapshotService.reopenUser(getCurrentUserId());
+        dataVersionService.bump(getCurrentUserId());
     }
 
     /**
@@ -157,10 +174,10 @@ public class CategoryService {
     /**
      * Служебный метод, возвращающий текущего пользователя
      * 
-     * @return текущий пользователь
+     * @return ссылка на текущего пользователя без загрузки из бд
      */
     private User getCurrentUser() {
-        return userService.getCurrentUser();
+        return userService.getCurrentUserReference();
     }
 
     /**
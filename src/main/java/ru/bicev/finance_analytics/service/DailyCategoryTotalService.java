@@ -0,0 +1,128 @@
+package ru.bicev.finance_analytics.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import ru.bicev.finance_analytics.entity.Transaction;
+import ru.bicev.finance_analytics.repo.DailyCategoryTotalRepository;
+
+/**
+ * Сервис, поддерживающий предрассчитанные дневные суммы транзакций по
+ * категориям в актуальном состоянии
+ * <p>
+ * Суммы транзакций, существовавших до появления таблицы, заполняются миграцией
+ * {@code V2__aggregates_and_job_runs}
+ */
+@Service
+public class DailyCategoryTotalService {
+
+    private final DailyCategoryTotalRepository dailyCategoryTotalRepository;
+    private final AnalyticsCache analyticsCache;
+    private final MonthSnapshotService monthSnapshotService;
+
+    public DailyCategoryTotalService(DailyCategoryTotalRepository dailyCategoryTotalRepository,
+            AnalyticsCache analyticsCache,
+            MonthSnapshotService monthSnapshotService) {
+        this.dailyCategoryTotalRepository = dailyCategoryTotalRepository;
+        this.analyticsCache = analyticsCache;
+        this.monthSnapshotService = monthSnapshotService;
+    }
+
+    /**
+     * Добавляет сумму транзакции к дневной сумме ее категории
+     * 
+     * @param transaction сохраненная транзакция
+     */
+    @Transactional
+    public void add(Transaction transaction) {
+        apply(transaction.getUser().getId(), transaction.getCategory().getId(), transaction.getDate(),
+                transaction.getAmount(), 1);
+        analyticsCache.evict(transaction.getUser().getId(), YearMonth.from(transaction.getDate()));
+        monthSnapshotService.reopen(transaction.getUser().getId(), YearMonth.from(transaction.getDate()));
+    }
+
+    /**
+     * Добавляет суммы пачки транзакций к дневным суммам их категорий
+     * <p>
+     * Транзакции предварительно группируются по пользователю, категории и дню,
+     * поэтому количество запросов равно количеству затронутых дней, а не
+     * транзакций
+     * 
+     * @param transactions сохраненные транзакции
+     */
+    @Transactional
+    public void addAll(Collection<Transaction> transactions) {
+        Map<TotalKey, BigDecimal> amounts = new HashMap<>();
+        Map<TotalKey, Long> counts = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            TotalKey key = new TotalKey(transaction.getUser().getId(), transaction.getCategory().getId(),
+                    transaction.getDate());
+            amounts.merge(key, transaction.getAmount(), BigDecimal::add);
+            counts.merge(key, 1L, Long::sum);
+        }
+        amounts.forEach((key, amount) -> apply(key.userId(), key.categoryId(), key.date(), amount,
+                counts.get(key)));
+        amounts.keySet().stream()
+                .map(key -> new UserMonth(key.userId(), YearMonth.from(key.date())))
+                .distinct()
+                .forEach(userMonth -> {
+                    analyticsCache.evict(userMonth.userId(), userMonth.month());
+                    monthSnapshotService.reopen(userMonth.userId(), userMonth.month());
+                });
+    }
+
+    /**
+     * Вычитает сумму транзакции из дневной суммы ее категории
+     * 
+     * @param userId     идентификатор владельца транзакции
+     * @param categoryId идентификатор категории транзакции до изменения
+     * @param date       дата транзакции до изменения
+     * @param amount     сумма транзакции до изменения
+     */
+    @Transactional
+    public void subtract(Long userId, UUID categoryId, LocalDate date, BigDecimal amount) {
+        apply(userId, categoryId, date, amount.negate(), -1);
+        dailyCategoryTotalRepository.deleteEmpty(userId, categoryId, date);
+        analyticsCache.evict(userId, YearMonth.from(date));
+        monthSnapshotService.reopen(userId, YearMonth.from(date));
+    }
+
+    /**
+     * Вычитает сумму транзакции из дневной суммы ее категории
+     * 
+     * @param transaction транзакция в состоянии до изменения или удаления
+     */
+    @Transactional
+    public void subtract(Transaction transaction) {
+        subtract(transaction.getUser().getId(), transaction.getCategory().getId(), transaction.getDate(),
+                transaction.getAmount());
+    }
+
+    /**
+     * Служебный метод, изменяющий дневную сумму категории на указанную величину
+     * 
+     * @param userId     идентификатор пользователя
+     * @param categoryId идентификатор категории
+     * @param date       день
+     * @param amount     величина изменения суммы
+     * @param count      величина изменения количества транзакций
+     */
+    private void apply(Long userId, UUID categoryId, LocalDate date, BigDecimal amount, long count) {
+        dailyCategoryTotalRepository.addToTotal(userId, categoryId, date, amount, count);
+    }
+
+    private record TotalKey(Long userId, UUID categoryId, LocalDate date) {
+    }
+
+    private record UserMonth(Long userId, YearMonth month) {
+    }
+
+}
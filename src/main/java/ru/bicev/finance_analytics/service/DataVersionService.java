@@ -0,0 +1,83 @@
+package ru.bicev.finance_analytics.service;
+
+import java.util.Collection;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import ru.bicev.finance_analytics.datasource.ReadYourWritesGuard;
+import ru.bicev.finance_analytics.repo.UserRepository;
+
+/**
+ * Сервис версий данных пользователей
+ * <p>
+ * Версия монотонно увеличивается в той же транзакции, что и изменение данных
+ * пользователя, поэтому совпадение версий означает, что ответы на GET-запросы
+ * не изменились. Версия хранится в строке пользователя и читается одним
+ * запросом по первичному ключу с основной базы: отстающая реплика вернула бы
+ * старую версию, и метка ответа откатилась бы назад
+ * <p>
+ * Если настроены реплики, прочитанная версия становится нижней границей для
+ * чтений пользователя с реплик (см. {@link ReadYourWritesGuard}), поэтому
+ * данные, прочитанные после версии, не старше ее
+ */
+@Service
+public class DataVersionService {
+
+    private final UserRepository userRepository;
+    private final ObjectProvider<ReadYourWritesGuard> readYourWritesGuard;
+
+    public DataVersionService(UserRepository userRepository,
+            ObjectProvider<ReadYourWritesGuard> readYourWritesGuard) {
+        this.userRepository = userRepository;
+        this.readYourWritesGuard = readYourWritesGuard;
+    }
+
+    /**
+     * Возвращает текущую версию данных пользователя
+     *
+     * @param userId идентификатор пользователя
+     * @return версия данных или 0, если пользователя не существует
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long current(Long userId) {
+        long version = userRepository.findDataVersion(userId).orElse(0L);
+        readYourWritesGuard.ifAvailable(guard -> guard.requireVersion(userId, version));
+        return version;
+    }
+
+    /**
+     * Увеличивает версию данных пользователя
+     *
+     * @param userId идентификатор пользователя
+     */
+    @Transactional
+    public void bump(Long userId) {
+        userRepository.incrementDataVersion(userId);
+    }
+
+    /**
+     * Увеличивает версию данных пользователей одним запросом
+     *
+     * @param userIds идентификаторы пользователей
+     */
+    @Transactional
+    public void bump(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        userRepository.incrementDataVersions(userIds.stream().distinct().toArray(Long[]::new));
+    }
+
+    /**
+     * Увеличивает версию данных пользователей, у которых есть активные шаблоны
+     * бюджетов
+     */
+    @Transactional
+    public void bumpWithActiveTemplates() {
+        userRepository.incrementDataVersionsWithActiveTemplates();
+    }
+
+}
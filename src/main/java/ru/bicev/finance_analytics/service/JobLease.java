@@ -0,0 +1,12 @@
+package ru.bicev.finance_analytics.service;
+
+/**
+ * Аренда задачи по расписанию, захваченная текущим узлом
+ * 
+ * @param jobName      имя задачи
+ * @param ownerId      идентификатор узла-владельца
+ * @param fencingToken токен, монотонно растущий при каждом захвате аренды
+ */
+public record JobLease(String jobName, String ownerId, long fencingToken) {
+
+}
@@ -0,0 +1,33 @@
+package ru.bicev.finance_analytics.service;
+
+/**
+ * Результат выполнения задачи по расписанию
+ * 
+ * @param rowsProcessed количество обработанных строк
+ * @param error         описание ошибки или null, если задача выполнена
+ *                      полностью
+ */
+public record JobResult(long rowsProcessed, String error) {
+
+    /**
+     * Результат полностью выполненной задачи
+     * 
+     * @param rowsProcessed количество обработанных строк
+     * @return результат без ошибки
+     */
+    public static JobResult success(long rowsProcessed) {
+        return new JobResult(rowsProcessed, null);
+    }
+
+    /**
+     * Результат задачи, часть работы которой не была выполнена
+     * 
+     * @param rowsProcessed количество строк, обработанных до ошибки
+     * @param error         описание ошибки
+     * @return результат с ошибкой
+     */
+    public static JobResult failed(long rowsProcessed, String error) {
+        return new JobResult(rowsProcessed, error);
+    }
+
+}
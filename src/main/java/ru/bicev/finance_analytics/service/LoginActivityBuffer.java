@@ -0,0 +1,90 @@
+package ru.bicev.finance_analytics.service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import ru.bicev.finance_analytics.repo.UserRepository;
+
+/**
+ * Буфер отложенной записи времени последнего входа пользователей
+ * <p>
+ * Вход только запоминает время в памяти узла, а накопленные значения
+ * периодически сохраняются одним запросом, поэтому массовые входы не
+ * обновляют строку пользователя на каждый вход. Для каждого пользователя
+ * хранится только последнее время входа. При аварийной остановке узла время
+ * входов с последнего сохранения теряется
+ */
+@Service
+public class LoginActivityBuffer {
+
+    private final UserRepository userRepository;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginActivityBuffer.class);
+
+    public LoginActivityBuffer(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Запоминает время входа пользователя до следующего сохранения
+     * 
+     * @param userId  идентификатор пользователя
+     * @param loginAt время входа
+     */
+    public void record(Long userId, LocalDateTime loginAt) {
+        pending.merge(userId, loginAt, (previous, next) -> next.isAfter(previous) ? next : previous);
+    }
+
+    /**
+     * Сохраняет накопленное время входа одним запросом
+     * <p>
+     * Если сохранение не удалось, значения возвращаются в буфер до следующей
+     * попытки
+     * 
+     * @return количество обновленных пользователей
+     */
+    public int flush() {
+        Map<Long, LocalDateTime> batch = new LinkedHashMap<>();
+        for (Long userId : pending.keySet()) {
+            LocalDateTime loginAt = pending.remove(userId);
+            if (loginAt != null) {
+                batch.put(userId, loginAt);
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            int updated = userRepository.updateLastLoginAt(
+                    batch.keySet().toArray(Long[]::new),
+                    batch.values().toArray(LocalDateTime[]::new));
+            logger.debug("flush() logins: {}; updated: {}", batch.size(), updated);
+            return updated;
+        } catch (RuntimeException e) {
+            batch.forEach(this::record);
+            throw e;
+        }
+    }
+
+    /**
+     * Сохраняет накопленное время входа при остановке приложения
+     */
+    @PreDestroy
+    void shutdown() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("shutdown() failed to flush login activity: {}", e.getMessage());
+        }
+    }
+
+}
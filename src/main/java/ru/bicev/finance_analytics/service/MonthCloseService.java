@@ -0,0 +1,88 @@
+package ru.bicev.finance_analytics.service;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import ru.bicev.finance_analytics.dto.DashboardDto;
+import ru.bicev.finance_analytics.entity.MonthSnapshot;
+
+/**
+ * Сервис, закрывающий месяцы: рассчитывает и сохраняет снимки показателей
+ * пользователей за закрытые месяцы и пересчитывает переоткрытые снимки
+ */
+@Service
+public class MonthCloseService {
+
+    private final AnalyticsService analyticsService;
+    private final MonthSnapshotService monthSnapshotService;
+
+    @Value("${app.analytics.snapshots.refresh-batch-size:500}")
+    private int refreshBatchSize;
+
+    private static final Logger logger = LoggerFactory.getLogger(MonthCloseService.class);
+
+    public MonthCloseService(AnalyticsService analyticsService, MonthSnapshotService monthSnapshotService) {
+        this.analyticsService = analyticsService;
+        this.monthSnapshotService = monthSnapshotService;
+    }
+
+    /**
+     * Рассчитывает снимки за месяц для всех пользователей, у которых есть
+     * транзакции или бюджеты за этот месяц
+     *
+     * @param month закрываемый месяц
+     * @return количество сохраненных снимков
+     */
+    public long closeMonth(YearMonth month) {
+        List<Long> userIds = monthSnapshotService.findUsersWithData(month);
+        long saved = 0;
+        for (Long userId : userIds) {
+            if (refresh(userId, month)) {
+                saved++;
+            }
+        }
+        logger.info("Month {} closed, snapshots: {} of {}", month, saved, userIds.size());
+        return saved;
+    }
+
+    /**
+     * Пересчитывает пачку устаревших снимков, начиная с самых старых месяцев
+     * <p>
+     * Снимки, данные которых изменились во время пересчета, остаются
+     * устаревшими до следующего запуска
+     *
+     * @return количество сохраненных снимков
+     */
+    public long refreshStale() {
+        long saved = 0;
+        for (MonthSnapshot snapshot : monthSnapshotService.findStale(refreshBatchSize)) {
+            if (refresh(snapshot.getUserId(), YearMonth.from(snapshot.getMonth()))) {
+                saved++;
+            }
+        }
+        logger.debug("refreshStale() snapshots: {}", saved);
+        return saved;
+    }
+
+    /**
+     * Служебный метод, пересчитывающий снимок пользователя за месяц
+     * <p>
+     * Ревизия снимка фиксируется до расчета, поэтому изменение данных месяца во
+     * время расчета не даст сохранить устаревший результат
+     *
+     * @param userId идентификатор пользователя
+     * @param month  месяц
+     * @return true, если снимок сохранен
+     */
+    private boolean refresh(Long userId, YearMonth month) {
+        long revision = monthSnapshotService.open(userId, month);
+        DashboardDto dashboard = analyticsService.calculateSnapshot(userId, month);
+        return monthSnapshotService.complete(userId, month, revision, dashboard);
+    }
+
+}
@@ -0,0 +1,157 @@
+package ru.bicev.finance_analytics.service;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import ru.bicev.finance_analytics.dto.DashboardDto;
+import ru.bicev.finance_analytics.entity.MonthSnapshot;
+import ru.bicev.finance_analytics.repo.MonthSnapshotRepository;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Сервис, хранящий снимки показателей пользователей за закрытые месяцы
+ * <p>
+ * Закрытым считается любой месяц до текущего. Снимок хранит дашборд месяца с
+ * полным рейтингом категорий. Изменение данных закрытого месяца переоткрывает
+ * его снимок: снимок помечается устаревшим, а его ревизия увеличивается, чтобы
+ * пересчет, начатый до изменения, не мог сохранить старый результат
+ */
+@Service
+public class MonthSnapshotService {
+
+    private final MonthSnapshotRepository monthSnapshotRepository;
+    private final ObjectMapper objectMapper;
+
+    private static final Logger logger = LoggerFactory.getLogger(MonthSnapshotService.class);
+
+    public MonthSnapshotService(MonthSnapshotRepository monthSnapshotRepository, ObjectMapper objectMapper) {
+        this.monthSnapshotRepository = monthSnapshotRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Возвращает актуальный снимок пользователя за закрытый месяц
+     *
+     * @param userId идентификатор пользователя
+     * @param month  месяц
+     * @return дашборд месяца с полным рейтингом категорий или пустой
+     *         {@link Optional}, если месяц не закрыт, а снимка нет или он устарел
+     */
+    @Transactional(readOnly = true)
+    public Optional<DashboardDto> find(Long userId, YearMonth month) {
+        if (!isClosed(month)) {
+            return Optional.empty();
+        }
+        return monthSnapshotRepository.findFreshData(userId, month.atDay(1))
+                .map(data -> objectMapper.readValue(data, DashboardDto.class));
+    }
+
+    /**
+     * Создает устаревший снимок, если его еще нет, перед пересчетом
+     *
+     * @param userId идентификатор пользователя
+     * @param month  месяц
+     * @return ревизия снимка, которую нужно передать в
+     *         {@link #complete(Long, YearMonth, long, DashboardDto)}
+     */
+    @Transactional
+    public long open(Long userId, YearMonth month) {
+        return monthSnapshotRepository.open(userId, month.atDay(1))
+                .or(() -> monthSnapshotRepository.findRevision(userId, month.atDay(1)))
+                .orElseThrow(() -> new IllegalStateException(
+                        "Snapshot for user " + userId + ", month " + month + " is missing"));
+    }
+
+    /**
+     * Сохраняет пересчитанный снимок
+     *
+     * @param userId    идентификатор пользователя
+     * @param month     месяц
+     * @param revision  ревизия, полученная до начала пересчета
+     * @param dashboard дашборд месяца с полным рейтингом категорий
+     * @return true, если снимок сохранен; false, если за время пересчета данные
+     *         месяца изменились
+     */
+    @Transactional
+    public boolean complete(Long userId, YearMonth month, long revision, DashboardDto dashboard) {
+        boolean saved = monthSnapshotRepository.complete(userId, month.atDay(1), revision,
+                objectMapper.writeValueAsString(dashboard)) > 0;
+        if (!saved) {
+            logger.debug("Snapshot for user: {}, month: {} changed during refresh", userId, month);
+        }
+        return saved;
+    }
+
+    /**
+     * Переоткрывает снимок пользователя за месяц, если месяц закрыт
+     * <p>
+     * Если снимка еще нет, он создается устаревшим: закрытие месяца, начатое
+     * параллельно с изменением, увидит новую ревизию и не сохранит снимок без
+     * этого изменения
+     *
+     * @param userId идентификатор пользователя
+     * @param month  месяц
+     */
+    @Transactional
+    public void reopen(Long userId, YearMonth month) {
+        if (isClosed(month)) {
+            monthSnapshotRepository.reopen(userId, month.atDay(1));
+        }
+    }
+
+    /**
+     * Переоткрывает все снимки пользователя
+     *
+     * @param userId идентификатор пользователя
+     */
+    @Transactional
+    public void reopenUser(Long userId) {
+        monthSnapshotRepository.reopenUser(userId);
+    }
+
+    /**
+     * Переоткрывает снимки всех пользователей за месяц, если месяц закрыт
+     *
+     * @param month месяц
+     */
+    @Transactional
+    public void reopenMonth(YearMonth month) {
+        if (isClosed(month)) {
+            monthSnapshotRepository.reopenMonth(month.atDay(1));
+        }
+    }
+
+    /**
+     * Возвращает пользователей, у которых есть транзакции или бюджеты за месяц
+     *
+     * @param month месяц
+     * @return список идентификаторов пользователей
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findUsersWithData(YearMonth month) {
+        return monthSnapshotRepository.findUserIdsWithData(month.atDay(1), month.atEndOfMonth(), month);
+    }
+
+    /**
+     * Возвращает устаревшие снимки, начиная с самых старых месяцев
+     *
+     * @param limit максимальное количество снимков
+     * @return список устаревших снимков
+     */
+    @Transactional(readOnly = true)
+    public List<MonthSnapshot> findStale(int limit) {
+        return monthSnapshotRepository.findStale(Limit.of(limit));
+    }
+
+    private static boolean isClosed(YearMonth month) {
+        return month.isBefore(YearMonth.now());
+    }
+
+}
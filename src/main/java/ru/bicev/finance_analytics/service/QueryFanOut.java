@@ -0,0 +1,156 @@
+package ru.bicev.finance_analytics.service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Параллельное выполнение независимых запросов к бд в рамках одного запроса
+ * пользователя
+ * <p>
+ * Один запрос выполняется в потоке вызова, второй - в виртуальном потоке с
+ * контекстом безопасности вызывающего потока и в собственной читающей
+ * транзакции, поэтому время ответа приближается к самому долгому запросу, а не
+ * к их сумме. Количество одновременно вынесенных запросов ограничено, чтобы
+ * они не заняли весь пул соединений: при исчерпании лимита, а также внутри
+ * пишущей транзакции, которая могла изменить читаемые данные, запросы
+ * выполняются последовательно в потоке вызова
+ * <p>
+ * Вызывающий поток может держать соединение своей транзакции, пока ждет
+ * вынесенный запрос, которому нужно еще одно соединение. Поэтому лимит должен
+ * быть строго меньше размера пула: тогда хотя бы одно соединение занято не
+ * ожидающим вызовом и освободится для вынесенного запроса. Иначе приложение не
+ * запускается
+ */
+@Service
+public class QueryFanOut {
+
+    private final TransactionOperations readOnlyTransaction;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    @Autowired
+    public QueryFanOut(PlatformTransactionManager transactionManager,
+            @Value("${app.analytics.fan-out.max-concurrency:4}") int maxConcurrency,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize) {
+        this(readOnly(transactionManager), checkMaxConcurrency(maxConcurrency, maximumPoolSize));
+    }
+
+    QueryFanOut(TransactionOperations readOnlyTransaction, int maxConcurrency) {
+        this.readOnlyTransaction = readOnlyTransaction;
+        this.permits = new Semaphore(maxConcurrency);
+        this.executor = new DelegatingSecurityContextExecutorService(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("query-fan-out-", 0).factory()));
+    }
+
+    /**
+     * Выполняет два независимых запроса параллельно и объединяет их результаты
+     *
+     * @param forked   запрос, выполняемый в отдельном потоке
+     * @param inline   запрос, выполняемый в потоке вызова
+     * @param combiner функция, объединяющая результаты запросов
+     * @return объединенный результат
+     */
+    public <A, B, R> R join(Supplier<A> forked, Supplier<B> inline, BiFunction<? super A, ? super B, R> combiner) {
+        if (!canFork() || !permits.tryAcquire()) {
+            return combiner.apply(forked.get(), inline.get());
+        }
+
+        Future<A> future = executor.submit(() -> {
+            try {
+                return readOnlyTransaction.execute(status -> forked.get());
+            } finally {
+                permits.release();
+            }
+        });
+        B second;
+        try {
+            second = inline.get();
+        } catch (RuntimeException | Error e) {
+            future.cancel(true);
+            throw e;
+        }
+        return combiner.apply(await(future), second);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Служебный метод, проверяющий, что вынесенный запрос увидит те же данные:
+     * вне транзакции или в читающей транзакции незафиксированных изменений нет
+     *
+     * @return true, если запрос можно выполнить в отдельном потоке
+     */
+    private static boolean canFork() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * Служебный метод, ожидающий результата вынесенного запроса
+     * <p>
+     * Исключение запроса пробрасывается без обертки
+     *
+     * @param future результат запроса
+     * @return результат запроса
+     */
+    private static <A> A await(Future<A> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Query interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Query failed", e.getCause());
+        }
+    }
+
+    /**
+     * Служебный метод, проверяющий, что вынесенные запросы не могут занять
+     * все соединения пула вместе с ожидающими их вызовами
+     *
+     * @param maxConcurrency  лимит одновременно вынесенных запросов
+     * @param maximumPoolSize размер пула соединений
+     * @return лимит одновременно вынесенных запросов
+     * @throws IllegalStateException если лимит не меньше размера пула
+     */
+    static int checkMaxConcurrency(int maxConcurrency, int maximumPoolSize) {
+        if (maxConcurrency >= maximumPoolSize) {
+            throw new IllegalStateException("app.analytics.fan-out.max-concurrency " + maxConcurrency
+                    + " must be less than the connection pool size " + maximumPoolSize);
+        }
+        return maxConcurrency;
+    }
+
+    private static TransactionOperations readOnly(PlatformTransactionManager transactionManager) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate;
+    }
+
+}
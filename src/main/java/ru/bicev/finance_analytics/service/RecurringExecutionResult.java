@@ -0,0 +1,12 @@
+package ru.bicev.finance_analytics.service;
+
+/**
+ * Результат обработки рекуррентных транзакций
+ * 
+ * @param created          количество созданных транзакций
+ * @param failedPartitions количество партиций, обработка которых остановилась
+ *                         из-за ошибки
+ */
+public record RecurringExecutionResult(int created, int failedPartitions) {
+
+}
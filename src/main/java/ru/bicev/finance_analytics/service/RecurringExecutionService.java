@@ -1,20 +1,31 @@
 package ru.bicev.finance_analytics.service;
 
+import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import ru.bicev.finance_analytics.dto.TransactionRequest;
-import ru.bicev.finance_analytics.entity.Category;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import ru.bicev.finance_analytics.entity.RecurringTransaction;
-import ru.bicev.finance_analytics.entity.User;
-import ru.bicev.finance_analytics.exception.NotFoundException;
-import ru.bicev.finance_analytics.repo.CategoryRepository;
-import ru.bicev.finance_analytics.repo.UserRepository;
+import ru.bicev.finance_analytics.entity.Transaction;
+import ru.bicev.finance_analytics.exception.LeaseLostException;
 import ru.bicev.finance_analytics.util.Frequency;
 
 /**
@@ -25,56 +36,247 @@ public class RecurringExecutionService {
 
     private final TransactionService transactionService;
     private final RecurringTransactionService recuringTransactionService;
-    private final UserRepository userRepository;
-    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final SchedulerLockService schedulerLockService;
+
+    @Value("${app.recurring.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${app.recurring.partitions:4}")
+    private int partitions = 4;
+
+    @Value("${app.recurring.workers:4}")
+    private int workers = 4;
+
+    @Value("${app.recurring.timeout:PT1H}")
+    private Duration timeout = Duration.ofHours(1);
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads = false;
 
     private static final Logger logger = LoggerFactory.getLogger(RecurringExecutionService.class);
 
     public RecurringExecutionService(TransactionService transactionService,
-            RecurringTransactionService recuringTransactionService, UserRepository userRepository,
-            CategoryRepository categoryRepository) {
+            RecurringTransactionService recuringTransactionService,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            SchedulerLockService schedulerLockService) {
         this.transactionService = transactionService;
         this.recuringTransactionService = recuringTransactionService;
-        this.userRepository = userRepository;
-        this.categoryRepository = categoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.schedulerLockService = schedulerLockService;
     }
 
     /**
      * Метод, выполняющий создание обычных транзакций из рекуррентных
      * <p>
      * Метод создает обычные транзакции-расходы, если у реккурентной транзакции подошел срок платежа и она указана как активная.
+     * Просроченные транзакции делятся на партиции по идентификатору пользователя, партиции обрабатываются
+     * параллельно пулом потоков (виртуальных, если они включены). Каждая порция захватывается через {@code FOR UPDATE SKIP LOCKED}
+     * и фиксируется в отдельной транзакции БД, поэтому несколько экземпляров приложения могут
+     * обрабатывать одни и те же партиции одновременно без повторных списаний.
+     * Если срок списания был пропущен несколько раз, создается по одной транзакции на каждую пропущенную дату.
      * Обновляет следующий срок исполнения рекуррентной транзакции в соответствии с частотой ее списания
-     * @throws NotFoundException если у у рекуррентной транзакции нет родительской категории или пользователя в базе данных
+     * @return количество созданных транзакций и партиций, остановленных из-за ошибки
+     */
+    public RecurringExecutionResult executeDueTransactions() {
+        return executeDueTransactions(null);
+    }
+
+    /**
+     * Метод, выполняющий создание обычных транзакций из рекуррентных в рамках аренды задачи
+     * <p>
+     * Перед записью каждой порции проверяется, что аренда все еще принадлежит текущему узлу,
+     * поэтому узел, потерявший аренду, не сможет записать ни одной новой порции. Потеря аренды
+     * останавливает все партиции и не считается ошибкой отдельной партиции
+     * <p>
+     * Выполнение ограничено {@code app.recurring.timeout}: после него партиции не берут новые
+     * порции, а потоки прерываются. Метод возвращает управление только после остановки всех
+     * потоков, поэтому аренда, продлеваемая на время выполнения задачи, освобождается не раньше,
+     * чем завершится последняя порция
+     * @param lease аренда задачи или null, если выполнение не требует аренды
+     * @return количество созданных транзакций и партиций, остановленных из-за ошибки
+     * @throws LeaseLostException если аренда перехвачена другим узлом
+     * @throws IllegalStateException если выполнение не уложилось в отведенное время
      */
-    @Transactional
-    public void executeDueTransactions() {
+    public RecurringExecutionResult executeDueTransactions(JobLease lease) {
         LocalDate today = LocalDate.now();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        ExecutorService executor = virtualThreads
+                ? Executors.newFixedThreadPool(Math.min(workers, partitions),
+                        Thread.ofVirtual().name("recurring-worker-", 0).factory())
+                : Executors.newFixedThreadPool(Math.min(workers, partitions));
+        try {
+            List<Future<PartitionResult>> results = new ArrayList<>(partitions);
+            for (int partition = 0; partition < partitions; partition++) {
+                int current = partition;
+                results.add(executor.submit(() -> executePartition(today, current, lease, deadline)));
+            }
 
-        List<RecurringTransaction> due = recuringTransactionService.findAllActiveByNextExecutionDateBefore(today);
+            int created = 0;
+            int failedPartitions = 0;
+            for (Future<PartitionResult> result : results) {
+                PartitionResult partitionResult = awaitPartition(result, deadline);
+                created += partitionResult.created();
+                if (partitionResult.failed()) {
+                    failedPartitions++;
+                }
+            }
+            logger.debug("executeDueTransactions() partitions: {}; created: {}; failed partitions: {}", partitions,
+                    created, failedPartitions);
+            return new RecurringExecutionResult(created, failedPartitions);
+        } finally {
+            stop(executor);
+        }
+    }
 
-        for (RecurringTransaction rt : due) {
+    /**
+     * Служебный метод, обрабатывающий все просроченные транзакции одной партиции
+     * <p>
+     * Ошибка при обработке порции откатывает только эту порцию и останавливает обработку партиции,
+     * оставшиеся строки будут обработаны при следующем запуске, а партиция считается неуспешной.
+     * После истечения отведенного времени или прерывания потока новые порции не берутся
+     * @param today текущая дата
+     * @param partition номер партиции
+     * @param lease аренда задачи или null
+     * @param deadline момент {@link System#nanoTime()}, после которого обработка останавливается
+     * @return количество созданных транзакций и признак остановки из-за ошибки
+     * @throws LeaseLostException если аренда перехвачена другим узлом
+     */
+    private PartitionResult executePartition(LocalDate today, int partition, JobLease lease, long deadline) {
+        String tag = String.valueOf(partition);
+        Counter rowsCounter = meterRegistry.counter("recurring.execution.rows", "partition", tag);
+        Counter createdCounter = meterRegistry.counter("recurring.execution.transactions", "partition", tag);
+        Counter failuresCounter = meterRegistry.counter("recurring.execution.failures", "partition", tag);
+        Timer chunkTimer = meterRegistry.timer("recurring.execution.chunk", "partition", tag);
+
+        long startedAt = System.nanoTime();
+        int rows = 0;
+        int created = 0;
+        boolean failed = false;
+
+        while (true) {
+            if (Thread.currentThread().isInterrupted() || System.nanoTime() - deadline >= 0) {
+                logger.warn("executePartition() partition: {}; rows: {}; created: {}; stopped after timeout",
+                        partition, rows, created);
+                failed = true;
+                break;
+            }
+            ChunkResult result;
+            try {
+                result = chunkTimer.record(
+                        () -> transactionTemplate.execute(status -> executeChunk(today, partition, lease)));
+            } catch (LeaseLostException e) {
+                logger.warn("executePartition() partition: {}; rows: {}; created: {}; lease is lost", partition,
+                        rows, created);
+                throw e;
+            } catch (RuntimeException e) {
+                failuresCounter.increment();
+                logger.error("executePartition() partition: {}; chunk failed", partition, e);
+                failed = true;
+                break;
+            }
+            if (result == null || result.processed() == 0) {
+                break;
+            }
+            rows += result.processed();
+            created += result.created();
+            rowsCounter.increment(result.processed());
+            createdCounter.increment(result.created());
+            if (result.processed() < chunkSize) {
+                break;
+            }
+        }
+
+        double seconds = Math.max((System.nanoTime() - startedAt) / 1_000_000_000d, 1e-9);
+        logger.info("executePartition() partition: {}; rows: {}; created: {}; rows/s: {}",
+                partition, rows, created, String.format("%.1f", rows / seconds));
+        return new PartitionResult(created, failed);
+    }
 
-            Long userId = rt.getUser().getId();
-            User user = userRepository.findById(rt.getUser().getId())
-                    .orElseThrow(() -> new NotFoundException("User not found"));
+    /**
+     * Служебный метод, обрабатывающий одну порцию рекуррентных транзакций партиции
+     * @param today текущая дата
+     * @param partition номер партиции
+     * @param lease аренда задачи или null
+     * @return результат обработки порции
+     */
+    private ChunkResult executeChunk(LocalDate today, int partition, JobLease lease) {
+        if (lease != null) {
+            schedulerLockService.verify(lease);
+        }
+        List<RecurringTransaction> due = recuringTransactionService.claimDueChunk(today, partition, partitions,
+                chunkSize);
+        if (due.isEmpty()) {
+            return new ChunkResult(0, 0);
+        }
 
-            Category category = categoryRepository.findByIdAndUserId(rt.getCategory().getId(), userId)
-                    .orElseThrow(() -> new NotFoundException("Category not found"));
+        LocalDateTime now = LocalDateTime.now();
+        List<Transaction> transactions = new ArrayList<>();
 
-            TransactionRequest t = new TransactionRequest(
-                    category.getId(),
-                    rt.getAmount(),
-                    today,
-                    rt.getDescription(),
-                    false);
+        for (RecurringTransaction rt : due) {
+            LocalDate date = rt.getNextExecutionDate();
+            while (!date.isAfter(today)) {
+                transactions.add(Transaction.builder()
+                        .user(rt.getUser())
+                        .category(rt.getCategory())
+                        .date(date)
+                        .amount(rt.getAmount().setScale(2, RoundingMode.HALF_UP))
+                        .createdAt(now)
+                        .description(rt.getDescription())
+                        .isPlanned(false)
+                        .build());
+                rt.setLastExecutionDate(date);
+                date = calculateNextDate(date, rt.getFrequency());
+            }
+            rt.setNextExecutionDate(date);
+        }
+
+        transactionService.saveAll(transactions);
+        recuringTransactionService.saveAll(due);
 
-            transactionService.createTransactionForUser(user, t);
+        return new ChunkResult(due.size(), transactions.size());
+    }
 
-            rt.setLastExecutionDate(today);
-            rt.setNextExecutionDate(calculateNextDate(today, rt.getFrequency()));
-            
-            logger.debug("executeDueTransactions()");
-            recuringTransactionService.save(rt);
+    /**
+     * Служебный метод, ожидающий завершения обработки партиции
+     * @param result результат обработки партиции
+     * @param deadline момент {@link System#nanoTime()}, до которого ожидается результат
+     * @return результат обработки партиции
+     * @throws LeaseLostException если партиция остановлена из-за потери аренды
+     * @throws IllegalStateException если партиция не завершилась до {@code deadline}
+     */
+    private PartitionResult awaitPartition(Future<PartitionResult> result, long deadline) {
+        try {
+            return result.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recurring execution interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof LeaseLostException leaseLost) {
+                throw leaseLost;
+            }
+            throw new IllegalStateException("Recurring execution failed", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Recurring execution timed out after " + timeout, e);
+        }
+    }
+
+    /**
+     * Служебный метод, прерывающий потоки обработки и ожидающий их завершения
+     * <p>
+     * Прерванный поток дописывает или откатывает текущую порцию и не берет следующую
+     * @param executor пул потоков обработки
+     */
+    private void stop(ExecutorService executor) {
+        executor.shutdownNow();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("stop() waiting for recurring workers to finish current chunks");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -92,4 +294,10 @@ public class RecurringExecutionService {
         };
     }
 
+    private record ChunkResult(int processed, int created) {
+    }
+
+    private record PartitionResult(int created, boolean failed) {
+    }
+
 }
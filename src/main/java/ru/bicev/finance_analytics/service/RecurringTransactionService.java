@@ -9,6 +9,7 @@ import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,14 +31,17 @@ public class RecurringTransactionService {
     private final UserService userService;
     private final CategoryRepository categoryRepository;
     private final RecurringTransactionRepository recurringTransactionRepository;
+    private final DataVersionService dataVersionService;
 
     private static final Logger logger = LoggerFactory.getLogger(RecurringTransactionService.class);
 
     public RecurringTransactionService(UserService userService,
-            CategoryRepository categoryRepository, RecurringTransactionRepository recurringTransactionRepository) {
+            CategoryRepository categoryRepository, RecurringTransactionRepository recurringTransactionRepository,
+            DataVersionService dataVersionService) {
         this.userService = userService;
         this.categoryRepository = categoryRepository;
         this.recurringTransactionRepository = recurringTransactionRepository;
+        this.dataVersionService = dataVersionService;
     }
 
     /**
@@ -71,7 +75,9 @@ public class RecurringTransactionService {
                 .nextExecutionDate(request.nextExecutionDate())
                 .build();
         logger.debug("createRecurringTransaction() for user: {}", user.getId());
-        return toDto(recurringTransactionRepository.save(transaction));
+        RecurringTransaction saved = recurringTransactionRepository.save(transaction);
+        dataVersionService.bump(user.getId());
+        return toDto(saved);
     }
 
     /**
@@ -83,7 +89,7 @@ public class RecurringTransactionService {
     public List<RecurringTransactionDto> getAllRecurringTransactions() {
         Long userId = getCurrentUserId();
         logger.debug("getAllRecurringTransactions() for user: {}", userId);
-        return recurringTransactionRepository.findAllByUserId(userId).stream()
+        return recurringTransactionRepository.findAllByUserIdOrderByNextExecutionDateAsc(userId).stream()
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
@@ -100,7 +106,7 @@ public class RecurringTransactionService {
         Long userId = getCurrentUserId();
 
         logger.debug("getAllRecurringTransactionsAndDate() for user: {}; date: {}", userId, date.toString());
-        return recurringTransactionRepository.findAllByUserIdAndNextExecutionDateLessThanEqual(userId, date).stream()
+        return recurringTransactionRepository.findAllByUserIdAndNextExecutionDateLessThanEqualOrderByNextExecutionDateAsc(userId, date).stream()
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
@@ -167,7 +173,9 @@ public class RecurringTransactionService {
         }
         logger.debug("updateRecurringTransaction() with id: {}", transactionId.toString());
 
-        return toDto(recurringTransactionRepository.save(transaction));
+        RecurringTransaction saved = recurringTransactionRepository.save(transaction);
+        dataVersionService.bump(userId);
+        return toDto(saved);
     }
 
     /**
@@ -184,6 +192,7 @@ public class RecurringTransactionService {
                 .orElseThrow(() -> new NotFoundException("Transaction not found"));
         logger.debug("deleteRecurringTransaction() with id: {}", transactionId.toString());
         recurringTransactionRepository.delete(transaction);
+        dataVersionService.bump(transaction.getUser().getId());
     }
 
     /**
@@ -199,6 +208,25 @@ public class RecurringTransactionService {
         return recurringTransactionRepository.findAllByIsActiveAndNextExecutionDateLessThanEqual(true, now);
     }
 
+    /**
+     * Захватывает очередную порцию активных рекуррентных транзакций указанной
+     * партиции, у которых дата следующего списания меньше или равна указанной
+     * <p>
+     * Партиция определяется остатком от деления идентификатора пользователя на
+     * количество партиций. Захваченные строки заблокированы до конца текущей
+     * транзакции, строки, заблокированные другими обработчиками, пропускаются
+     * 
+     * @param date       дата, до которой ищутся транзакции
+     * @param partition  номер партиции
+     * @param partitions количество партиций
+     * @param size       максимальный размер порции
+     * @return порция транзакций, пользователи и категории которых не загружаются
+     */
+    @Transactional
+    public List<RecurringTransaction> claimDueChunk(LocalDate date, int partition, int partitions, int size) {
+        return recurringTransactionRepository.claimDue(date, partition, partitions, Limit.of(size));
+    }
+
     /**
      * Служебный метод, который сохраняет рекуррентную транзакцию
      * 
@@ -207,16 +235,31 @@ public class RecurringTransactionService {
      */
     @Transactional
     public RecurringTransaction save(RecurringTransaction transaction) {
-        return recurringTransactionRepository.save(transaction);
+        RecurringTransaction saved = recurringTransactionRepository.save(transaction);
+        dataVersionService.bump(saved.getUser().getId());
+        return saved;
+    }
+
+    /**
+     * Служебный метод, который сохраняет список рекуррентных транзакций
+     * 
+     * @param transactions транзакции, которые нужно сохранить
+     * @return сохраненные транзакции
+     */
+    @Transactional
+    public List<RecurringTransaction> saveAll(List<RecurringTransaction> transactions) {
+        List<RecurringTransaction> saved = recurringTransactionRepository.saveAll(transactions);
+        dataVersionService.bump(saved.stream().map(transaction -> transaction.getUser().getId()).toList());
+        return saved;
     }
 
     /**
      * Служебный метод, который возвращает текущего пользователя
      * 
-     * @return текущий пользователь
+     * @return ссылка на текущего пользователя без загрузки из бд
      */
     private User getCurrentUser() {
-        return userService.getCurrentUser();
+        return userService.getCurrentUserReference();
     }
 
     /**
@@ -1,14 +1,10 @@
 package ru.bicev.finance_analytics.service;
 
 import java.time.YearMonth;
-import java.util.List;
 
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import ru.bicev.finance_analytics.entity.BudgetTemplate;
-import ru.bicev.finance_analytics.repo.BudgetTemplateRepository;
-
 /**
  * Сервис для выполнения задач по расписанию
  */
@@ -17,40 +13,101 @@ public class ScheduledTasks {
 
     private final RecurringExecutionService recurringExecutionService;
     private final BudgetService budgetService;
-    private final BudgetTemplateRepository budgetTemplateRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionPartitionService transactionPartitionService;
+    private final MonthCloseService monthCloseService;
+    private final LoginActivityBuffer loginActivityBuffer;
+
+    static final String RECURRING_JOB = "recurring-transactions";
+    static final String BUDGETS_JOB = "monthly-budgets";
+    static final String PARTITIONS_JOB = "transaction-partitions";
+    static final String MONTH_CLOSE_JOB = "month-close";
+    static final String SNAPSHOT_REFRESH_JOB = "month-snapshot-refresh";
 
     public ScheduledTasks(RecurringExecutionService recurringExecutionService, BudgetService budgetService,
-            BudgetTemplateRepository budgetTemplateRepository) {
+            SchedulerLockService schedulerLockService, TransactionPartitionService transactionPartitionService,
+            MonthCloseService monthCloseService, LoginActivityBuffer loginActivityBuffer) {
         this.recurringExecutionService = recurringExecutionService;
         this.budgetService = budgetService;
-        this.budgetTemplateRepository = budgetTemplateRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.transactionPartitionService = transactionPartitionService;
+        this.monthCloseService = monthCloseService;
+        this.loginActivityBuffer = loginActivityBuffer;
     }
 
     /**
      * Метод, который запускает выполнение задач по расписанию (каждый день в 1:00)
+     * <p>
+     * Задача выполняется только на узле, захватившем ее аренду
      */
     @Scheduled(cron = "0 0 1 * * *")
     public void processRecurringTransactions() {
-        recurringExecutionService.executeDueTransactions();
+        schedulerLockService.runExclusively(RECURRING_JOB, lease -> {
+            RecurringExecutionResult result = recurringExecutionService.executeDueTransactions(lease);
+            return result.failedPartitions() == 0
+                    ? JobResult.success(result.created())
+                    : JobResult.failed(result.created(), "Failed partitions: " + result.failedPartitions());
+        });
     }
 
     /**
      * Метод который запускает выполнение задач (первого числа каждого месяца в
      * 0:00)
+     * <p>
+     * Задача выполняется только на узле, захватившем ее аренду
      */
     @Scheduled(cron = "0 0 0 1 * *")
     public void generateMonthlyBudgets() {
-        YearMonth currentMonth = YearMonth.now();
+        schedulerLockService.runExclusively(BUDGETS_JOB,
+                lease -> JobResult.success(budgetService.generateBudgetsFromTemplates(YearMonth.now())));
+    }
+
+    /**
+     * Метод, который сохраняет снимки показателей пользователей за прошедший
+     * месяц (первого числа каждого месяца в 0:15, после создания бюджетов)
+     * <p>
+     * Задача выполняется только на узле, захватившем ее аренду
+     */
+    @Scheduled(cron = "0 15 0 1 * *")
+    public void closePreviousMonth() {
+        schedulerLockService.runExclusively(MONTH_CLOSE_JOB,
+                lease -> JobResult.success(monthCloseService.closeMonth(YearMonth.now().minusMonths(1))));
+    }
+
+    /**
+     * Метод, который пересчитывает снимки закрытых месяцев, переоткрытые
+     * изменением их данных
+     * <p>
+     * Задача выполняется только на узле, захватившем ее аренду
+     */
+    @Scheduled(initialDelayString = "${app.analytics.snapshots.refresh-interval:PT5M}",
+            fixedDelayString = "${app.analytics.snapshots.refresh-interval:PT5M}")
+    public void refreshMonthSnapshots() {
+        schedulerLockService.runExclusively(SNAPSHOT_REFRESH_JOB,
+                lease -> JobResult.success(monthCloseService.refreshStale()));
+    }
 
-        List<BudgetTemplate> templates = budgetTemplateRepository.findByActiveTrue();
+    /**
+     * Метод, который сохраняет накопленное время последнего входа пользователей
+     * <p>
+     * Задача выполняется на каждом узле: буфер входов хранится в памяти узла
+     */
+    @Scheduled(initialDelayString = "${app.users.login-flush-interval:PT30S}",
+            fixedDelayString = "${app.users.login-flush-interval:PT30S}")
+    public void flushLoginActivity() {
+        loginActivityBuffer.flush();
+    }
 
-        for (BudgetTemplate template : templates) {
-            budgetService.createBudgetForCategoryAndUser(
-                    template.getUser(),
-                    template.getCategory(),
-                    template.getAmount(),
-                    currentMonth);
-        }
+    /**
+     * Метод, который создает секции таблицы транзакций на несколько месяцев
+     * вперед (каждый день в 0:30)
+     * <p>
+     * Задача выполняется только на узле, захватившем ее аренду
+     */
+    @Scheduled(cron = "0 30 0 * * *")
+    public void createTransactionPartitions() {
+        schedulerLockService.runExclusively(PARTITIONS_JOB,
+                lease -> JobResult.success(transactionPartitionService.createPartitions(YearMonth.now())));
     }
 
 }
@@ -0,0 +1,226 @@
+package ru.bicev.finance_analytics.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import ru.bicev.finance_analytics.entity.JobRun;
+import ru.bicev.finance_analytics.exception.LeaseLostException;
+import ru.bicev.finance_analytics.repo.JobRunRepository;
+import ru.bicev.finance_analytics.repo.SchedulerLockRepository;
+import ru.bicev.finance_analytics.util.JobRunStatus;
+
+/**
+ * Сервис, обеспечивающий выполнение задач по расписанию только на одном узле
+ * кластера
+ * <p>
+ * Аренда хранится в таблице {@code scheduler_lock}, пока задача выполняется,
+ * аренда периодически продлевается. Каждый запуск записывается в таблицу
+ * {@code job_run}
+ */
+@Service
+public class SchedulerLockService {
+
+    private final SchedulerLockRepository schedulerLockRepository;
+    private final JobRunRepository jobRunRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService renewalExecutor;
+    private final String ownerId;
+
+    @Value("${app.scheduler.lease-duration:PT5M}")
+    private Duration leaseDuration = Duration.ofMinutes(5);
+
+    @Value("${app.scheduler.min-hold:PT1M}")
+    private Duration minHold = Duration.ofMinutes(1);
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerLockService.class);
+
+    public SchedulerLockService(SchedulerLockRepository schedulerLockRepository, JobRunRepository jobRunRepository,
+            PlatformTransactionManager transactionManager) {
+        this.schedulerLockRepository = schedulerLockRepository;
+        this.jobRunRepository = jobRunRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.renewalExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scheduler-lease-renewal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ownerId = hostName() + ":" + UUID.randomUUID();
+    }
+
+    /**
+     * Выполняет задачу, если текущему узлу удалось захватить ее аренду
+     * <p>
+     * Пока задача выполняется, аренда продлевается каждую треть срока аренды.
+     * После завершения аренда освобождается, а запуск записывается в историю с
+     * длительностью и количеством обработанных строк. Запуск считается
+     * неуспешным, если задача выбросила исключение или вернула результат с
+     * ошибкой
+     * 
+     * @param jobName имя задачи
+     * @param job     задача, возвращающая результат выполнения
+     * @return true, если задача была выполнена на текущем узле
+     */
+    public boolean runExclusively(String jobName, Function<JobLease, JobResult> job) {
+        Optional<JobLease> acquired = tryAcquire(jobName);
+        if (acquired.isEmpty()) {
+            logger.debug("runExclusively() job: {}; lease is held by another node", jobName);
+            return false;
+        }
+
+        JobLease lease = acquired.get();
+        long period = Math.max(leaseDuration.toMillis() / 3, 1);
+        ScheduledFuture<?> renewal = renewalExecutor.scheduleAtFixedRate(() -> renew(lease), period, period,
+                TimeUnit.MILLISECONDS);
+
+        LocalDateTime startedAt = LocalDateTime.now();
+        long started = System.nanoTime();
+        long rows = 0;
+        JobRunStatus status = JobRunStatus.SUCCESS;
+        String error = null;
+        try {
+            JobResult result = job.apply(lease);
+            rows = result.rowsProcessed();
+            if (result.error() != null) {
+                status = JobRunStatus.FAILED;
+                error = result.error();
+                logger.error("runExclusively() job: {}; token: {}; partially failed: {}", jobName,
+                        lease.fencingToken(), error);
+            }
+        } catch (RuntimeException e) {
+            status = JobRunStatus.FAILED;
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            logger.error("runExclusively() job: {}; token: {}; failed", jobName, lease.fencingToken(), e);
+        } finally {
+            renewal.cancel(false);
+            release(lease);
+        }
+
+        recordRun(lease, startedAt, Duration.ofNanos(System.nanoTime() - started), rows, status, error);
+        logger.info("runExclusively() job: {}; token: {}; status: {}; rows: {}", jobName, lease.fencingToken(),
+                status, rows);
+        return true;
+    }
+
+    /**
+     * Проверяет, что аренда все еще принадлежит текущему узлу
+     * <p>
+     * Должен вызываться внутри транзакции, выполняющей запись: строка аренды
+     * блокируется в разделяемом режиме до конца транзакции, поэтому другой узел
+     * не сможет перехватить аренду, пока эта транзакция не завершится
+     * 
+     * @param lease аренда, которую нужно проверить
+     * @throws LeaseLostException если аренда перехвачена другим узлом
+     */
+    @Transactional
+    public void verify(JobLease lease) {
+        long current = schedulerLockRepository.findFencingTokenForShare(lease.jobName(), lease.ownerId())
+                .orElse(-1L);
+        if (current != lease.fencingToken()) {
+            throw new LeaseLostException("Lease for job " + lease.jobName() + " is lost");
+        }
+    }
+
+    /**
+     * Служебный метод, пытающийся захватить аренду задачи
+     * 
+     * @param jobName имя задачи
+     * @return захваченная аренда или пустой Optional, если аренда занята
+     */
+    private Optional<JobLease> tryAcquire(String jobName) {
+        return transactionTemplate.execute(status -> {
+            if (schedulerLockRepository.tryAcquire(jobName, ownerId, leaseDuration.toSeconds()) == 0) {
+                return Optional.empty();
+            }
+            return schedulerLockRepository.findById(jobName)
+                    .map(lock -> new JobLease(jobName, ownerId, lock.getFencingToken()));
+        });
+    }
+
+    /**
+     * Служебный метод, продлевающий аренду задачи
+     * 
+     * @param lease аренда
+     */
+    private void renew(JobLease lease) {
+        try {
+            Integer renewed = transactionTemplate.execute(status -> schedulerLockRepository.renew(lease.jobName(),
+                    lease.ownerId(), lease.fencingToken(), leaseDuration.toSeconds()));
+            if (renewed == null || renewed == 0) {
+                logger.warn("renew() job: {}; token: {}; lease is lost", lease.jobName(), lease.fencingToken());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("renew() job: {}; token: {}; failed", lease.jobName(), lease.fencingToken(), e);
+        }
+    }
+
+    /**
+     * Служебный метод, освобождающий аренду задачи
+     * 
+     * @param lease аренда
+     */
+    private void release(JobLease lease) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> schedulerLockRepository.release(lease.jobName(),
+                    lease.ownerId(), lease.fencingToken(), minHold.toSeconds()));
+        } catch (RuntimeException e) {
+            logger.warn("release() job: {}; token: {}; failed", lease.jobName(), lease.fencingToken(), e);
+        }
+    }
+
+    /**
+     * Служебный метод, записывающий запуск задачи в историю
+     */
+    private void recordRun(JobLease lease, LocalDateTime startedAt, Duration duration, long rows,
+            JobRunStatus status, String error) {
+        JobRun run = JobRun.builder()
+                .jobName(lease.jobName())
+                .ownerId(lease.ownerId())
+                .fencingToken(lease.fencingToken())
+                .startedAt(startedAt)
+                .finishedAt(startedAt.plus(duration))
+                .durationMs(duration.toMillis())
+                .rowsProcessed(rows)
+                .status(status)
+                .error(error != null && error.length() > 1000 ? error.substring(0, 1000) : error)
+                .build();
+        try {
+            transactionTemplate.executeWithoutResult(s -> jobRunRepository.save(run));
+        } catch (RuntimeException e) {
+            logger.warn("recordRun() job: {}; failed", lease.jobName(), e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renewalExecutor.shutdownNow();
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+
+}
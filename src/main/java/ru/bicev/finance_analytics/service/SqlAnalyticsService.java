@@ -1,34 +1,74 @@
 package ru.bicev.finance_analytics.service;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import ru.bicev.finance_analytics.dto.CategoryExpenseDto;
+import ru.bicev.finance_analytics.dto.CategoryTrendDto;
 import ru.bicev.finance_analytics.dto.DailyExpenseDto;
+import ru.bicev.finance_analytics.dto.DateRange;
 import ru.bicev.finance_analytics.dto.MonthlyExpenseDto;
+import ru.bicev.finance_analytics.dto.MonthlyTrendDto;
 import ru.bicev.finance_analytics.dto.SummaryDto;
 import ru.bicev.finance_analytics.dto.TopCategoryDto;
+import ru.bicev.finance_analytics.dto.TrendsDto;
+import ru.bicev.finance_analytics.repo.BudgetRepository;
 import ru.bicev.finance_analytics.repo.TransactionAnalyticsRepository;
+import ru.bicev.finance_analytics.repo.projection.CategoryTypeTotalProjection;
+import ru.bicev.finance_analytics.repo.projection.MonthlyTrendProjection;
+import ru.bicev.finance_analytics.util.CategoryType;
 
 /**
- * Альтернативный сервис аналитики, который выполняет аналитику на уровне бд, а не приложения
+ * Альтернативный сервис аналитики, который выполняет аналитику на уровне бд, а
+ * не приложения
+ * <p>
+ * Результаты совпадают с {@link AnalyticsService}, но суммы считаются
+ * агрегирующими запросами по транзакциям, а не по дневным суммам или в памяти
+ * приложения. Какой из сервисов обслуживает эндпоинт, задается настройками
+ * {@code app.analytics.engine.*}
  */
 @Service
+@Transactional(readOnly = true)
 public class SqlAnalyticsService {
 
     private final TransactionAnalyticsRepository transactionRepository;
+    private final BudgetRepository budgetRepository;
     private final UserService userService;
+    private final AnalyticsCache analyticsCache;
+    private final QueryFanOut queryFanOut;
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlAnalyticsService.class);
 
     private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("MM.yyyy");
+    private static final BigDecimal ZERO = new BigDecimal("0.00");
 
-    public SqlAnalyticsService(TransactionAnalyticsRepository transactionRepository, UserService userService) {
+    /**
+     * Максимальная длина периода трендов в месяцах
+     */
+    public static final int MAX_TREND_MONTHS = 120;
+
+    public SqlAnalyticsService(TransactionAnalyticsRepository transactionRepository, BudgetRepository budgetRepository,
+            UserService userService, AnalyticsCache analyticsCache, QueryFanOut queryFanOut) {
         this.transactionRepository = transactionRepository;
+        this.budgetRepository = budgetRepository;
         this.userService = userService;
+        this.analyticsCache = analyticsCache;
+        this.queryFanOut = queryFanOut;
     }
 
     /**
@@ -36,24 +76,28 @@ public class SqlAnalyticsService {
      * @param month месяц, за который ищутся расходы
      * @return список расходов за указанный месяц в порядке убывания суммы трат
      */
-    public List<CategoryExpenseDto> getCategoryExpenses(YearMonth month) {
-        return transactionRepository.getExpensesByCategory(getCurrentUserId(), month.atDay(1), month.atEndOfMonth());
+    public List<CategoryExpenseDto> getExpensesByCategory(YearMonth month) {
+        logger.debug("getExpensesByCategory() for month: {}", month);
+        Long userId = getCurrentUserId();
+        return analyticsCache.get(userId, AnalyticsCache.Endpoint.SQL_CATEGORIES, month,
+                () -> transactionRepository.getTotalsByCategory(userId, CategoryType.EXPENSE, month.atDay(1),
+                        month.atEndOfMonth()));
     }
 
     /**
      * Возвращает список топ-категорий расходов за указанный месяц
      * @param month месяц, за который ищутся расходы
-     * @param limit максимальное количество категорий в выдаче 
+     * @param limit максимальное количество категорий в выдаче
      * @return список наиболее затратных категорий
-     * @throws IllegalArgumentExeption если {@code limit} меньше или равен нулю
+     * @throws IllegalArgumentException если {@code limit} меньше или равен нулю
      */
     public List<TopCategoryDto> getTopCategories(YearMonth month, int limit) {
-        return transactionRepository.getTopCategories(getCurrentUserId(), month.atDay(1), month.atEndOfMonth(), limit)
-                .stream()
-                .map(projection -> new TopCategoryDto(
-                        projection.getCategoryName(),
-                        projection.getTotalAmount()))
-                .toList();
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        logger.debug("getTopCategories() for month: {}", month);
+        return transactionRepository.getTopCategories(getCurrentUserId(), CategoryType.EXPENSE, month.atDay(1),
+                month.atEndOfMonth(), Limit.of(limit));
     }
 
     /**
@@ -62,40 +106,195 @@ public class SqlAnalyticsService {
      * @return список расходов по дням
      */
     public List<DailyExpenseDto> getDailyExpenses(YearMonth month) {
-        return transactionRepository.getDailyExpenses(getCurrentUserId(), month.atDay(1), month.atEndOfMonth());
+        logger.debug("getDailyExpenses() for month: {}", month);
+        Long userId = getCurrentUserId();
+        return analyticsCache.get(userId, AnalyticsCache.Endpoint.SQL_DAILY, month,
+                () -> transactionRepository.getDailyTotals(userId, CategoryType.EXPENSE, month.atDay(1),
+                        month.atEndOfMonth()));
     }
 
     /**
-     * Возвращает список расходов за указанный период по месяцам
-     * @param start дата начала периода
-     * @param end дата конца периода
-     * @return список расходов по месяцам
-     * @throws IllegalArgumentException если {@code start} идет после {@code end} хронологически
+     * Возвращает список расходов за указанный период по месяцам в формате "MM.yyyy"
+     * @param range временной период, за который рассчитываются расходы
+     * @return список расходов по месяцам в хронологическом порядке
+     * @throws IllegalStateException если дата начала периода позднее даты окончания
+     *                               периода
      */
-    public List<MonthlyExpenseDto> getMonthlyExpenses(LocalDate start, LocalDate end) {
-        if (start.isAfter(end)) {
-            throw new IllegalStateException("Start cannot be after end");
+    public List<MonthlyExpenseDto> getMonthlyExpenses(DateRange range) {
+        if (range.start().isAfter(range.end())) {
+            throw new IllegalStateException("Start of date range can not be after end");
         }
-        return transactionRepository.getMonthlyExpenses(getCurrentUserId(), start, end)
+        logger.debug("getMonthlyExpenses() for range from: {}, to: {}", range.start(), range.end());
+        return transactionRepository
+                .getMonthlyTotals(getCurrentUserId(), CategoryType.EXPENSE, range.start(), range.end())
                 .stream()
                 .map(projection -> new MonthlyExpenseDto(
-                        projection.getMonth().format(FORMAT),
+                        YearMonth.of(projection.getYear(), projection.getMonth()).format(FORMAT),
                         projection.getTotalAmount()))
                 .toList();
     }
 
     /**
-     * Возвращает поступления, траты и баланс за указанный месяц
+     * Возвращает поступления, суммы лимитов бюджетов, траты и баланс за указанный
+     * месяц. Суммы бюджетов и суммы транзакций по типам читаются параллельно
      * @param month месяц, для рассчета поступлений, трат и баланса
      * @return дто, содержащее поступления, траты и баланс за указанный месяц
      */
     public SummaryDto getSummary(YearMonth month) {
-        var projection = transactionRepository.getSummary(getCurrentUserId(), month.atDay(1), month.atEndOfMonth());
+        Long userId = getCurrentUserId();
+        return analyticsCache.get(userId, AnalyticsCache.Endpoint.SQL_SUMMARY, month, () -> queryFanOut.join(
+                () -> transactionRepository.getTotalsByType(userId, month.atDay(1), month.atEndOfMonth()),
+                () -> budgetRepository.sumAmountByUserIdAndMonth(userId, month),
+                (totals, budgets) -> {
+                    BigDecimal income = budgets.orElse(BigDecimal.ZERO);
+                    BigDecimal expense = BigDecimal.ZERO;
+
+                    for (CategoryTypeTotalProjection t : totals) {
+                        if (t.getType() == CategoryType.INCOME) {
+                            income = income.add(t.getTotal());
+                        } else {
+                            expense = expense.add(t.getTotal());
+                        }
+                    }
+
+                    return new SummaryDto(income, expense, income.subtract(expense));
+                }));
+    }
+
+    /**
+     * Возвращает тренды расходов по месяцам за указанный период в целом и по
+     * категориям: сумму, изменение к предыдущему месяцу и к тому же месяцу
+     * прошлого года, скользящие средние за 3, 6 и 12 месяцев
+     * <p>
+     * Тренды прошедших месяцев кэшируются по месяцам, одним запросом
+     * рассчитываются только месяцы, которых нет в кэше. Текущий и будущие месяцы
+     * рассчитываются при каждом запросе. Категории без расходов за период и
+     * предшествующие ему 12 месяцев не возвращаются, категории сортируются по
+     * убыванию суммы расходов за период
+     * @param from первый месяц периода
+     * @param to последний месяц периода
+     * @return тренды по месяцам в хронологическом порядке
+     * @throws IllegalStateException если {@code from} идет после {@code to}
+     * @throws IllegalArgumentException если период длиннее
+     *                                  {@value #MAX_TREND_MONTHS} месяцев
+     */
+    public TrendsDto getTrends(YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new IllegalStateException("Start of date range can not be after end");
+        }
+        int size = (int) from.until(to, ChronoUnit.MONTHS) + 1;
+        if (size > MAX_TREND_MONTHS) {
+            throw new IllegalArgumentException("Trend range can not exceed " + MAX_TREND_MONTHS + " months");
+        }
+        Long userId = getCurrentUserId();
+        YearMonth current = YearMonth.now();
+        long version = analyticsCache.version(userId);
 
-        var income = projection.getIncome() != null ? projection.getIncome() : BigDecimal.ZERO;
-        var expense = projection.getExpense() != null ? projection.getExpense() : BigDecimal.ZERO;
+        List<MonthTrends> months = new ArrayList<>(size);
+        YearMonth firstMissing = null;
+        YearMonth lastMissing = null;
+        for (int i = 0; i < size; i++) {
+            YearMonth month = from.plusMonths(i);
+            MonthTrends cached = month.isBefore(current)
+                    ? analyticsCache.getIfPresent(userId, AnalyticsCache.Endpoint.TRENDS, month, version)
+                    : null;
+            months.add(cached);
+            if (cached == null) {
+                firstMissing = firstMissing == null ? month : firstMissing;
+                lastMissing = month;
+            }
+        }
 
-        return new SummaryDto(income, expense, income.subtract(expense));
+        if (firstMissing != null) {
+            logger.debug("getTrends() loading months from: {}, to: {}", firstMissing, lastMissing);
+            Map<YearMonth, MonthTrends> loaded = loadTrends(userId, firstMissing, lastMissing);
+            for (int i = 0; i < size; i++) {
+                YearMonth month = from.plusMonths(i);
+                if (months.get(i) == null) {
+                    MonthTrends trends = loaded.get(month);
+                    months.set(i, trends);
+                    if (month.isBefore(current)) {
+                        analyticsCache.put(userId, AnalyticsCache.Endpoint.TRENDS, month, version, trends);
+                    }
+                }
+            }
+        }
+        return toTrendsDto(months);
+    }
+
+    /**
+     * Служебный метод, рассчитывающий тренды месяцев периода одним запросом
+     * @param userId идентификатор пользователя
+     * @param first первый месяц периода
+     * @param last последний месяц периода
+     * @return тренды по месяцам
+     */
+    private Map<YearMonth, MonthTrends> loadTrends(Long userId, YearMonth first, YearMonth last) {
+        Map<YearMonth, MonthlyTrendDto> totals = new HashMap<>();
+        Map<YearMonth, List<CategoryMonthTrend>> categories = new HashMap<>();
+        for (MonthlyTrendProjection p : transactionRepository.getMonthlyTrends(userId,
+                first.minusMonths(AnalyticsCache.TREND_WINDOW_MONTHS).atDay(1), first.atDay(1),
+                last.plusMonths(1).atDay(1))) {
+            YearMonth month = YearMonth.of(p.getYear(), p.getMonth());
+            MonthlyTrendDto trend = new MonthlyTrendDto(month.format(FORMAT), p.getTotal(), p.getMonthOverMonth(),
+                    p.getYearOverYear(), p.getMovingAverage3(), p.getMovingAverage6(), p.getMovingAverage12());
+            if (p.getCategoryId() == null) {
+                totals.put(month, trend);
+            } else if (!isZero(trend)) {
+                categories.computeIfAbsent(month, m -> new ArrayList<>())
+                        .add(new CategoryMonthTrend(p.getCategoryId(), p.getCategoryName(), trend));
+            }
+        }
+
+        Map<YearMonth, MonthTrends> result = new HashMap<>();
+        totals.forEach((month, total) -> result.put(month,
+                new MonthTrends(total, List.copyOf(categories.getOrDefault(month, List.of())))));
+        return result;
+    }
+
+    /**
+     * Служебный метод, собирающий тренды месяцев в ответ. Месяцы, в которых
+     * тренда категории нет, заполняются нулями
+     * @param months тренды месяцев периода в хронологическом порядке
+     * @return дто с трендами периода
+     */
+    private static TrendsDto toTrendsDto(List<MonthTrends> months) {
+        Map<UUID, String> names = new LinkedHashMap<>();
+        Map<UUID, MonthlyTrendDto[]> byCategory = new HashMap<>();
+        for (int i = 0; i < months.size(); i++) {
+            for (CategoryMonthTrend c : months.get(i).categories()) {
+                names.putIfAbsent(c.categoryId(), c.category());
+                byCategory.computeIfAbsent(c.categoryId(), id -> new MonthlyTrendDto[months.size()])[i] = c.trend();
+            }
+        }
+
+        List<CategoryTrendDto> categories = new ArrayList<>();
+        names.forEach((id, name) -> {
+            MonthlyTrendDto[] trends = byCategory.get(id);
+            for (int i = 0; i < trends.length; i++) {
+                if (trends[i] == null) {
+                    trends[i] = new MonthlyTrendDto(months.get(i).total().month(), ZERO, ZERO, ZERO, ZERO, ZERO, ZERO);
+                }
+            }
+            categories.add(new CategoryTrendDto(id, name, List.of(trends)));
+        });
+        categories.sort(Comparator
+                .comparing((CategoryTrendDto c) -> c.months().stream()
+                        .map(MonthlyTrendDto::total)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add))
+                .reversed()
+                .thenComparing(CategoryTrendDto::category));
+
+        return new TrendsDto(months.stream().map(MonthTrends::total).toList(), categories);
+    }
+
+    private static boolean isZero(MonthlyTrendDto trend) {
+        return trend.total().signum() == 0
+                && trend.monthOverMonth().signum() == 0
+                && trend.yearOverYear().signum() == 0
+                && trend.movingAverage3().signum() == 0
+                && trend.movingAverage6().signum() == 0
+                && trend.movingAverage12().signum() == 0;
     }
 
     /**
@@ -106,4 +305,14 @@ public class SqlAnalyticsService {
         return userService.getCurrentUserId();
     }
 
+    /**
+     * Тренды месяца: общий итог и категории с расходами за месяц или
+     * предшествующие ему 12 месяцев
+     */
+    private record MonthTrends(MonthlyTrendDto total, List<CategoryMonthTrend> categories) {
+    }
+
+    private record CategoryMonthTrend(UUID categoryId, String category, MonthlyTrendDto trend) {
+    }
+
 }
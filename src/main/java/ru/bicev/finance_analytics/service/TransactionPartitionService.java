@@ -0,0 +1,47 @@
+package ru.bicev.finance_analytics.service;
+
+import java.time.YearMonth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import ru.bicev.finance_analytics.repo.TransactionRepository;
+
+/**
+ * Сервис, поддерживающий месячные секции таблицы транзакций
+ * <p>
+ * Секции создаются заранее, чтобы транзакции новых месяцев не попадали в
+ * секцию по умолчанию. Если такие транзакции уже есть, они переносятся в
+ * созданную секцию
+ */
+@Service
+public class TransactionPartitionService {
+
+    private final TransactionRepository transactionRepository;
+
+    @Value("${app.transactions.partitions-ahead:3}")
+    private int monthsAhead = 3;
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionPartitionService.class);
+
+    public TransactionPartitionService(TransactionRepository transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    /**
+     * Создает недостающие секции указанного месяца и следующих за ним месяцев
+     *
+     * @param from первый месяц
+     * @return количество созданных секций
+     */
+    @Transactional
+    public int createPartitions(YearMonth from) {
+        int created = transactionRepository.createPartitions(from.atDay(1), monthsAhead + 1);
+        logger.info("createPartitions() from: {}; months ahead: {}; created: {}", from, monthsAhead, created);
+        return created;
+    }
+
+}
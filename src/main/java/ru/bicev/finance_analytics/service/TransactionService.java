@@ -3,16 +3,33 @@ package ru.bicev.finance_analytics.service;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import ru.bicev.finance_analytics.dto.BatchItemErrorDto;
+import ru.bicev.finance_analytics.dto.FieldErrorDto;
+import ru.bicev.finance_analytics.dto.TransactionBatchResultDto;
+import ru.bicev.finance_analytics.dto.TransactionCursor;
 import ru.bicev.finance_analytics.dto.TransactionDto;
+import ru.bicev.finance_analytics.dto.TransactionPageDto;
 import ru.bicev.finance_analytics.dto.TransactionRequest;
 import ru.bicev.finance_analytics.entity.Category;
 import ru.bicev.finance_analytics.entity.Transaction;
@@ -30,14 +47,26 @@ public class TransactionService {
     private final UserService userService;
     private final TransactionRepository transactionRepository;
     private final CategoryRepository categoryRepository;
+    private final DailyCategoryTotalService dailyCategoryTotalService;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final DataVersionService dataVersionService;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int batchSize;
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionService.class);
 
     public TransactionService(UserService userService, TransactionRepository transactionRepository,
-            CategoryRepository categoryRepository) {
+            CategoryRepository categoryRepository, DailyCategoryTotalService dailyCategoryTotalService,
+            EntityManager entityManager, Validator validator, DataVersionService dataVersionService) {
         this.userService = userService;
         this.transactionRepository = transactionRepository;
         this.categoryRepository = categoryRepository;
+        this.dailyCategoryTotalService = dailyCategoryTotalService;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.dataVersionService = dataVersionService;
     }
 
     /**
@@ -61,7 +90,74 @@ public class TransactionService {
                 .isPlanned(request.isPlanned())
                 .build();
         logger.debug("createTransaction() for user: {}", user.getId());
-        return toDto(transactionRepository.save(transaction));
+        Transaction saved = transactionRepository.save(transaction);
+        dailyCategoryTotalService.add(saved);
+        dataVersionService.bump(user.getId());
+        return toDto(saved);
+    }
+
+    /**
+     * Создает пачку транзакций для текущего пользователя за один запрос
+     * <p>
+     * Все категории из пачки загружаются одним запросом, транзакции вставляются
+     * JDBC-батчами. Некорректные элементы пропускаются и возвращаются в списке
+     * ошибок с их индексом, остальные сохраняются
+     * 
+     * @param requests список запросов на создание транзакций
+     * @return количество полученных и созданных транзакций и ошибки по элементам
+     */
+    @Transactional
+    public TransactionBatchResultDto createTransactions(List<TransactionRequest> requests) {
+        User user = getCurrentUser();
+
+        Set<UUID> categoryIds = requests.stream()
+                .filter(Objects::nonNull)
+                .map(TransactionRequest::categoryId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<UUID, Category> categories = categoryRepository.findAllByUserIdAndIdIn(user.getId(), categoryIds)
+                .stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        List<BatchItemErrorDto> errors = new ArrayList<>();
+        List<Transaction> created = new ArrayList<>(requests.size());
+        List<Transaction> chunk = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < requests.size(); i++) {
+            TransactionRequest request = requests.get(i);
+            List<FieldErrorDto> itemErrors = validate(request, categories);
+            if (!itemErrors.isEmpty()) {
+                errors.add(new BatchItemErrorDto(i, itemErrors));
+                continue;
+            }
+
+            chunk.add(Transaction.builder()
+                    .user(user)
+                    .category(categories.get(request.categoryId()))
+                    .date(request.date())
+                    .amount(request.amount().setScale(2, RoundingMode.HALF_UP))
+                    .createdAt(now)
+                    .description(request.description())
+                    .isPlanned(request.isPlanned())
+                    .build());
+
+            if (chunk.size() == batchSize) {
+                created.addAll(saveChunk(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            created.addAll(saveChunk(chunk));
+        }
+
+        dailyCategoryTotalService.addAll(created);
+        if (!created.isEmpty()) {
+            dataVersionService.bump(user.getId());
+        }
+        logger.debug("createTransactions() for user: {}; received: {}; created: {}", user.getId(), requests.size(),
+                created.size());
+        return new TransactionBatchResultDto(requests.size(), created.size(), errors);
     }
 
     /**
@@ -85,7 +181,25 @@ public class TransactionService {
                 .isPlanned(request.isPlanned())
                 .build();
         logger.debug("createTransactionForUser() for user: {}", user.getId());
-        return transactionRepository.save(transaction);
+        Transaction saved = transactionRepository.save(transaction);
+        dailyCategoryTotalService.add(saved);
+        dataVersionService.bump(user.getId());
+        return saved;
+    }
+
+    /**
+     * Служебный метод, сохраняющий готовые транзакции одним JDBC-батчем и
+     * обновляющий дневные суммы категорий
+     * @param transactions транзакции для сохранения
+     * @return сохраненные транзакции
+     */
+    @Transactional
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        List<Transaction> saved = transactionRepository.saveAll(transactions);
+        dailyCategoryTotalService.addAll(saved);
+        dataVersionService.bump(saved.stream().map(transaction -> transaction.getUser().getId()).toList());
+        logger.debug("saveAll() transactions: {}", saved.size());
+        return saved;
     }
 
     /**
@@ -95,11 +209,70 @@ public class TransactionService {
     @Transactional(readOnly = true)
     public List<TransactionDto> getTransactions() {
         logger.debug("getTransactions()");
-        return transactionRepository.findAllByUserId(getCurrentUserId()).stream()
+        return transactionRepository.findAllByUserIdOrderByDateAsc(getCurrentUserId()).stream()
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Возвращает страницу транзакций текущего пользователя, упорядоченных по дате
+     * и идентификатору
+     * <p>
+     * Страницы перебираются по курсору (ключ последней записи предыдущей
+     * страницы), поэтому стоимость запроса не зависит от глубины пролистывания
+     * 
+     * @param cursor курсор, полученный с предыдущей страницей, или {@code null}
+     *               для первой страницы
+     * @param size   максимальное количество транзакций на странице
+     * @return страница транзакций и курсор следующей страницы ({@code null}, если
+     *         страница последняя)
+     * @throws IllegalArgumentException если курсор некорректен
+     */
+    @Transactional(readOnly = true)
+    public TransactionPageDto getTransactionsPage(String cursor, int size) {
+        Long userId = getCurrentUserId();
+        Limit limit = Limit.of(size + 1);
+
+        List<Transaction> transactions;
+        if (cursor == null || cursor.isBlank()) {
+            transactions = transactionRepository.findPageByUserId(userId, limit);
+        } else {
+            TransactionCursor after = TransactionCursor.decode(cursor);
+            transactions = transactionRepository.findPageByUserIdAfter(userId, after.date(), after.id(), limit);
+        }
+
+        List<TransactionDto> items = transactions.stream()
+                .limit(size)
+                .map(this::toDto)
+                .toList();
+        String nextCursor = transactions.size() > size
+                ? TransactionCursor.of(items.get(items.size() - 1)).encode()
+                : null;
+        logger.debug("getTransactionsPage() for user: {}; size: {}", userId, size);
+        return new TransactionPageDto(items, nextCursor);
+    }
+
+    /**
+     * Передает все транзакции текущего пользователя в обработчик по одной,
+     * упорядоченными по дате и идентификатору
+     * <p>
+     * Транзакции читаются из базы потоком и сразу отсоединяются от контекста
+     * персистентности, поэтому расход памяти не зависит от размера истории
+     * 
+     * @param consumer обработчик транзакций
+     */
+    @Transactional(readOnly = true)
+    public void streamTransactions(Consumer<TransactionDto> consumer) {
+        Long userId = getCurrentUserId();
+        logger.debug("streamTransactions() for user: {}", userId);
+        try (Stream<Transaction> transactions = transactionRepository.streamAllByUserId(userId)) {
+            transactions.forEach(transaction -> {
+                consumer.accept(toDto(transaction));
+                entityManager.detach(transaction);
+            });
+        }
+    }
+
     /**
      * Возвращает все транзакции текущего пользователя за указанный период
      * @param from дата начала периода
@@ -114,7 +287,7 @@ public class TransactionService {
             throw new IllegalArgumentException("From-date cannot be after to-date");
         }
         logger.debug("getTransactionsByDateBetween() from: {}; to: {}", from.toString(), to.toString());
-        return transactionRepository.findAllByUserIdAndDateBetween(
+        return transactionRepository.findAllByUserIdAndDateBetweenOrderByDateAsc(
                 getCurrentUserId(), from, to)
                 .stream()
                 .map(this::toDto)
@@ -148,6 +321,9 @@ public class TransactionService {
         Transaction transaction = transactionRepository.findByIdAndUserId(transactionId, userId)
                 .orElseThrow(() -> new NotFoundException("Transaction not found"));
 
+        dailyCategoryTotalService.subtract(userId, transaction.getCategory().getId(), transaction.getDate(),
+                transaction.getAmount());
+
         if (request.amount() != null) {
             transaction.setAmount(request.amount().setScale(2, RoundingMode.HALF_UP));
         }
@@ -167,7 +343,10 @@ public class TransactionService {
             transaction.setCategory(category);
         }
         logger.debug("updateTransaction() with id: {}", transactionId.toString());
-        return toDto(transactionRepository.save(transaction));
+        Transaction saved = transactionRepository.save(transaction);
+        dailyCategoryTotalService.add(saved);
+        dataVersionService.bump(userId);
+        return toDto(saved);
     }
 
     /**
@@ -182,14 +361,16 @@ public class TransactionService {
                 .orElseThrow(() -> new NotFoundException("Transaction not found"));
         logger.debug("deleteTransaction() with id: {}", transactionId.toString());
         transactionRepository.delete(transaction);
+        dailyCategoryTotalService.subtract(transaction);
+        dataVersionService.bump(transaction.getUser().getId());
     }
 
     /**
      * Служебный метод возвращающий текущего пользователя
-     * @return текущий пользователь
+     * @return ссылка на текущего пользователя без загрузки из бд
      */
     private User getCurrentUser() {
-        return userService.getCurrentUser();
+        return userService.getCurrentUserReference();
     }
 
     /**
@@ -212,6 +393,41 @@ public class TransactionService {
                 .orElseThrow(() -> new NotFoundException("Category not found"));
     }
 
+    /**
+     * Служебный метод, проверяющий элемент пачки транзакций
+     * 
+     * @param request    элемент пачки
+     * @param categories категории пользователя, на которые ссылается пачка
+     * @return список ошибок элемента, пустой если элемент корректен
+     */
+    private List<FieldErrorDto> validate(TransactionRequest request, Map<UUID, Category> categories) {
+        if (request == null) {
+            return List.of(new FieldErrorDto("", "Transaction cannot be null"));
+        }
+        List<FieldErrorDto> errors = new ArrayList<>();
+        for (ConstraintViolation<TransactionRequest> violation : validator.validate(request)) {
+            errors.add(new FieldErrorDto(violation.getPropertyPath().toString(), violation.getMessage()));
+        }
+        if (request.categoryId() != null && !categories.containsKey(request.categoryId())) {
+            errors.add(new FieldErrorDto("categoryId", "Category not found"));
+        }
+        return errors;
+    }
+
+    /**
+     * Служебный метод, сохраняющий часть пачки одним JDBC-батчем и очищающий
+     * контекст персистентности
+     * 
+     * @param chunk транзакции для сохранения
+     * @return сохраненные транзакции
+     */
+    private List<Transaction> saveChunk(List<Transaction> chunk) {
+        List<Transaction> saved = transactionRepository.saveAll(chunk);
+        entityManager.flush();
+        entityManager.clear();
+        return saved;
+    }
+
     /**
      * Служебный метод преобразующий транзакцию-сущность в транзакцию-дто
      * @param transaction сущность для преобразования
@@ -1,7 +1,6 @@
 package ru.bicev.finance_analytics.service;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,49 +20,45 @@ import ru.bicev.finance_analytics.security.CustomUserPrincipal;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final LoginActivityBuffer loginActivityBuffer;
 
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, LoginActivityBuffer loginActivityBuffer) {
         this.userRepository = userRepository;
+        this.loginActivityBuffer = loginActivityBuffer;
     }
 
     /**
-     * Создает или получает пользователя соответствующего провайдеру и OAuth2User
+     * Создает пользователя, соответствующего провайдеру и OAuth2User, если его
+     * еще нет, и отмечает вход
+     * <p>
+     * Пользователь создается одним запросом upsert по провайдеру и
+     * идентификатору провайдера, поэтому одновременные первые входы не создают
+     * дубликатов. Время входа записывается отложенно через
+     * {@link LoginActivityBuffer}
      * 
      * @param provider   провайдер данных аутенфикации
      * @param oAuth2User пользователь аутентификации
-     * @return данные, соответсвеющие пользоваетлю в системе
+     * @return идентификатор пользователя в системе
      */
     @Transactional
-    public User getOrCreateOAuthUser(String provider, OAuth2User oAuth2User) {
+    public Long provisionOAuthUser(String provider, OAuth2User oAuth2User) {
         String providerId = extractProviderId(provider, oAuth2User);
-
-        logger.debug("getOrCreateOAuthUser(), provider: {}; providerId: {}", provider, providerId);
-        Optional<User> existing = userRepository.findByProviderAndProviderId(provider, providerId);
-
-        if (existing.isPresent()) {
-            User u = existing.get();
-            u.setLastLoginAt(LocalDateTime.now());
-            logger.debug("User is found in db : {}", u.getId());
-            return userRepository.save(u);
-        }
-
-        String email = extractEmail(provider, oAuth2User);
-        String name = extractName(provider, oAuth2User);
-        String avatar = extractAvatar(provider, oAuth2User);
-
-        User newUser = User.builder()
-                .provider(provider)
-                .providerId(providerId)
-                .email(email)
-                .name(name)
-                .avatarUrl(avatar)
-                .createdAt(LocalDateTime.now())
-                .lastLoginAt(LocalDateTime.now())
-                .build();
-        logger.debug("User created");
-        return userRepository.save(newUser);
+        LocalDateTime now = LocalDateTime.now();
+
+        logger.debug("provisionOAuthUser(), provider: {}; providerId: {}", provider, providerId);
+        Long userId = userRepository.upsertByProvider(provider, providerId,
+                extractEmail(provider, oAuth2User),
+                extractName(provider, oAuth2User),
+                extractAvatar(provider, oAuth2User),
+                now)
+                .or(() -> userRepository.findByProviderAndProviderId(provider, providerId).map(User::getId))
+                .orElseThrow(() -> new IllegalStateException("User was not provisioned"));
+
+        loginActivityBuffer.record(userId, now);
+        logger.debug("User is provisioned: {}", userId);
+        return userId;
     }
 
     /**
@@ -96,6 +91,20 @@ public class UserService {
         return user;
     }
 
+    /**
+     * Служебный метод, который возвращает ссылку на текущего пользователя для
+     * заполнения внешних ключей
+     * <p>
+     * Ссылка не загружает пользователя из бд: запрос выполняется, только если
+     * прочитать поле, отличное от идентификатора. В пределах запроса повторные
+     * вызовы возвращают один и тот же объект из контекста персистентности
+     * 
+     * @return ссылка на текущего пользователя
+     */
+    public User getCurrentUserReference() {
+        return userRepository.getReferenceById(getCurrentUserId());
+    }
+
     /**
      * Служебный метод извлекающий идентификатор провайдера
      * 
@@ -0,0 +1,144 @@
+package ru.bicev.finance_analytics.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Накопитель сумм в копейках по целочисленным индексам (номер месяца, дня или
+ * категории относительно начала диапазона)
+ * <p>
+ * Суммы хранятся в массиве {@code long}, поэтому сложение не создает объектов,
+ * а {@link BigDecimal} создается только при чтении результата. Переполнение
+ * приводит к {@link ArithmeticException}, а не к тихому искажению суммы
+ */
+public final class CentsTotals {
+
+    private static final int SCALE = 2;
+
+    private final long[] totals;
+    private final boolean[] present;
+
+    /**
+     * @param size количество индексов
+     */
+    public CentsTotals(int size) {
+        this.totals = new long[size];
+        this.present = new boolean[size];
+    }
+
+    /**
+     * Прибавляет сумму к значению по индексу
+     *
+     * @param index  индекс
+     * @param amount сумма
+     * @throws ArithmeticException если сумма по индексу выходит за пределы
+     *                             {@code long}
+     */
+    public void add(int index, BigDecimal amount) {
+        addCents(index, toCents(amount));
+    }
+
+    /**
+     * Прибавляет сумму в копейках к значению по индексу
+     *
+     * @param index индекс
+     * @param cents сумма в копейках
+     * @throws ArithmeticException если сумма по индексу выходит за пределы
+     *                             {@code long}
+     */
+    public void addCents(int index, long cents) {
+        totals[index] = addExact(totals[index], cents);
+        present[index] = true;
+    }
+
+    /**
+     * Возвращает признак того, что по индексу была добавлена хотя бы одна сумма
+     *
+     * @param index индекс
+     * @return {@code true}, если по индексу есть данные
+     */
+    public boolean isPresent(int index) {
+        return present[index];
+    }
+
+    /**
+     * Возвращает сумму по индексу
+     *
+     * @param index индекс
+     * @return сумма с двумя знаками после запятой
+     */
+    public BigDecimal get(int index) {
+        return toAmount(totals[index]);
+    }
+
+    /**
+     * Возвращает количество индексов
+     *
+     * @return количество индексов
+     */
+    public int size() {
+        return totals.length;
+    }
+
+    /**
+     * Переводит сумму в копейки, округляя ее до двух знаков после запятой
+     *
+     * @param amount сумма
+     * @return сумма в копейках
+     * @throws ArithmeticException если сумма не помещается в {@code long}
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).movePointRight(SCALE).longValueExact();
+    }
+
+    /**
+     * Переводит копейки в сумму с двумя знаками после запятой
+     *
+     * @param cents сумма в копейках
+     * @return сумма
+     */
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Складывает суммы в копейках с проверкой переполнения
+     *
+     * @param a первая сумма
+     * @param b вторая сумма
+     * @return сумма
+     * @throws ArithmeticException если результат не помещается в {@code long}
+     */
+    public static long addExact(long a, long b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Amount total overflow");
+        }
+    }
+
+    /**
+     * Возвращает сквозной номер месяца даты, разность таких номеров дает индекс
+     * месяца внутри диапазона. Номер вычисляется в {@code long}, поэтому не
+     * переполняется для любых допустимых дат
+     *
+     * @param date дата
+     * @return номер месяца
+     */
+    public static long monthIndex(LocalDate date) {
+        return date.getYear() * 12L + date.getMonthValue() - 1;
+    }
+
+    /**
+     * Возвращает месяц по сквозному номеру из {@link #monthIndex(LocalDate)}
+     *
+     * @param monthIndex номер месяца
+     * @return месяц
+     */
+    public static YearMonth month(long monthIndex) {
+        return YearMonth.of(Math.toIntExact(Math.floorDiv(monthIndex, 12)), (int) Math.floorMod(monthIndex, 12) + 1);
+    }
+
+}
@@ -0,0 +1,6 @@
+package ru.bicev.finance_analytics.util;
+
+public enum JobRunStatus {
+    SUCCESS, FAILED
+
+}
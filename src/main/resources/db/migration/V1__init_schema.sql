@@ -0,0 +1,81 @@
+-- Исходная схема, ранее создававшаяся hibernate (ddl-auto: update).
+-- Существующие базы помечаются этой версией через baseline-on-migrate, поэтому
+-- файл должен описывать в точности эту схему, а новые объекты добавляются
+-- только следующими миграциями.
+
+CREATE TABLE app_user (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    provider varchar(255),
+    provider_id varchar(255),
+    email varchar(255),
+    name varchar(255),
+    avatar_url varchar(255),
+    created_at timestamp(6),
+    last_login_at timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE category (
+    id uuid NOT NULL,
+    user_id bigint NOT NULL,
+    name varchar(255),
+    type varchar(255) CHECK (type IN ('INCOME', 'EXPENSE')),
+    color varchar(255),
+    created_at timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_category_user FOREIGN KEY (user_id) REFERENCES app_user
+);
+
+CREATE TABLE transaction (
+    id uuid NOT NULL,
+    user_id bigint NOT NULL,
+    category_id uuid NOT NULL,
+    amount numeric(38, 2),
+    date date,
+    description varchar(255),
+    created_at timestamp(6),
+    is_planned boolean NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_transaction_user FOREIGN KEY (user_id) REFERENCES app_user,
+    CONSTRAINT fk_transaction_category FOREIGN KEY (category_id) REFERENCES category
+);
+
+CREATE TABLE recurring_transaction (
+    id uuid NOT NULL,
+    user_id bigint NOT NULL,
+    category_id uuid NOT NULL,
+    amount numeric(38, 2),
+    frequency varchar(255) CHECK (frequency IN ('WEEKLY', 'MONTHLY', 'YEARLY')),
+    description varchar(255),
+    next_execution_date date,
+    last_execution_date date,
+    is_active boolean NOT NULL,
+    created_at timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_recurring_transaction_user FOREIGN KEY (user_id) REFERENCES app_user,
+    CONSTRAINT fk_recurring_transaction_category FOREIGN KEY (category_id) REFERENCES category
+);
+
+CREATE TABLE budget (
+    id uuid NOT NULL,
+    user_id bigint NOT NULL,
+    category_id uuid NOT NULL,
+    amount numeric(38, 2),
+    month bytea,
+    created_at timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_budget_user FOREIGN KEY (user_id) REFERENCES app_user,
+    CONSTRAINT fk_budget_category FOREIGN KEY (category_id) REFERENCES category
+);
+
+CREATE TABLE budget_template (
+    id uuid NOT NULL,
+    user_id bigint,
+    category_id uuid,
+    amount numeric(38, 2) NOT NULL,
+    active boolean NOT NULL,
+    start_month bytea,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_budget_template_user FOREIGN KEY (user_id) REFERENCES app_user,
+    CONSTRAINT fk_budget_template_category FOREIGN KEY (category_id) REFERENCES category
+);
@@ -0,0 +1,51 @@
+-- Объекты, появившиеся после исходной схемы. Существующие базы помечаются
+-- версией 1 через baseline-on-migrate и получают их этой миграцией.
+
+-- Предрассчитанные дневные суммы транзакций по категориям
+CREATE TABLE daily_category_total (
+    id uuid NOT NULL,
+    user_id bigint NOT NULL,
+    category_id uuid NOT NULL,
+    date date NOT NULL,
+    total numeric(38, 2) NOT NULL,
+    transaction_count bigint NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_daily_category_total_user_category_date UNIQUE (user_id, category_id, date)
+);
+
+-- Суммы уже существующих транзакций, дальше таблица поддерживается приложением
+INSERT INTO daily_category_total (id, user_id, category_id, date, total, transaction_count)
+SELECT gen_random_uuid(), t.user_id, t.category_id, t.date, SUM(t.amount), COUNT(*)
+FROM transaction t
+WHERE t.date IS NOT NULL AND t.amount IS NOT NULL
+GROUP BY t.user_id, t.category_id, t.date;
+
+-- Аренда планировщика задач и история запусков
+CREATE TABLE scheduler_lock (
+    name varchar(64) NOT NULL,
+    owner_id varchar(255) NOT NULL,
+    locked_at timestamp(6) NOT NULL,
+    locked_until timestamp(6) NOT NULL,
+    fencing_token bigint NOT NULL,
+    PRIMARY KEY (name)
+);
+
+CREATE TABLE job_run (
+    id uuid NOT NULL,
+    job_name varchar(64) NOT NULL,
+    owner_id varchar(255) NOT NULL,
+    fencing_token bigint NOT NULL,
+    started_at timestamp(6) NOT NULL,
+    finished_at timestamp(6) NOT NULL,
+    duration_ms bigint NOT NULL,
+    rows_processed bigint NOT NULL,
+    status varchar(255) NOT NULL CHECK (status IN ('SUCCESS', 'FAILED')),
+    error varchar(1000),
+    PRIMARY KEY (id)
+);
+
+-- Бюджет категории на месяц единственный: ограничение служит ключом
+-- INSERT ... ON CONFLICT при генерации бюджетов по шаблонам. Существующие
+-- дубликаты нужно объединить до применения миграции.
+ALTER TABLE budget
+    ADD CONSTRAINT uk_budget_user_category_month UNIQUE (user_id, category_id, month);
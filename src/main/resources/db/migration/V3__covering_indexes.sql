@@ -0,0 +1,22 @@
+-- Транзакции пользователя за период: списки, постраничная выдача (date, id),
+-- аналитика по месяцам и дням без обращения к таблице
+CREATE INDEX idx_transaction_user_date ON transaction (user_id, date, id) INCLUDE (amount, category_id);
+
+-- Транзакции пользователя по категории за период (состояние бюджета)
+CREATE INDEX idx_transaction_user_category_date ON transaction (user_id, category_id, date);
+
+-- Дневные суммы пользователя за период по всем категориям
+CREATE INDEX idx_daily_category_total_user_date ON daily_category_total (user_id, date) INCLUDE (category_id, total);
+
+-- Поиск активных рекуррентных транзакций к исполнению
+CREATE INDEX idx_recurring_transaction_due ON recurring_transaction (next_execution_date) WHERE is_active;
+
+-- Рекуррентные транзакции пользователя по дате следующего списания
+CREATE INDEX idx_recurring_transaction_user_next ON recurring_transaction (user_id, next_execution_date);
+
+CREATE INDEX idx_category_user ON category (user_id);
+
+CREATE INDEX idx_budget_template_user ON budget_template (user_id);
+
+-- История запусков задачи
+CREATE INDEX idx_job_run_job_started ON job_run (job_name, started_at DESC);
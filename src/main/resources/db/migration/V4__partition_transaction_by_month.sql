@@ -0,0 +1,89 @@
+-- Таблица транзакций секционируется по месяцам даты транзакции.
+-- Запросы с условием по дате читают только секции нужных месяцев, старые
+-- месяцы отключаются без перезаписи данных:
+--   ALTER TABLE transaction DETACH PARTITION transaction_2024_01;
+-- Строки вне созданных секций попадают в transaction_default и переносятся
+-- в секцию месяца при ее создании.
+
+ALTER TABLE transaction RENAME TO transaction_unpartitioned;
+ALTER TABLE transaction_unpartitioned RENAME CONSTRAINT transaction_pkey TO transaction_unpartitioned_pkey;
+DROP INDEX idx_transaction_user_date;
+DROP INDEX idx_transaction_user_category_date;
+
+CREATE TABLE transaction (
+    id uuid NOT NULL,
+    user_id bigint NOT NULL,
+    category_id uuid NOT NULL,
+    amount numeric(38, 2),
+    date date NOT NULL,
+    description varchar(255),
+    created_at timestamp(6),
+    is_planned boolean NOT NULL,
+    CONSTRAINT transaction_pkey PRIMARY KEY (id, date),
+    CONSTRAINT fk_transaction_user FOREIGN KEY (user_id) REFERENCES app_user,
+    CONSTRAINT fk_transaction_category FOREIGN KEY (category_id) REFERENCES category
+) PARTITION BY RANGE (date);
+
+CREATE TABLE transaction_default PARTITION OF transaction DEFAULT;
+
+-- Создает секцию месяца, в который входит p_month, если ее еще нет.
+-- Строки этого месяца из секции по умолчанию переносятся в новую секцию.
+CREATE FUNCTION create_transaction_partition(p_month date) RETURNS boolean
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_start date := date_trunc('month', p_month)::date;
+    v_end date := (date_trunc('month', p_month) + interval '1 month')::date;
+    v_name text := 'transaction_' || to_char(p_month, 'YYYY_MM');
+BEGIN
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE transaction INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_name);
+    EXECUTE format('WITH moved AS (DELETE FROM transaction_default WHERE date >= %L AND date < %L RETURNING *) '
+        || 'INSERT INTO %I SELECT * FROM moved', v_start, v_end, v_name);
+    EXECUTE format('ALTER TABLE transaction ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+        v_name, v_start, v_end);
+    RETURN true;
+END
+$$;
+
+-- Создает недостающие секции p_months месяцев начиная с месяца p_from,
+-- возвращает количество созданных секций
+CREATE FUNCTION create_transaction_partitions(p_from date, p_months integer) RETURNS integer
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_created integer := 0;
+BEGIN
+    FOR i IN 0 .. p_months - 1 LOOP
+        IF create_transaction_partition((date_trunc('month', p_from) + make_interval(months => i))::date) THEN
+            v_created := v_created + 1;
+        END IF;
+    END LOOP;
+    RETURN v_created;
+END
+$$;
+
+-- Секции для месяцев с данными за последние 10 лет и на год вперед. Даты
+-- вводятся пользователями, поэтому диапазон ограничен: строки вне него (в том
+-- числе с ошибочными датами вроде 0001-01-01) остаются в transaction_default
+DO $$
+DECLARE
+    v_oldest date := date_trunc('month', CURRENT_DATE - interval '10 years');
+    v_from date := GREATEST(date_trunc('month', LEAST(COALESCE((SELECT min(date) FROM transaction_unpartitioned),
+        CURRENT_DATE), CURRENT_DATE)), v_oldest);
+    v_to date := date_trunc('month', CURRENT_DATE + interval '12 months');
+BEGIN
+    PERFORM create_transaction_partitions(v_from,
+        ((EXTRACT(YEAR FROM v_to) - EXTRACT(YEAR FROM v_from)) * 12
+            + EXTRACT(MONTH FROM v_to) - EXTRACT(MONTH FROM v_from))::integer + 1);
+END
+$$;
+
+INSERT INTO transaction (id, user_id, category_id, amount, date, description, created_at, is_planned)
+SELECT id, user_id, category_id, amount, date, description, created_at, is_planned
+FROM transaction_unpartitioned;
+
+DROP TABLE transaction_unpartitioned;
+
+CREATE INDEX idx_transaction_user_date ON transaction (user_id, date, id) INCLUDE (amount, category_id);
+CREATE INDEX idx_transaction_user_category_date ON transaction (user_id, category_id, date);
@@ -0,0 +1,19 @@
+-- Снимки закрытых месяцев: показатели дашборда пользователя за месяц в JSON.
+-- Изменение данных закрытого месяца помечает снимок устаревшим и увеличивает
+-- revision, пересчитанный снимок сохраняется, только если revision не
+-- изменилась за время пересчета.
+CREATE TABLE month_snapshot (
+    id uuid NOT NULL,
+    user_id bigint NOT NULL,
+    month date NOT NULL,
+    data text,
+    stale boolean NOT NULL,
+    revision bigint NOT NULL,
+    computed_at timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_month_snapshot_user_month UNIQUE (user_id, month),
+    CONSTRAINT fk_month_snapshot_user FOREIGN KEY (user_id) REFERENCES app_user
+);
+
+-- Поиск устаревших снимков для пересчета
+CREATE INDEX idx_month_snapshot_stale ON month_snapshot (month) WHERE stale;
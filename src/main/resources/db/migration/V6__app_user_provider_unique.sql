@@ -0,0 +1,6 @@
+-- Пользователь однозначно определяется провайдером и его идентификатором:
+-- ограничение служит ключом upsert при входе и исключает дубликаты при
+-- одновременном первом входе. Существующие дубликаты нужно объединить до
+-- применения миграции.
+ALTER TABLE app_user
+    ADD CONSTRAINT uk_app_user_provider UNIQUE (provider, provider_id);
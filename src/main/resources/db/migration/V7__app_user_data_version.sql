@@ -0,0 +1,5 @@
+-- Версия данных пользователя: увеличивается в той же транзакции, что и любое
+-- изменение его транзакций, категорий, бюджетов, шаблонов бюджетов и
+-- рекуррентных транзакций. Служит основой ETag ответов на GET-запросы.
+ALTER TABLE app_user
+    ADD COLUMN data_version bigint NOT NULL DEFAULT 0;
@@ -0,0 +1,32 @@
+package ru.bicev.finance_analytics.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+public class ReplicaDataSourceConfigTest {
+
+    @Test
+    void testCheckReadYourWritesWindow_coversLagAndHealthCheck() {
+        assertDoesNotThrow(() -> ReplicaDataSourceConfig.checkReadYourWritesWindow(Duration.ofSeconds(20),
+                Duration.ofSeconds(10), Duration.ofSeconds(10)));
+    }
+
+    @Test
+    void testCheckReadYourWritesWindow_shorterThanLag() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> ReplicaDataSourceConfig.checkReadYourWritesWindow(Duration.ofSeconds(5),
+                        Duration.ofSeconds(10), Duration.ofSeconds(10)));
+
+        assertTrue(e.getMessage().contains("read-your-writes-window"));
+    }
+
+    @Test
+    void testCheckReadYourWritesWindow_shorterThanLagPlusHealthCheck() {
+        assertThrows(IllegalStateException.class, () -> ReplicaDataSourceConfig.checkReadYourWritesWindow(
+                Duration.ofSeconds(15), Duration.ofSeconds(10), Duration.ofSeconds(10)));
+    }
+
+}
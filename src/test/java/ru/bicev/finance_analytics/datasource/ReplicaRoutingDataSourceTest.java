@@ -0,0 +1,222 @@
+package ru.bicev.finance_analytics.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+
+import ru.bicev.finance_analytics.security.CustomUserPrincipal;
+
+@ExtendWith(MockitoExtension.class)
+public class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica1;
+
+    @Mock
+    private DataSource replica2;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection1;
+
+    @Mock
+    private Connection replicaConnection2;
+
+    private ReadYourWritesGuard guard;
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        guard = new ReadYourWritesGuard(Duration.ofMinutes(1), 100);
+        dataSource = new ReplicaRoutingDataSource(primary, List.of(replica1, replica2), guard, Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void replicaLag(Connection connection, double lagSeconds) throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        when(rs.getDouble(1)).thenReturn(lagSeconds);
+    }
+
+    private void replicaVersion(Connection connection, long version) throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        when(rs.getLong(1)).thenReturn(version);
+    }
+
+    private void authenticate(Long userId) {
+        CustomUserPrincipal principal = new CustomUserPrincipal(userId, Map.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @Test
+    void testGetConnection_beforeHealthCheck_usesPrimary() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        verifyNoInteractions(replica1, replica2);
+    }
+
+    @Test
+    void testGetConnection_roundRobin() throws SQLException {
+        when(replica1.getConnection()).thenReturn(replicaConnection1);
+        when(replica2.getConnection()).thenReturn(replicaConnection2);
+        replicaLag(replicaConnection1, 0);
+        replicaLag(replicaConnection2, 0);
+        dataSource.checkHealth();
+
+        assertEquals(2, dataSource.getHealthyReplicaCount());
+        assertSame(replicaConnection1, dataSource.getConnection());
+        assertSame(replicaConnection2, dataSource.getConnection());
+        assertSame(replicaConnection1, dataSource.getConnection());
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    void testGetConnection_skipsLaggingReplica() throws SQLException {
+        when(replica1.getConnection()).thenReturn(replicaConnection1);
+        when(replica2.getConnection()).thenReturn(replicaConnection2);
+        replicaLag(replicaConnection1, 30);
+        replicaLag(replicaConnection2, 1.5);
+        dataSource.checkHealth();
+
+        assertEquals(1, dataSource.getHealthyReplicaCount());
+        assertSame(replicaConnection2, dataSource.getConnection());
+        assertSame(replicaConnection2, dataSource.getConnection());
+    }
+
+    @Test
+    void testGetConnection_unavailableReplicas_fallbackToPrimary() throws SQLException {
+        when(replica1.getConnection()).thenReturn(replicaConnection1);
+        when(replica2.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        replicaLag(replicaConnection1, 0);
+        dataSource.checkHealth();
+
+        when(replica1.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertEquals(0, dataSource.getHealthyReplicaCount());
+    }
+
+    @Test
+    void testGetConnection_withCredentials_usesPrimary() throws SQLException {
+        when(replica1.getConnection()).thenReturn(replicaConnection1);
+        when(replica2.getConnection()).thenReturn(replicaConnection2);
+        when(primary.getConnection("user", "secret")).thenReturn(primaryConnection);
+        replicaLag(replicaConnection1, 0);
+        replicaLag(replicaConnection2, 0);
+        dataSource.checkHealth();
+
+        assertSame(primaryConnection, dataSource.getConnection("user", "secret"));
+        verify(replica1, never()).getConnection("user", "secret");
+    }
+
+    @Test
+    void testGetConnection_recentWrite_usesPrimary() throws SQLException {
+        when(replica1.getConnection()).thenReturn(replicaConnection1);
+        when(replica2.getConnection()).thenReturn(replicaConnection2);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        replicaLag(replicaConnection1, 0);
+        replicaLag(replicaConnection2, 0);
+        dataSource.checkHealth();
+
+        authenticate(1L);
+        TransactionExecution write = mock(TransactionExecution.class);
+        when(write.isReadOnly()).thenReturn(false);
+        guard.afterCommit(write, null);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+
+        authenticate(2L);
+        assertSame(replicaConnection1, dataSource.getConnection());
+    }
+
+    @Test
+    void testGetConnection_replicaBehindRequiredVersion_skipped() throws SQLException {
+        when(replica1.getConnection()).thenReturn(replicaConnection1);
+        when(replica2.getConnection()).thenReturn(replicaConnection2);
+        replicaLag(replicaConnection1, 0);
+        replicaLag(replicaConnection2, 0);
+        dataSource.checkHealth();
+
+        authenticate(1L);
+        guard.requireVersion(1L, 5);
+        replicaVersion(replicaConnection1, 4);
+        replicaVersion(replicaConnection2, 5);
+
+        assertSame(replicaConnection2, dataSource.getConnection());
+        verify(replicaConnection1, times(2)).close();
+        assertEquals(2, dataSource.getHealthyReplicaCount());
+    }
+
+    @Test
+    void testGetConnection_allReplicasBehindRequiredVersion_usesPrimary() throws SQLException {
+        when(replica1.getConnection()).thenReturn(replicaConnection1);
+        when(replica2.getConnection()).thenReturn(replicaConnection2);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        replicaLag(replicaConnection1, 0);
+        replicaLag(replicaConnection2, 0);
+        dataSource.checkHealth();
+
+        authenticate(1L);
+        guard.requireVersion(1L, 5);
+        guard.requireVersion(1L, 3);
+        replicaVersion(replicaConnection1, 4);
+        replicaVersion(replicaConnection2, 4);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+
+        authenticate(2L);
+        assertSame(replicaConnection1, dataSource.getConnection());
+    }
+
+    @Test
+    void testAfterCommit_readOnlyOrFailed_notMarked() {
+        authenticate(1L);
+        TransactionExecution read = mock(TransactionExecution.class);
+        when(read.isReadOnly()).thenReturn(true);
+        TransactionExecution write = mock(TransactionExecution.class);
+
+        guard.afterCommit(read, null);
+        guard.afterCommit(write, new IllegalStateException("Commit failed"));
+
+        assertFalse(guard.requiresPrimary());
+    }
+
+}
@@ -0,0 +1,170 @@
+package ru.bicev.finance_analytics.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import ru.bicev.finance_analytics.dto.DateRange;
+import ru.bicev.finance_analytics.entity.Category;
+import ru.bicev.finance_analytics.entity.Transaction;
+import ru.bicev.finance_analytics.entity.User;
+import ru.bicev.finance_analytics.repo.BudgetRepository;
+import ru.bicev.finance_analytics.repo.CategoryRepository;
+import ru.bicev.finance_analytics.repo.TransactionRepository;
+import ru.bicev.finance_analytics.repo.UserRepository;
+import ru.bicev.finance_analytics.security.CustomUserPrincipal;
+import ru.bicev.finance_analytics.service.AnalyticsService;
+import ru.bicev.finance_analytics.service.SqlAnalyticsService;
+import ru.bicev.finance_analytics.util.CategoryType;
+import ru.bicev.finance_analytics.util.TestUtil;
+
+/**
+ * Сравнивает результаты {@link AnalyticsService} и {@link SqlAnalyticsService}
+ * на случайных данных
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+@Transactional
+public class AnalyticsEngineDifferentialIT {
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    BudgetRepository budgetRepository;
+
+    @Autowired
+    AnalyticsService analyticsService;
+
+    @Autowired
+    SqlAnalyticsService sqlAnalyticsService;
+
+    @Autowired
+    EntityManager entityManager;
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 12, 25, 10, 0);
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+    private static final int DAYS = 181;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = { 1, 7, 42 })
+    void enginesReturnEqualResults(long seed) {
+        Random random = new Random(seed);
+        User user = seed(random, "differential-" + seed, 400);
+        seed(random, "other-" + seed, 100);
+        authenticate(user);
+
+        for (YearMonth month = YearMonth.of(2024, 12); !month.isAfter(YearMonth.of(2025, 7)); month = month
+                .plusMonths(1)) {
+            assertEquals(analyticsService.getExpensesByCategory(month), sqlAnalyticsService.getExpensesByCategory(month),
+                    "categories " + month);
+            for (int limit : new int[] { 1, 3, 10 }) {
+                assertEquals(analyticsService.getTopCategories(month, limit),
+                        sqlAnalyticsService.getTopCategories(month, limit), "top " + limit + " " + month);
+            }
+            assertEquals(analyticsService.getDailyExpenses(month), sqlAnalyticsService.getDailyExpenses(month),
+                    "daily " + month);
+            assertEquals(analyticsService.getSummary(month), sqlAnalyticsService.getSummary(month),
+                    "summary " + month);
+        }
+
+        for (DateRange range : List.of(
+                new DateRange(LocalDate.of(2024, 11, 1), LocalDate.of(2025, 12, 31)),
+                new DateRange(LocalDate.of(2025, 2, 10), LocalDate.of(2025, 5, 20)),
+                new DateRange(LocalDate.of(2025, 3, 31), LocalDate.of(2025, 3, 31)),
+                new DateRange(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 3, 31)))) {
+            assertEquals(analyticsService.getMonthlyExpenses(range), sqlAnalyticsService.getMonthlyExpenses(range),
+                    "monthly " + range);
+        }
+        assertFalse(sqlAnalyticsService.getExpensesByCategory(YearMonth.of(2025, 3)).isEmpty());
+    }
+
+    /**
+     * Создает пользователя со случайными категориями, бюджетами и транзакциями за
+     * первое полугодие 2025 года и пересчитывает его дневные суммы
+     */
+    private User seed(Random random, String providerId, int transactionCount) {
+        User user = userRepository.save(
+                User.builder()
+                        .createdAt(NOW)
+                        .email(providerId + "@email.com")
+                        .lastLoginAt(NOW)
+                        .name("John Doe")
+                        .provider("google")
+                        .providerId(providerId)
+                        .build());
+
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            categories.add(TestUtil.generateCategory(user, CategoryType.EXPENSE, "Expense " + i));
+        }
+        for (int i = 0; i < 2; i++) {
+            categories.add(TestUtil.generateCategory(user, CategoryType.INCOME, "Income " + i));
+        }
+        categories = categoryRepository.saveAll(categories);
+
+        for (Category category : categories.subList(0, 5)) {
+            for (YearMonth month = YearMonth.of(2025, 1); month.isBefore(YearMonth.of(2025, 7)); month = month
+                    .plusMonths(1)) {
+                if (random.nextInt(3) == 0) {
+                    budgetRepository.save(TestUtil.generateBudget(user, category, amount(random), month));
+                }
+            }
+        }
+
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < transactionCount; i++) {
+            LocalDate date = FIRST_DAY.plusDays(random.nextInt(DAYS));
+            transactions.add(TestUtil.generateTransaction(user, categories.get(random.nextInt(categories.size())),
+                    amount(random), date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+        }
+        transactionRepository.saveAll(transactions);
+        entityManager.flush();
+
+        TestUtil.rebuildDailyTotals(entityManager, user.getId());
+        entityManager.flush();
+        entityManager.clear();
+        return user;
+    }
+
+    private static BigDecimal amount(Random random) {
+        return BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2);
+    }
+
+    private static void authenticate(User user) {
+        CustomUserPrincipal principal = new CustomUserPrincipal(user.getId(), Map.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+}
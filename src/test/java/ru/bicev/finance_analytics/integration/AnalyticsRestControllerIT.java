@@ -1,10 +1,14 @@
 package ru.bicev.finance_analytics.integration;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
@@ -12,13 +16,16 @@ import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -26,6 +33,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.EntityManager;
 import ru.bicev.finance_analytics.entity.Budget;
 import ru.bicev.finance_analytics.entity.Category;
 import ru.bicev.finance_analytics.entity.RecurringTransaction;
@@ -37,6 +45,9 @@ import ru.bicev.finance_analytics.repo.RecurringTransactionRepository;
 import ru.bicev.finance_analytics.repo.TransactionRepository;
 import ru.bicev.finance_analytics.repo.UserRepository;
 import ru.bicev.finance_analytics.security.CustomUserPrincipal;
+import ru.bicev.finance_analytics.service.AnalyticsCache;
+import ru.bicev.finance_analytics.service.DataVersionService;
+import ru.bicev.finance_analytics.service.MonthCloseService;
 import ru.bicev.finance_analytics.util.CategoryType;
 import ru.bicev.finance_analytics.util.TestUtil;
 
@@ -64,6 +75,18 @@ public class AnalyticsRestControllerIT {
         @Autowired
         RecurringTransactionRepository recurringTransactionRepository;
 
+        @Autowired
+        MonthCloseService monthCloseService;
+
+        @Autowired
+        AnalyticsCache analyticsCache;
+
+        @Autowired
+        DataVersionService dataVersionService;
+
+        @Autowired
+        EntityManager entityManager;
+
         private User user;
         private CustomUserPrincipal principal;
         private Category cat1;
@@ -147,6 +170,7 @@ public class AnalyticsRestControllerIT {
                 rtr4 = recurringTransactionRepository
                                 .save(TestUtil.generateRecurringTransaction(user, cat2, BigDecimal.valueOf(25.99), 2030,
                                                 2, 15));
+                TestUtil.rebuildDailyTotals(entityManager, user.getId());
         }
 
         @AfterEach
@@ -267,6 +291,56 @@ public class AnalyticsRestControllerIT {
                                 .andExpect(jsonPath("$.balance").value(income.subtract(expense)));
         }
 
+        @Test
+        void getSummary_refreshedAfterTransactionCreated() throws Exception {
+                BigDecimal income = budget1.getAmount().add(budget2.getAmount());
+                BigDecimal expense = tr3.getAmount().add(tr4.getAmount()).add(tr5.getAmount());
+                mockMvc.perform(get("/api/analytics/summary")
+                                .param("month", "2025-12"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.expense").value(expense));
+
+                mockMvc.perform(post("/api/transactions")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("""
+                                                {"categoryId": "%s", "amount": 50.00, "date": "2025-12-10",
+                                                "description": "New", "isPlanned": false}
+                                                """.formatted(cat1.getId())))
+                                .andExpect(status().isCreated());
+
+                BigDecimal updatedExpense = expense.add(new BigDecimal("50.00"));
+                mockMvc.perform(get("/api/analytics/summary")
+                                .param("month", "2025-12"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.expense").value(updatedExpense.doubleValue()))
+                                .andExpect(jsonPath("$.balance").value(income.subtract(updatedExpense).doubleValue()));
+        }
+
+        @Test
+        void getSummary_changedOnOtherInstance_notServedFromCache() throws Exception {
+                BigDecimal expense = tr3.getAmount().add(tr4.getAmount()).add(tr5.getAmount());
+                mockMvc.perform(get("/api/analytics/summary")
+                                .param("month", "2025-12"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.expense").value(expense));
+
+                // изменение на другом экземпляре: версия растет, локальный кэш не очищается
+                entityManager.createNativeQuery("""
+                                UPDATE daily_category_total SET total = total + 50
+                                WHERE user_id = :userId AND category_id = :categoryId AND date = :date
+                                """)
+                                .setParameter("userId", user.getId())
+                                .setParameter("categoryId", tr3.getCategory().getId())
+                                .setParameter("date", tr3.getDate())
+                                .executeUpdate();
+                dataVersionService.bump(user.getId());
+
+                mockMvc.perform(get("/api/analytics/summary")
+                                .param("month", "2025-12"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.expense").value(expense.add(new BigDecimal("50.00")).doubleValue()));
+        }
+
         @Test
         void getSummary_withInvalidParam() throws Exception {
                 mockMvc.perform(get("/api/analytics/summary")
@@ -275,6 +349,192 @@ public class AnalyticsRestControllerIT {
                                 .andExpect(jsonPath("$.code").value(400));
         }
 
+        // ---------------------
+        // getTrends()
+        // ---------------------
+        @Test
+        void getTrends_success() throws Exception {
+                mockMvc.perform(get("/api/analytics/trends")
+                                .param("from", "2025-11")
+                                .param("to", "2025-12"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.months.length()").value(2))
+                                .andExpect(jsonPath("$.months[0].month").value("11.2025"))
+                                .andExpect(jsonPath("$.months[0].total").value(1500.00))
+                                .andExpect(jsonPath("$.months[0].monthOverMonth").value(-500.00))
+                                .andExpect(jsonPath("$.months[0].yearOverYear").value(1500.00))
+                                .andExpect(jsonPath("$.months[0].movingAverage3").value(1166.67))
+                                .andExpect(jsonPath("$.months[0].movingAverage6").value(583.33))
+                                .andExpect(jsonPath("$.months[0].movingAverage12").value(291.67))
+                                .andExpect(jsonPath("$.months[1].month").value("12.2025"))
+                                .andExpect(jsonPath("$.months[1].total").value(9525.50))
+                                .andExpect(jsonPath("$.months[1].monthOverMonth").value(8025.50))
+                                .andExpect(jsonPath("$.months[1].movingAverage3").value(4341.83))
+                                .andExpect(jsonPath("$.months[1].movingAverage6").value(2170.92))
+                                .andExpect(jsonPath("$.months[1].movingAverage12").value(1085.46))
+                                .andExpect(jsonPath("$.categories.length()").value(2))
+                                .andExpect(jsonPath("$.categories[0].category").value(cat2.getName()))
+                                .andExpect(jsonPath("$.categories[0].months[0].total").value(0))
+                                .andExpect(jsonPath("$.categories[0].months[1].total").value(6400.00))
+                                .andExpect(jsonPath("$.categories[0].months[1].monthOverMonth").value(6400.00))
+                                .andExpect(jsonPath("$.categories[1].category").value(cat1.getName()))
+                                .andExpect(jsonPath("$.categories[1].months[0].monthOverMonth").value(-500.00))
+                                .andExpect(jsonPath("$.categories[1].months[1].movingAverage3").value(2208.50));
+        }
+
+        @Test
+        void getTrends_closedMonthsCached() throws Exception {
+                mockMvc.perform(get("/api/analytics/trends")
+                                .param("from", "2025-11")
+                                .param("to", "2025-12"))
+                                .andExpect(status().isOk());
+                Statistics statistics = TestUtil.resetStatistics(entityManager);
+
+                mockMvc.perform(get("/api/analytics/trends")
+                                .param("from", "2025-10")
+                                .param("to", "2025-12"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.months[0].total").value(2000.00))
+                                .andExpect(jsonPath("$.months[2].total").value(9525.50));
+
+                // версия данных для ETag и кэша аналитики и один запрос недостающего месяца
+                assertEquals(3, statistics.getPrepareStatementCount());
+        }
+
+        @Test
+        void getTrends_refreshedAfterBackdatedTransaction() throws Exception {
+                mockMvc.perform(get("/api/analytics/trends")
+                                .param("from", "2025-11")
+                                .param("to", "2025-12"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.months[0].monthOverMonth").value(-500.00));
+
+                mockMvc.perform(post("/api/transactions")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("""
+                                                {"categoryId": "%s", "amount": 100.00, "date": "2025-10-20",
+                                                "description": "Backdated", "isPlanned": false}
+                                                """.formatted(cat1.getId())))
+                                .andExpect(status().isCreated());
+
+                mockMvc.perform(get("/api/analytics/trends")
+                                .param("from", "2025-11")
+                                .param("to", "2025-12"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.months[0].monthOverMonth").value(-600.00))
+                                .andExpect(jsonPath("$.months[1].movingAverage3").value(4375.17));
+        }
+
+        @Test
+        void getTrends_withInvalidRange() throws Exception {
+                mockMvc.perform(get("/api/analytics/trends")
+                                .param("from", "2025-12")
+                                .param("to", "2025-11"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        // ---------------------
+        // getDashboard()
+        // ---------------------
+        @Test
+        void getDashboard_success() throws Exception {
+                BigDecimal income = budget1.getAmount().add(budget2.getAmount());
+                BigDecimal expense = tr3.getAmount().add(tr4.getAmount()).add(tr5.getAmount());
+                mockMvc.perform(get("/api/analytics/dashboard")
+                                .param("month", "2025-12")
+                                .param("limit", "1"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.summary.income").value(income.doubleValue()))
+                                .andExpect(jsonPath("$.summary.expense").value(expense.doubleValue()))
+                                .andExpect(jsonPath("$.summary.balance").value(income.subtract(expense).doubleValue()))
+                                .andExpect(jsonPath("$.categories.length()").value(2))
+                                .andExpect(jsonPath("$.categories[0].category").value(cat2.getName()))
+                                .andExpect(jsonPath("$.categories[0].total")
+                                                .value(tr4.getAmount().add(tr5.getAmount()).doubleValue()))
+                                .andExpect(jsonPath("$.topCategories.length()").value(1))
+                                .andExpect(jsonPath("$.topCategories[0].category").value(cat2.getName()))
+                                .andExpect(jsonPath("$.daily.length()").value(3))
+                                .andExpect(jsonPath("$.daily[0].date").value(tr3.getDate().toString()))
+                                .andExpect(jsonPath("$.budgets.length()").value(2));
+        }
+
+        @Test
+        void getDailyExpenses_gzipFromResponseCache() throws Exception {
+                transactionRepository.saveAll(TestUtil.generateTransactions(user, cat1, 28, 2025, 9));
+                TestUtil.rebuildDailyTotals(entityManager, user.getId());
+
+                byte[] gzip = mockMvc.perform(get("/api/analytics/daily")
+                                .param("month", "2025-09")
+                                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                                .andReturn().getResponse().getContentAsByteArray();
+                Statistics statistics = TestUtil.resetStatistics(entityManager);
+
+                mockMvc.perform(get("/api/analytics/daily")
+                                .param("month", "2025-09"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                                .andExpect(jsonPath("$.length()").value(28))
+                                .andExpect(content().bytes(new GZIPInputStream(new ByteArrayInputStream(gzip))
+                                                .readAllBytes()));
+                mockMvc.perform(get("/api/analytics/daily")
+                                .param("month", "2025-09")
+                                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().bytes(gzip));
+
+                // только версия данных для ETag
+                assertEquals(2, statistics.getPrepareStatementCount());
+        }
+
+        @Test
+        void getSummary_smallResponseNotCompressed() throws Exception {
+                mockMvc.perform(get("/api/analytics/summary")
+                                .param("month", "2025-12")
+                                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                                .andExpect(jsonPath("$.expense").value(9525.50));
+        }
+
+        @Test
+        void getDashboard_twoStatements() throws Exception {
+                Statistics statistics = TestUtil.resetStatistics(entityManager);
+
+                mockMvc.perform(get("/api/analytics/dashboard")
+                                .param("month", "2025-12"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.topCategories.length()").value(2));
+
+                // версия данных для ETag и кэша аналитики, поиск снимка закрытого месяца и
+                // два запроса расчета
+                assertEquals(5, statistics.getPrepareStatementCount());
+        }
+
+        @Test
+        void getDashboard_closedMonthFromSnapshot() throws Exception {
+                monthCloseService.closeMonth(YearMonth.of(2025, 12));
+                analyticsCache.evictUser(user.getId());
+                Statistics statistics = TestUtil.resetStatistics(entityManager);
+
+                mockMvc.perform(get("/api/analytics/dashboard")
+                                .param("month", "2025-12"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.topCategories.length()").value(2));
+
+                // версия данных для ETag и кэша аналитики и снимок месяца
+                assertEquals(3, statistics.getPrepareStatementCount());
+        }
+
+        @Test
+        void getDashboard_withInvalidParam() throws Exception {
+                mockMvc.perform(get("/api/analytics/dashboard")
+                                .param("month", "2025-12")
+                                .param("limit", "0"))
+                                .andExpect(status().isBadRequest());
+        }
+
         // ---------------------
         // getCategoryBudgetStatus()
         // ---------------------
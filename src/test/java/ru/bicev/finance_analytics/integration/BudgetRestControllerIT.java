@@ -1,5 +1,6 @@
 package ru.bicev.finance_analytics.integration;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -13,6 +14,7 @@ import java.time.YearMonth;
 import java.util.Map;
 import java.util.UUID;
 
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -26,6 +28,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.EntityManager;
 import ru.bicev.finance_analytics.entity.Budget;
 import ru.bicev.finance_analytics.entity.Category;
 import ru.bicev.finance_analytics.entity.User;
@@ -34,6 +37,7 @@ import ru.bicev.finance_analytics.repo.CategoryRepository;
 import ru.bicev.finance_analytics.repo.UserRepository;
 import ru.bicev.finance_analytics.security.CustomUserPrincipal;
 import ru.bicev.finance_analytics.util.CategoryType;
+import ru.bicev.finance_analytics.util.TestUtil;
 
 @ActiveProfiles("test")
 @SpringBootTest
@@ -44,6 +48,9 @@ public class BudgetRestControllerIT {
         @Autowired
         MockMvc mockMvc;
 
+        @Autowired
+        EntityManager entityManager;
+
         @Autowired
         UserRepository userRepo;
 
@@ -205,6 +212,20 @@ public class BudgetRestControllerIT {
                                 .andExpect(jsonPath("$[1].month").value(budget2.getMonth().toString()));
         }
 
+        @Test
+        void getAllUsersBudgets_singleStatementWithoutUser() throws Exception {
+                Statistics statistics = TestUtil.resetStatistics(entityManager);
+
+                mockMvc.perform(get("/api/budgets"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(2))
+                                .andExpect(jsonPath("$[0].categoryName").isNotEmpty());
+
+                // версия данных для ETag и один запрос данных
+                assertEquals(2, statistics.getPrepareStatementCount());
+                assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getLoadCount());
+        }
+
         @Test
         void getAllUsersBudgets_withYearMonth() throws Exception {
                 mockMvc.perform(get("/api/budgets")
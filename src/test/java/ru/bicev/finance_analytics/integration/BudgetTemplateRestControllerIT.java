@@ -19,15 +19,20 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import ru.bicev.finance_analytics.entity.Budget;
 import ru.bicev.finance_analytics.entity.BudgetTemplate;
 import ru.bicev.finance_analytics.entity.Category;
 import ru.bicev.finance_analytics.entity.User;
+import ru.bicev.finance_analytics.repo.BudgetRepository;
 import ru.bicev.finance_analytics.repo.BudgetTemplateRepository;
 import ru.bicev.finance_analytics.repo.CategoryRepository;
 import ru.bicev.finance_analytics.repo.UserRepository;
 import ru.bicev.finance_analytics.security.CustomUserPrincipal;
+import ru.bicev.finance_analytics.service.BudgetService;
 import ru.bicev.finance_analytics.util.CategoryType;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -50,6 +55,12 @@ public class BudgetTemplateRestControllerIT {
         @Autowired
         BudgetTemplateRepository budgetTemplateRepository;
 
+        @Autowired
+        BudgetRepository budgetRepository;
+
+        @Autowired
+        BudgetService budgetService;
+
         private User user;
         private CustomUserPrincipal principal;
         private Category category;
@@ -258,4 +269,33 @@ public class BudgetTemplateRestControllerIT {
                                 .andExpect(jsonPath("$.code").value(404));
         }
 
+        // ---------------------
+        // generateBudgetsFromTemplates()
+        // ---------------------
+        @Test
+        void generateBudgetsFromTemplates_secondRunCreatesNothing() {
+                YearMonth month = YearMonth.of(2031, 3);
+                budgetRepository.saveAndFlush(Budget.builder()
+                                .category(category2)
+                                .createdAt(LocalDateTime.now())
+                                .amount(BigDecimal.valueOf(1000.00))
+                                .user(user)
+                                .month(month)
+                                .build());
+
+                int first = budgetService.generateBudgetsFromTemplates(month);
+                int second = budgetService.generateBudgetsFromTemplates(month);
+
+                assertTrue(first >= 1);
+                assertEquals(0, second);
+                Budget generated = budgetRepository
+                                .findByUserIdAndCategoryIdAndMonth(user.getId(), category1.getId(), month)
+                                .orElseThrow();
+                assertEquals(0, generated.getAmount().compareTo(template1.getAmount()));
+                Budget existing = budgetRepository
+                                .findByUserIdAndCategoryIdAndMonth(user.getId(), category2.getId(), month)
+                                .orElseThrow();
+                assertEquals(0, existing.getAmount().compareTo(BigDecimal.valueOf(1000.00)));
+        }
+
 }
@@ -0,0 +1,142 @@
+package ru.bicev.finance_analytics.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import ru.bicev.finance_analytics.entity.Category;
+import ru.bicev.finance_analytics.entity.Transaction;
+import ru.bicev.finance_analytics.entity.User;
+import ru.bicev.finance_analytics.repo.CategoryRepository;
+import ru.bicev.finance_analytics.repo.TransactionRepository;
+import ru.bicev.finance_analytics.repo.UserRepository;
+import ru.bicev.finance_analytics.security.CustomUserPrincipal;
+import ru.bicev.finance_analytics.service.DailyCategoryTotalService;
+import ru.bicev.finance_analytics.util.CategoryType;
+import ru.bicev.finance_analytics.util.TestUtil;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@Transactional
+public class ConditionalGetIT {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    DailyCategoryTotalService dailyCategoryTotalService;
+
+    private User user;
+    private Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .provider("google")
+                .providerId("etag-sub")
+                .email("etag@email.com")
+                .build());
+        Category category = categoryRepository.save(TestUtil.generateCategory(user, CategoryType.EXPENSE, "Food"));
+        transaction = transactionRepository.save(
+                TestUtil.generateTransaction(user, category, new BigDecimal("120.50"), 2025, 11, 3));
+        dailyCategoryTotalService.add(transaction);
+        authenticate(user);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void matchingETag_notModifiedWithoutDataQueries() throws Exception {
+        String etag = fetchETag("/api/analytics/summary?month=2025-11");
+        Statistics statistics = TestUtil.resetStatistics(entityManager);
+
+        mockMvc.perform(get("/api/analytics/summary").param("month", "2025-11")
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityStatistics(Transaction.class.getName()).getLoadCount());
+    }
+
+    @Test
+    void mutation_changesETag() throws Exception {
+        String etag = fetchETag("/api/transactions");
+
+        mockMvc.perform(delete("/api/transactions/{id}", transaction.getId()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/transactions").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        assertNotEquals(etag, fetchETag("/api/transactions"));
+    }
+
+    @Test
+    void otherUser_doesNotMatch() throws Exception {
+        String etag = fetchETag("/api/categories");
+        authenticate(userRepository.save(User.builder()
+                .provider("google")
+                .providerId("etag-other-sub")
+                .email("other@email.com")
+                .build()));
+
+        mockMvc.perform(get("/api/categories").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    private String fetchETag(String uri) throws Exception {
+        String etag = mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+
+    private void authenticate(User user) {
+        CustomUserPrincipal principal = new CustomUserPrincipal(user.getId(), Map.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+}
@@ -0,0 +1,185 @@
+package ru.bicev.finance_analytics.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import ru.bicev.finance_analytics.dto.DashboardDto;
+import ru.bicev.finance_analytics.entity.Category;
+import ru.bicev.finance_analytics.entity.Transaction;
+import ru.bicev.finance_analytics.entity.User;
+import ru.bicev.finance_analytics.repo.BudgetRepository;
+import ru.bicev.finance_analytics.repo.CategoryRepository;
+import ru.bicev.finance_analytics.repo.TransactionRepository;
+import ru.bicev.finance_analytics.repo.UserRepository;
+import ru.bicev.finance_analytics.security.CustomUserPrincipal;
+import ru.bicev.finance_analytics.service.AnalyticsCache;
+import ru.bicev.finance_analytics.service.AnalyticsService;
+import ru.bicev.finance_analytics.service.DailyCategoryTotalService;
+import ru.bicev.finance_analytics.service.MonthCloseService;
+import ru.bicev.finance_analytics.service.MonthSnapshotService;
+import ru.bicev.finance_analytics.util.CategoryType;
+import ru.bicev.finance_analytics.util.TestUtil;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@Transactional
+public class MonthSnapshotIT {
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    BudgetRepository budgetRepository;
+
+    @Autowired
+    DailyCategoryTotalService dailyCategoryTotalService;
+
+    @Autowired
+    AnalyticsService analyticsService;
+
+    @Autowired
+    AnalyticsCache analyticsCache;
+
+    @Autowired
+    MonthSnapshotService monthSnapshotService;
+
+    @Autowired
+    MonthCloseService monthCloseService;
+
+    @Autowired
+    EntityManager entityManager;
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 12, 25, 10, 0);
+    private static final YearMonth MONTH = YearMonth.of(2025, 3);
+
+    private User user;
+    private Category food;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(
+                User.builder()
+                        .createdAt(NOW)
+                        .email("snapshot@email.com")
+                        .lastLoginAt(NOW)
+                        .name("John Doe")
+                        .provider("google")
+                        .providerId("snapshot")
+                        .build());
+        food = categoryRepository.save(TestUtil.generateCategory(user, CategoryType.EXPENSE, "Food"));
+        Category rent = categoryRepository.save(TestUtil.generateCategory(user, CategoryType.EXPENSE, "Rent"));
+        Category salary = categoryRepository.save(TestUtil.generateCategory(user, CategoryType.INCOME, "Salary"));
+        budgetRepository.save(TestUtil.generateBudget(user, food, new BigDecimal("500.00"), MONTH));
+        transactionRepository.saveAll(List.of(
+                TestUtil.generateTransaction(user, food, new BigDecimal("120.50"), 2025, 3, 3),
+                TestUtil.generateTransaction(user, food, new BigDecimal("80.00"), 2025, 3, 17),
+                TestUtil.generateTransaction(user, rent, new BigDecimal("900.00"), 2025, 3, 1),
+                TestUtil.generateTransaction(user, salary, new BigDecimal("3000.00"), 2025, 3, 5),
+                TestUtil.generateTransaction(user, food, new BigDecimal("45.00"), 2025, 4, 2)));
+        entityManager.flush();
+        TestUtil.rebuildDailyTotals(entityManager, user.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        CustomUserPrincipal principal = new CustomUserPrincipal(user.getId(), Map.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void closeMonth_servesEqualResults() {
+        DashboardDto live = analyticsService.getDashboard(MONTH, 10);
+
+        monthCloseService.closeMonth(MONTH);
+        analyticsCache.evictUser(user.getId());
+
+        assertEquals(live, monthSnapshotService.find(user.getId(), MONTH).orElseThrow());
+        assertEquals(live, analyticsService.getDashboard(MONTH, 10));
+        assertEquals(live.summary(), analyticsService.getSummary(MONTH));
+        assertEquals(live.categories(), analyticsService.getExpensesByCategory(MONTH));
+        assertEquals(live.daily(), analyticsService.getDailyExpenses(MONTH));
+        assertEquals(live.topCategories().subList(0, 1), analyticsService.getTopCategories(MONTH, 1));
+    }
+
+    @Test
+    void backDatedTransaction_reopensSnapshot() {
+        monthCloseService.closeMonth(MONTH);
+
+        Transaction transaction = transactionRepository.save(
+                TestUtil.generateTransaction(user, food, new BigDecimal("10.00"), 2025, 3, 20));
+        dailyCategoryTotalService.add(transaction);
+
+        assertTrue(monthSnapshotService.find(user.getId(), MONTH).isEmpty());
+        assertEquals(new BigDecimal("1110.50"), analyticsService.getSummary(MONTH).expense());
+
+        monthCloseService.refreshStale();
+        assertEquals(new BigDecimal("1110.50"),
+                monthSnapshotService.find(user.getId(), MONTH).orElseThrow().summary().expense());
+    }
+
+    @Test
+    void complete_rejectsRevisionChangedDuringRefresh() {
+        long revision = monthSnapshotService.open(user.getId(), MONTH);
+        DashboardDto dashboard = analyticsService.calculateSnapshot(user.getId(), MONTH);
+        monthSnapshotService.reopen(user.getId(), MONTH);
+
+        assertFalse(monthSnapshotService.complete(user.getId(), MONTH, revision, dashboard));
+        assertTrue(monthSnapshotService.find(user.getId(), MONTH).isEmpty());
+    }
+
+    @Test
+    void reopen_beforeClose_createsStaleSnapshot() {
+        DashboardDto before = analyticsService.calculateSnapshot(user.getId(), MONTH);
+
+        monthSnapshotService.reopen(user.getId(), MONTH);
+
+        assertTrue(monthSnapshotService.find(user.getId(), MONTH).isEmpty());
+        assertTrue(monthSnapshotService.findStale(Integer.MAX_VALUE).stream()
+                .anyMatch(snapshot -> snapshot.getUserId().equals(user.getId())));
+        long revision = monthSnapshotService.open(user.getId(), MONTH);
+        assertEquals(1, revision);
+        assertFalse(monthSnapshotService.complete(user.getId(), MONTH, 0, before));
+        assertTrue(monthSnapshotService.complete(user.getId(), MONTH, revision,
+                analyticsService.calculateSnapshot(user.getId(), MONTH)));
+    }
+
+    @Test
+    void currentMonth_notSnapshotted() {
+        YearMonth current = YearMonth.now();
+        long revision = monthSnapshotService.open(user.getId(), current);
+
+        assertTrue(monthSnapshotService.complete(user.getId(), current, revision,
+                analyticsService.calculateSnapshot(user.getId(), current)));
+        assertTrue(monthSnapshotService.find(user.getId(), current).isEmpty());
+    }
+
+}
@@ -0,0 +1,71 @@
+package ru.bicev.finance_analytics.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.bicev.finance_analytics.service.QueryFanOut;
+
+/**
+ * Каждый вызов держит соединение своей читающей транзакции, пока ждет
+ * вынесенный запрос. Вызовов больше, чем соединений в пуле
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=3000",
+        "app.analytics.fan-out.max-concurrency=3"
+})
+public class QueryFanOutIT {
+
+    private static final int CALLERS = 8;
+
+    @Autowired
+    QueryFanOut queryFanOut;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void join_callersHoldingConnections_allComplete() throws Exception {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(callers.submit(() -> readOnly.execute(status -> {
+                    jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+                    return queryFanOut.join(
+                            () -> jdbcTemplate.queryForObject("SELECT pg_sleep(0.2)::text IS NULL", Boolean.class),
+                            () -> jdbcTemplate.queryForObject("SELECT 1 FROM pg_sleep(0.2)", Integer.class),
+                            (forked, inline) -> inline);
+                })));
+            }
+
+            for (Future<Integer> result : results) {
+                assertEquals(1, result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+}
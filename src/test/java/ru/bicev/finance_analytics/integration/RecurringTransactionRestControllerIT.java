@@ -1,5 +1,6 @@
 package ru.bicev.finance_analytics.integration;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -13,6 +14,7 @@ import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.UUID;
 
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -26,6 +28,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.EntityManager;
 import ru.bicev.finance_analytics.entity.Category;
 import ru.bicev.finance_analytics.entity.RecurringTransaction;
 import ru.bicev.finance_analytics.entity.User;
@@ -35,6 +38,7 @@ import ru.bicev.finance_analytics.repo.UserRepository;
 import ru.bicev.finance_analytics.security.CustomUserPrincipal;
 import ru.bicev.finance_analytics.util.CategoryType;
 import ru.bicev.finance_analytics.util.Frequency;
+import ru.bicev.finance_analytics.util.TestUtil;
 
 @ActiveProfiles("test")
 @SpringBootTest
@@ -45,6 +49,9 @@ public class RecurringTransactionRestControllerIT {
         @Autowired
         MockMvc mockMvc;
 
+        @Autowired
+        EntityManager entityManager;
+
         @Autowired
         UserRepository userRepository;
 
@@ -216,6 +223,19 @@ public class RecurringTransactionRestControllerIT {
                                 .andExpect(jsonPath("$[2].description").value(tr3.getDescription()));
         }
 
+        @Test
+        void getTransactions_singleStatementWithoutUser() throws Exception {
+                Statistics statistics = TestUtil.resetStatistics(entityManager);
+
+                mockMvc.perform(get("/api/recurring"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(3))
+                                .andExpect(jsonPath("$[0].categoryName").isNotEmpty());
+
+                assertEquals(1, statistics.getPrepareStatementCount());
+                assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getLoadCount());
+        }
+
         @Test
         void getTransactions_withParam() throws Exception {
                 mockMvc.perform(get("/api/recurring")
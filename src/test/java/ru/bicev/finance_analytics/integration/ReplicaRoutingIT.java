@@ -0,0 +1,141 @@
+package ru.bicev.finance_analytics.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.bicev.finance_analytics.datasource.ReadYourWritesGuard;
+import ru.bicev.finance_analytics.datasource.ReplicaRoutingDataSource;
+import ru.bicev.finance_analytics.entity.User;
+import ru.bicev.finance_analytics.repo.UserRepository;
+import ru.bicev.finance_analytics.security.CustomUserPrincipal;
+import ru.bicev.finance_analytics.service.DataVersionService;
+
+/**
+ * Роль реплики играет та же база, открытая с другим именем приложения. Путь
+ * поиска реплики начинается со схемы, где версия данных пользователей на
+ * единицу меньше, как у реплики, не применившей последнюю запись
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "app.datasource.replicas.urls=jdbc:postgresql://localhost:5432/analytics_db?ApplicationName=replica&currentSchema=lagging_replica%2Cpublic",
+        "app.datasource.replicas.read-your-writes-window=PT1M"
+})
+public class ReplicaRoutingIT {
+
+    @Autowired
+    ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    DataVersionService dataVersionService;
+
+    @Autowired
+    ReadYourWritesGuard readYourWritesGuard;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS lagging_replica");
+        jdbcTemplate.execute("""
+                CREATE OR REPLACE VIEW lagging_replica.app_user AS
+                SELECT id, data_version - 1 AS data_version FROM public.app_user
+                """);
+        replicaRoutingDataSource.checkHealth();
+        user = userRepository.save(
+                User.builder()
+                        .createdAt(LocalDateTime.now())
+                        .email("replica@email.com")
+                        .lastLoginAt(LocalDateTime.now())
+                        .name("John Doe")
+                        .provider("google")
+                        .providerId("replica-sub")
+                        .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        userRepository.deleteById(user.getId());
+        jdbcTemplate.execute("DROP SCHEMA lagging_replica CASCADE");
+    }
+
+    @Test
+    void readOnlyTransaction_usesReplica() {
+        assertEquals(1, replicaRoutingDataSource.getHealthyReplicaCount());
+        assertEquals("replica", applicationName(true));
+        assertNotEquals("replica", applicationName(false));
+    }
+
+    @Test
+    void readOnlyTransaction_afterOwnWrite_usesPrimary() {
+        authenticate();
+        assertEquals("replica", applicationName(true));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User saved = userRepository.findById(user.getId()).orElseThrow();
+            saved.setName("Jane Doe");
+        });
+
+        assertNotEquals("replica", applicationName(true));
+    }
+
+    @Test
+    void dataVersion_readFromPrimary_withoutOpeningPrimaryWindow() {
+        Long expected = new TransactionTemplate(transactionManager).execute(status -> jdbcTemplate.queryForObject(
+                "SELECT data_version FROM app_user WHERE id = ?", Long.class, user.getId()));
+        authenticate();
+
+        assertEquals(expected, dataVersionService.current(user.getId()));
+        assertFalse(readYourWritesGuard.requiresPrimary());
+    }
+
+    @Test
+    void readOnlyTransaction_replicaBehindReadVersion_usesPrimary() {
+        authenticate();
+        assertEquals("replica", applicationName(true));
+
+        dataVersionService.current(user.getId());
+
+        assertNotEquals("replica", applicationName(true));
+        assertEquals(1, replicaRoutingDataSource.getHealthyReplicaCount());
+    }
+
+    private void authenticate() {
+        CustomUserPrincipal principal = new CustomUserPrincipal(user.getId(), Map.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private String applicationName(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbcTemplate.queryForObject(
+                "SELECT current_setting('application_name')", String.class));
+    }
+
+}
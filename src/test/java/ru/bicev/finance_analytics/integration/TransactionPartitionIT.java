@@ -0,0 +1,124 @@
+package ru.bicev.finance_analytics.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import ru.bicev.finance_analytics.entity.Category;
+import ru.bicev.finance_analytics.entity.Transaction;
+import ru.bicev.finance_analytics.entity.User;
+import ru.bicev.finance_analytics.repo.CategoryRepository;
+import ru.bicev.finance_analytics.repo.TransactionRepository;
+import ru.bicev.finance_analytics.repo.UserRepository;
+import ru.bicev.finance_analytics.service.TransactionPartitionService;
+import ru.bicev.finance_analytics.util.CategoryType;
+import ru.bicev.finance_analytics.util.TestUtil;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@Transactional
+public class TransactionPartitionIT {
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    TransactionPartitionService transactionPartitionService;
+
+    @Autowired
+    EntityManager entityManager;
+
+    private User user;
+    private Category category;
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 12, 25, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(
+                User.builder()
+                        .createdAt(NOW)
+                        .email("test@email.com")
+                        .lastLoginAt(NOW)
+                        .name("John Doe")
+                        .provider("google")
+                        .providerId("test-sub")
+                        .build());
+        category = categoryRepository.save(TestUtil.generateCategory(user, CategoryType.EXPENSE, "Category 1"));
+    }
+
+    @Test
+    void currentMonthTransaction_storedInMonthPartition() {
+        LocalDate today = LocalDate.now();
+        Transaction transaction = save(today.getYear(), today.getMonthValue(), today.getDayOfMonth());
+
+        assertEquals("transaction_" + YearMonth.from(today).toString().replace('-', '_'),
+                partitionOf(transaction.getId()));
+    }
+
+    @Test
+    void createPartitions_movesRowsFromDefaultPartition() {
+        Transaction transaction = save(2090, 1, 5);
+        assertEquals("transaction_default", partitionOf(transaction.getId()));
+
+        assertEquals(4, transactionPartitionService.createPartitions(YearMonth.of(2090, 1)));
+        assertEquals(0, transactionPartitionService.createPartitions(YearMonth.of(2090, 1)));
+
+        assertEquals("transaction_2090_01", partitionOf(transaction.getId()));
+        assertEquals(1, transactionRepository.findAllByUserIdAndDateBetweenOrderByDateAsc(user.getId(),
+                LocalDate.of(2090, 1, 1), LocalDate.of(2090, 1, 31)).size());
+    }
+
+    @Test
+    void monthQuery_readsSinglePartition() {
+        transactionPartitionService.createPartitions(YearMonth.of(2090, 1));
+
+        @SuppressWarnings("unchecked")
+        List<String> plan = entityManager.createNativeQuery("""
+                EXPLAIN SELECT SUM(amount) FROM transaction
+                WHERE user_id = 1 AND date BETWEEN DATE '2090-02-01' AND DATE '2090-02-28'
+                """).getResultList();
+        String text = String.join("\n", plan);
+
+        assertTrue(text.contains("transaction_2090_02"));
+        assertFalse(text.contains("transaction_2090_01"));
+        assertFalse(text.contains("transaction_default"));
+    }
+
+    private Transaction save(int year, int month, int day) {
+        Transaction transaction = transactionRepository
+                .save(TestUtil.generateTransaction(user, category, BigDecimal.valueOf(100), year, month, day));
+        entityManager.flush();
+        return transaction;
+    }
+
+    private String partitionOf(UUID id) {
+        entityManager.clear();
+        return (String) entityManager
+                .createNativeQuery("SELECT tableoid::regclass::text FROM transaction WHERE id = :id")
+                .setParameter("id", id)
+                .getSingleResult();
+    }
+
+}
@@ -6,6 +6,7 @@ import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.UUID;
 
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,16 +20,24 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.jayway.jsonpath.JsonPath;
+
+import jakarta.persistence.EntityManager;
 import ru.bicev.finance_analytics.entity.Category;
 import ru.bicev.finance_analytics.entity.Transaction;
 import ru.bicev.finance_analytics.entity.User;
 import ru.bicev.finance_analytics.repo.CategoryRepository;
+import ru.bicev.finance_analytics.repo.DailyCategoryTotalRepository;
 import ru.bicev.finance_analytics.repo.TransactionRepository;
 import ru.bicev.finance_analytics.repo.UserRepository;
 import ru.bicev.finance_analytics.security.CustomUserPrincipal;
 import ru.bicev.finance_analytics.util.CategoryType;
+import ru.bicev.finance_analytics.util.TestUtil;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -41,6 +50,9 @@ public class TransactionRestControllerIT {
         @Autowired
         MockMvc mockMvc;
 
+        @Autowired
+        EntityManager entityManager;
+
         @Autowired
         UserRepository userRepository;
 
@@ -50,6 +62,9 @@ public class TransactionRestControllerIT {
         @Autowired
         TransactionRepository transactionRepository;
 
+        @Autowired
+        DailyCategoryTotalRepository dailyCategoryTotalRepository;
+
         private User user;
         private CustomUserPrincipal principal;
         private Category category;
@@ -136,6 +151,7 @@ public class TransactionRestControllerIT {
                                                 .description("Transaction 3")
                                                 .isPlanned(false)
                                                 .build());
+                TestUtil.rebuildDailyTotals(entityManager, user.getId());
         }
 
         @AfterEach
@@ -157,6 +173,26 @@ public class TransactionRestControllerIT {
                                 .andExpect(jsonPath("$.amount").value(333.00))
                                 .andExpect(jsonPath("$.date").value("2025-11-10"))
                                 .andExpect(jsonPath("$.description").value("Test request"));
+
+                var daily = dailyCategoryTotalRepository.sumByDay(user.getId(), CategoryType.EXPENSE,
+                                LocalDate.of(2025, 11, 10), LocalDate.of(2025, 11, 10));
+                assertEquals(1, daily.size());
+                assertEquals(0, new BigDecimal("333.00").compareTo(daily.get(0).amount()));
+        }
+
+        @Test
+        void createTransaction_userNotLoaded() throws Exception {
+                entityManager.flush();
+                entityManager.clear();
+                Statistics statistics = TestUtil.resetStatistics(entityManager);
+
+                mockMvc.perform(
+                                post("/api/transactions")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .content(request.formatted(category.getId().toString())))
+                                .andExpect(status().isCreated());
+
+                assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getLoadCount());
         }
 
         @Test
@@ -179,6 +215,42 @@ public class TransactionRestControllerIT {
                                 .andExpect(jsonPath("$.code").value(404));
         }
 
+        // ---------------------
+        // createTransactions()
+        // ---------------------
+        @Test
+        void createTransactions_success() throws Exception {
+                String batch = "[" + request.formatted(category.getId().toString()) + ","
+                                + request.formatted(category.getId().toString()) + ","
+                                + invalidRequest.formatted(category.getId().toString()) + ","
+                                + request.formatted(UUID.randomUUID().toString()) + "]";
+                mockMvc.perform(
+                                post("/api/transactions/batch")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .content(batch))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.received").value(4))
+                                .andExpect(jsonPath("$.created").value(2))
+                                .andExpect(jsonPath("$.errors.length()").value(2))
+                                .andExpect(jsonPath("$.errors[0].index").value(2))
+                                .andExpect(jsonPath("$.errors[1].index").value(3))
+                                .andExpect(jsonPath("$.errors[1].errors[0].field").value("categoryId"));
+
+                assertEquals(5, transactionRepository.findAllByUserIdOrderByDateAsc(user.getId()).size());
+                var daily = dailyCategoryTotalRepository.sumByDay(user.getId(), CategoryType.EXPENSE,
+                                LocalDate.of(2025, 11, 10), LocalDate.of(2025, 11, 10));
+                assertEquals(0, new BigDecimal("666.00").compareTo(daily.get(0).amount()));
+        }
+
+        @Test
+        void createTransactions_emptyBatch() throws Exception {
+                mockMvc.perform(
+                                post("/api/transactions/batch")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .content("[]"))
+                                .andExpect(status().isBadRequest());
+        }
+
         // ---------------------
         // getTransactions()
         // ---------------------
@@ -199,6 +271,20 @@ public class TransactionRestControllerIT {
                                 .andExpect(jsonPath("$[2].description").value(tr3.getDescription()));
         }
 
+        @Test
+        void getTransactions_singleStatementWithoutUser() throws Exception {
+                Statistics statistics = TestUtil.resetStatistics(entityManager);
+
+                mockMvc.perform(get("/api/transactions"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(3))
+                                .andExpect(jsonPath("$[0].categoryName").isNotEmpty());
+
+                // версия данных для ETag и один запрос данных
+                assertEquals(2, statistics.getPrepareStatementCount());
+                assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getLoadCount());
+        }
+
         @Test
         void getTransactions_withParams() throws Exception {
                 mockMvc.perform(
@@ -259,6 +345,13 @@ public class TransactionRestControllerIT {
                                 .andExpect(jsonPath("$.amount").value(666.00))
                                 .andExpect(jsonPath("$.date").value("2025-06-06"))
                                 .andExpect(jsonPath("$.description").value("Update request"));
+
+                assertTrue(dailyCategoryTotalRepository.sumByDay(user.getId(), CategoryType.EXPENSE,
+                                LocalDate.of(2025, 12, 7), LocalDate.of(2025, 12, 7)).isEmpty());
+                var daily = dailyCategoryTotalRepository.sumByDay(user.getId(), CategoryType.EXPENSE,
+                                LocalDate.of(2025, 6, 6), LocalDate.of(2025, 6, 6));
+                assertEquals(1, daily.size());
+                assertEquals(0, new BigDecimal("666.00").compareTo(daily.get(0).amount()));
         }
 
         @Test
@@ -279,6 +372,11 @@ public class TransactionRestControllerIT {
                 mockMvc.perform(
                                 delete("/api/transactions/" + tr1.getId().toString()))
                                 .andExpect(status().isNoContent());
+
+                var daily = dailyCategoryTotalRepository.sumByDay(user.getId(), CategoryType.EXPENSE,
+                                LocalDate.of(2025, 11, 1), LocalDate.of(2025, 11, 30));
+                assertEquals(1, daily.size());
+                assertEquals(tr2.getDate(), daily.get(0).date());
         }
 
         @Test
@@ -289,4 +387,65 @@ public class TransactionRestControllerIT {
                                 .andExpect(jsonPath("$.code").value(404));
         }
 
+        // ---------------------
+        // getTransactionsPage()
+        // ---------------------
+        @Test
+        void getTransactionsPage_walksAllPages() throws Exception {
+                String body = mockMvc.perform(
+                                get("/api/transactions/page")
+                                                .param("size", "2"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.items.length()").value(2))
+                                .andExpect(jsonPath("$.items[0].id").value(tr1.getId().toString()))
+                                .andExpect(jsonPath("$.items[1].id").value(tr2.getId().toString()))
+                                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                                .andReturn().getResponse().getContentAsString();
+                String cursor = JsonPath.read(body, "$.nextCursor");
+
+                mockMvc.perform(
+                                get("/api/transactions/page")
+                                                .param("size", "2")
+                                                .param("cursor", cursor))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.items.length()").value(1))
+                                .andExpect(jsonPath("$.items[0].id").value(tr3.getId().toString()))
+                                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        }
+
+        @Test
+        void getTransactionsPage_invalidCursor() throws Exception {
+                mockMvc.perform(
+                                get("/api/transactions/page")
+                                                .param("cursor", "broken"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.code").value(400));
+        }
+
+        @Test
+        void getTransactionsPage_invalidSize() throws Exception {
+                mockMvc.perform(
+                                get("/api/transactions/page")
+                                                .param("size", "0"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        // ---------------------
+        // streamTransactions()
+        // ---------------------
+        @Test
+        void streamTransactions_ndjson() throws Exception {
+                String body = mockMvc.perform(
+                                get("/api/transactions")
+                                                .accept(MediaType.APPLICATION_NDJSON))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                                .andReturn().getResponse().getContentAsString();
+
+                String[] lines = body.strip().split("\n");
+                assertEquals(3, lines.length);
+                assertEquals(tr1.getId().toString(), JsonPath.read(lines[0], "$.id"));
+                assertEquals(tr3.getId().toString(), JsonPath.read(lines[2], "$.id"));
+        }
+
 }
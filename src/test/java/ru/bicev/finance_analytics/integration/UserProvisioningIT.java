@@ -0,0 +1,83 @@
+package ru.bicev.finance_analytics.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import ru.bicev.finance_analytics.entity.User;
+import ru.bicev.finance_analytics.repo.UserRepository;
+import ru.bicev.finance_analytics.service.LoginActivityBuffer;
+import ru.bicev.finance_analytics.service.UserService;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@Transactional
+public class UserProvisioningIT {
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    LoginActivityBuffer loginActivityBuffer;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    private OAuth2User oAuth2User;
+
+    @BeforeEach
+    void setUp() {
+        loginActivityBuffer.flush();
+        oAuth2User = mock(OAuth2User.class);
+        when(oAuth2User.getAttributes()).thenReturn(Map.of("sub", "provisioning-sub"));
+        when(oAuth2User.getAttribute("email")).thenReturn("provisioning@email.com");
+        when(oAuth2User.getAttribute("name")).thenReturn("John Doe");
+        when(oAuth2User.getAttribute("picture")).thenReturn("avatar.png");
+    }
+
+    @Test
+    void provisionOAuthUser_createsUserOnce() {
+        Long created = userService.provisionOAuthUser("google", oAuth2User);
+        Long existing = userService.provisionOAuthUser("google", oAuth2User);
+
+        assertEquals(created, existing);
+        User user = userRepository.findByProviderAndProviderId("google", "provisioning-sub").orElseThrow();
+        assertEquals(created, user.getId());
+        assertEquals("provisioning@email.com", user.getEmail());
+        assertEquals(user.getCreatedAt(), user.getLastLoginAt());
+    }
+
+    @Test
+    void flush_updatesLastLoginAtInBulk() {
+        Long first = userService.provisionOAuthUser("google", oAuth2User);
+        when(oAuth2User.getAttributes()).thenReturn(Map.of("sub", "provisioning-sub-2"));
+        Long second = userService.provisionOAuthUser("google", oAuth2User);
+        LocalDateTime later = LocalDateTime.of(2100, 1, 1, 9, 0);
+        LocalDateTime earlier = LocalDateTime.of(2000, 1, 1, 9, 0);
+
+        loginActivityBuffer.record(first, later);
+        loginActivityBuffer.record(second, earlier);
+
+        assertEquals(1, loginActivityBuffer.flush());
+        entityManager.clear();
+        assertEquals(later, userRepository.findById(first).orElseThrow().getLastLoginAt());
+        assertEquals(userRepository.findById(second).orElseThrow().getCreatedAt(),
+                userRepository.findById(second).orElseThrow().getLastLoginAt());
+    }
+
+}
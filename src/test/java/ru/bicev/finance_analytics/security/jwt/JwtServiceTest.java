@@ -0,0 +1,107 @@
+package ru.bicev.finance_analytics.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class JwtServiceTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-test";
+
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private JwtService jwtService;
+
+    @BeforeEach
+    void init() {
+        clock = new MutableClock(Instant.parse("2025-10-01T10:00:00Z"));
+        meterRegistry = new SimpleMeterRegistry();
+        jwtService = new JwtService(SECRET, Duration.ofHours(1), "test-issuer", 100, meterRegistry, clock);
+    }
+
+    @Test
+    void testGetUserId_repeatedTokenVerifiedOnce() {
+        String token = jwtService.generateToken(42L);
+
+        assertEquals(42L, jwtService.getUserId(token));
+        assertEquals(42L, jwtService.getUserId(token));
+        assertTrue(jwtService.isValid(token));
+
+        assertEquals(1, meterRegistry.get("jwt.verification").timer().count());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "jwt").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void testGetUserId_cachedTokenExpires() {
+        String token = jwtService.generateToken(42L);
+        jwtService.getUserId(token);
+
+        clock.advance(Duration.ofHours(1).plusSeconds(1));
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.getUserId(token));
+        assertFalse(jwtService.isValid(token));
+    }
+
+    @Test
+    void testGetUserId_tamperedTokenRejected() {
+        String token = jwtService.generateToken(42L);
+        jwtService.getUserId(token);
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(SignatureException.class, () -> jwtService.getUserId(tampered));
+    }
+
+    @Test
+    void testGetUserId_otherIssuerRejected() {
+        String token = new JwtService(SECRET, Duration.ofHours(1), "other-issuer", 100, meterRegistry, clock)
+                .generateToken(42L);
+
+        assertFalse(jwtService.isValid(token));
+        assertFalse(jwtService.isValid(token));
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+}
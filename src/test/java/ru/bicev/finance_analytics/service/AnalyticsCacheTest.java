@@ -0,0 +1,185 @@
+package ru.bicev.finance_analytics.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ru.bicev.finance_analytics.service.AnalyticsCache.Endpoint;
+
+public class AnalyticsCacheTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2025, 10);
+
+    private SimpleMeterRegistry meterRegistry;
+    private DataVersionService dataVersionService;
+    private AnalyticsCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        dataVersionService = mock(DataVersionService.class);
+        cache = new AnalyticsCache(meterRegistry, dataVersionService, 2, Duration.ofMinutes(1));
+        loads = new AtomicInteger();
+    }
+
+    private String load(Long userId, Endpoint endpoint, YearMonth month) {
+        return cache.get(userId, endpoint, month, () -> userId + ":" + endpoint + ":" + month + ":"
+                + loads.incrementAndGet());
+    }
+
+    @Test
+    void testGet_cachesPerUserEndpointAndMonth() {
+        String first = load(1L, Endpoint.SUMMARY, MONTH);
+
+        assertEquals(first, load(1L, Endpoint.SUMMARY, MONTH));
+        assertNotEquals(first, load(1L, Endpoint.DAILY, MONTH));
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(2, cache.stats().missCount());
+    }
+
+    @Test
+    void testGet_olderDataVersionReloaded() {
+        String first = load(1L, Endpoint.SUMMARY, MONTH);
+        when(dataVersionService.current(1L)).thenReturn(1L);
+
+        String second = load(1L, Endpoint.SUMMARY, MONTH);
+
+        assertNotEquals(first, second);
+        assertEquals(second, load(1L, Endpoint.SUMMARY, MONTH));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGet_newerDataVersionUsed() {
+        when(dataVersionService.current(1L)).thenReturn(2L);
+        String first = load(1L, Endpoint.SUMMARY, MONTH);
+        when(dataVersionService.current(1L)).thenReturn(1L);
+
+        assertEquals(first, load(1L, Endpoint.SUMMARY, MONTH));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testGetIfPresent_olderDataVersion() {
+        cache.put(1L, Endpoint.TRENDS, MONTH, 1, "trends");
+
+        assertEquals("trends", cache.getIfPresent(1L, Endpoint.TRENDS, MONTH, 1));
+        assertNull(cache.getIfPresent(1L, Endpoint.TRENDS, MONTH, 2));
+    }
+
+    @Test
+    void testEvict_onlyUserAndMonth() {
+        load(1L, Endpoint.SUMMARY, MONTH);
+        load(2L, Endpoint.SUMMARY, MONTH);
+
+        cache.evict(1L, MONTH);
+        load(1L, Endpoint.SUMMARY, MONTH);
+        load(2L, Endpoint.SUMMARY, MONTH);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testEvictMonth() {
+        load(1L, Endpoint.SUMMARY, MONTH);
+        load(2L, Endpoint.SUMMARY, MONTH.plusMonths(1));
+
+        cache.evictMonth(MONTH);
+        load(1L, Endpoint.SUMMARY, MONTH);
+        load(2L, Endpoint.SUMMARY, MONTH.plusMonths(1));
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testEvict_followingTrendMonths() {
+        load(1L, Endpoint.TRENDS, MONTH.plusMonths(12));
+        load(1L, Endpoint.TRENDS, MONTH.plusMonths(13));
+
+        cache.evict(1L, MONTH);
+
+        assertNull(cache.getIfPresent(1L, Endpoint.TRENDS, MONTH.plusMonths(12), 0));
+        assertNotNull(cache.getIfPresent(1L, Endpoint.TRENDS, MONTH.plusMonths(13), 0));
+    }
+
+    @Test
+    void testEvictMonth_followingTrendMonths() {
+        load(1L, Endpoint.TRENDS, MONTH.minusMonths(1));
+        load(2L, Endpoint.TRENDS, MONTH.plusMonths(3));
+
+        cache.evictMonth(MONTH);
+
+        assertNotNull(cache.getIfPresent(1L, Endpoint.TRENDS, MONTH.minusMonths(1), 0));
+        assertNull(cache.getIfPresent(2L, Endpoint.TRENDS, MONTH.plusMonths(3), 0));
+    }
+
+    @Test
+    void testEvictUser() {
+        load(1L, Endpoint.SUMMARY, MONTH);
+        load(1L, Endpoint.DAILY, MONTH.minusMonths(1));
+
+        cache.evictUser(1L);
+        load(1L, Endpoint.SUMMARY, MONTH);
+        load(1L, Endpoint.DAILY, MONTH.minusMonths(1));
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void testStatsPublishedAsMetrics() {
+        load(1L, Endpoint.SUMMARY, MONTH);
+        load(1L, Endpoint.SUMMARY, MONTH);
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "analytics").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "analytics").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void testGet_concurrentRequestsLoadOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> first = executor.submit(() -> cache.get(1L, Endpoint.SUMMARY, MONTH, () -> {
+                loading.countDown();
+                release.join();
+                return "value:" + loads.incrementAndGet();
+            }));
+            loading.await();
+            Future<String> second = executor.submit(() -> load(1L, Endpoint.SUMMARY, MONTH));
+            release.complete(null);
+
+            assertEquals("value:1", first.get());
+            assertEquals("value:1", second.get());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testGet_failedLoadNotCached() {
+        IllegalStateException error = new IllegalStateException("failed");
+
+        assertSame(error, assertThrows(IllegalStateException.class,
+                () -> cache.get(1L, Endpoint.SUMMARY, MONTH, () -> {
+                    throw error;
+                })));
+        load(1L, Endpoint.SUMMARY, MONTH);
+
+        assertEquals(1, loads.get());
+    }
+}
@@ -4,10 +4,14 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.List;
@@ -19,8 +23,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import ru.bicev.finance_analytics.dto.CategoryExpenseDto;
+import ru.bicev.finance_analytics.dto.DailyExpenseDto;
 import ru.bicev.finance_analytics.dto.DateRange;
 import ru.bicev.finance_analytics.entity.Budget;
 import ru.bicev.finance_analytics.entity.Category;
@@ -29,8 +39,11 @@ import ru.bicev.finance_analytics.entity.Transaction;
 import ru.bicev.finance_analytics.entity.User;
 import ru.bicev.finance_analytics.exception.NotFoundException;
 import ru.bicev.finance_analytics.repo.BudgetRepository;
+import ru.bicev.finance_analytics.repo.DailyCategoryTotalRepository;
 import ru.bicev.finance_analytics.repo.RecurringTransactionRepository;
 import ru.bicev.finance_analytics.repo.TransactionRepository;
+import ru.bicev.finance_analytics.repo.projection.CategoryDayTotalProjection;
+import ru.bicev.finance_analytics.repo.projection.CategoryTypeTotalProjection;
 import ru.bicev.finance_analytics.util.CategoryType;
 import ru.bicev.finance_analytics.util.Frequency;
 
@@ -49,6 +62,19 @@ public class AnalyticsServiceTest {
         @Mock
         private BudgetRepository budgetRepository;
 
+        @Mock
+        private DailyCategoryTotalRepository dailyCategoryTotalRepository;
+
+        @Mock
+        private MonthSnapshotService monthSnapshotService;
+
+        @Spy
+        private QueryFanOut queryFanOut = new QueryFanOut(TransactionOperations.withoutTransaction(), 4);
+
+        @Spy
+        private AnalyticsCache analyticsCache = new AnalyticsCache(new SimpleMeterRegistry(),
+                        mock(DataVersionService.class), 100, Duration.ofMinutes(1));
+
         @InjectMocks
         private AnalyticsService analyticsService;
 
@@ -183,9 +209,11 @@ public class AnalyticsServiceTest {
 
         @Test
         void getExpensesByCategory() {
-                when(transactionRepository.findAllByUserIdAndCategory_TypeAndDateBetween(userId,
-                                CategoryType.EXPENSE, month.atDay(1),
-                                month.atEndOfMonth())).thenReturn(List.of(tr1, tr2, tr4));
+                when(dailyCategoryTotalRepository.sumByCategory(userId, CategoryType.EXPENSE, month.atDay(1),
+                                month.atEndOfMonth())).thenReturn(List.of(
+                                                new CategoryExpenseDto(catExpense1.getName(),
+                                                                tr1.getAmount().add(tr2.getAmount())),
+                                                new CategoryExpenseDto(catExpense2.getName(), tr4.getAmount())));
 
                 var result = analyticsService.getExpensesByCategory(month);
 
@@ -197,9 +225,11 @@ public class AnalyticsServiceTest {
 
         @Test
         void testGetTopCategories() {
-                when(transactionRepository.findAllByUserIdAndCategory_TypeAndDateBetween(userId,
-                                CategoryType.EXPENSE, month.atDay(1),
-                                month.atEndOfMonth())).thenReturn(List.of(tr1, tr2, tr4));
+                when(dailyCategoryTotalRepository.sumByCategory(userId, CategoryType.EXPENSE, month.atDay(1),
+                                month.atEndOfMonth())).thenReturn(List.of(
+                                                new CategoryExpenseDto(catExpense1.getName(),
+                                                                tr1.getAmount().add(tr2.getAmount())),
+                                                new CategoryExpenseDto(catExpense2.getName(), tr4.getAmount())));
 
                 var result = analyticsService.getTopCategories(month, 3);
 
@@ -211,9 +241,11 @@ public class AnalyticsServiceTest {
 
         @Test
         void testGetDailyExpenses() {
-                when(transactionRepository.findAllByUserIdAndCategory_TypeAndDateBetween(userId,
-                                CategoryType.EXPENSE, month.atDay(1),
-                                month.atEndOfMonth())).thenReturn(List.of(tr1, tr2, tr4));
+                when(dailyCategoryTotalRepository.sumByDay(userId, CategoryType.EXPENSE, month.atDay(1),
+                                month.atEndOfMonth())).thenReturn(List.of(
+                                                new DailyExpenseDto(tr1.getDate(), tr1.getAmount()),
+                                                new DailyExpenseDto(tr2.getDate(), tr2.getAmount()),
+                                                new DailyExpenseDto(tr4.getDate(), tr4.getAmount())));
 
                 var result = analyticsService.getDailyExpenses(month);
 
@@ -236,10 +268,34 @@ public class AnalyticsServiceTest {
                 assertEquals(tr1.getAmount().add(tr2.getAmount()).add(tr4.getAmount()), result.get(0).total());
         }
 
+        @Test
+        void testGetMonthlyExpenses_extremeRange() {
+                DateRange range = new DateRange(LocalDate.MIN, LocalDate.MAX);
+                Transaction distant = Transaction.builder()
+                                .id(UUID.randomUUID())
+                                .category(catExpense1)
+                                .date(LocalDate.MAX)
+                                .amount(new BigDecimal("10.00"))
+                                .user(user)
+                                .build();
+                when(transactionRepository.findAllByUserIdAndCategory_TypeAndDateBetween(userId,
+                                CategoryType.EXPENSE, range.start(), range.end())).thenReturn(List.of(distant, tr1));
+
+                var result = analyticsService.getMonthlyExpenses(range);
+
+                assertEquals(2, result.size());
+                assertEquals(tr1.getAmount(), result.get(0).total());
+                assertEquals(distant.getAmount(), result.get(1).total());
+        }
+
         @Test
         void testGetSummary() {
-                when(transactionRepository.findAllByUserIdAndDateBetween(userId, month.atDay(1),
-                                month.atEndOfMonth())).thenReturn(List.of(tr1, tr2, tr3, tr4));
+                when(dailyCategoryTotalRepository.sumByType(userId, month.atDay(1), month.atEndOfMonth()))
+                                .thenReturn(List.of(
+                                                typeTotal(CategoryType.INCOME, tr3.getAmount()),
+                                                typeTotal(CategoryType.EXPENSE,
+                                                                tr1.getAmount().add(tr2.getAmount())
+                                                                                .add(tr4.getAmount()))));
                 when(budgetRepository.sumAmountByUserIdAndMonth(userId, month))
                                 .thenReturn(Optional.of(b1.getAmount()));
 
@@ -255,6 +311,29 @@ public class AnalyticsServiceTest {
 
         }
 
+        @Test
+        void testGetSummary_cachedUntilEvicted() {
+                when(dailyCategoryTotalRepository.sumByType(userId, month.atDay(1), month.atEndOfMonth()))
+                                .thenReturn(List.of(typeTotal(CategoryType.EXPENSE, tr1.getAmount())));
+                when(budgetRepository.sumAmountByUserIdAndMonth(userId, month))
+                                .thenReturn(Optional.of(b1.getAmount()));
+
+                var first = analyticsService.getSummary(month);
+                var second = analyticsService.getSummary(month);
+
+                assertEquals(first, second);
+                verify(dailyCategoryTotalRepository, times(1)).sumByType(userId, month.atDay(1),
+                                month.atEndOfMonth());
+
+                analyticsCache.evict(userId, month);
+                analyticsService.getSummary(month);
+
+                verify(dailyCategoryTotalRepository, times(2)).sumByType(userId, month.atDay(1),
+                                month.atEndOfMonth());
+                assertEquals(1, analyticsCache.stats().hitCount());
+                assertEquals(2, analyticsCache.stats().missCount());
+        }
+
         @Test
         void testGetCategoryBudgetStatus() {
                 lenient().when(budgetRepository.findByIdAndUserId(budgetId, userId)).thenReturn(Optional.of(b1));
@@ -298,4 +377,92 @@ public class AnalyticsServiceTest {
                 assertEquals(rtr1.getAmount().add(rtr2.getAmount()), result.get(0).expectedAmount());
         }
 
+        @Test
+        void testGetDashboard() {
+                when(dailyCategoryTotalRepository.findAllWithCategory(userId, month.atDay(1), month.atEndOfMonth()))
+                                .thenReturn(List.of(
+                                                dayTotal(tr1), dayTotal(tr2), dayTotal(tr3), dayTotal(tr4)));
+                when(budgetRepository.findByUserIdAndMonth(userId, month)).thenReturn(List.of(b1));
+
+                var result = analyticsService.getDashboard(month, 1);
+                BigDecimal income = b1.getAmount().add(tr3.getAmount());
+                BigDecimal expense = tr1.getAmount().add(tr2.getAmount()).add(tr4.getAmount());
+                BigDecimal food = tr1.getAmount().add(tr2.getAmount());
+
+                assertEquals(income, result.summary().income());
+                assertEquals(expense, result.summary().expense());
+                assertEquals(income.subtract(expense), result.summary().balance());
+                assertEquals(2, result.categories().size());
+                assertEquals("Food", result.categories().get(0).category());
+                assertEquals(food, result.categories().get(0).total());
+                assertEquals(1, result.topCategories().size());
+                assertEquals("Food", result.topCategories().get(0).category());
+                assertEquals(3, result.daily().size());
+                assertEquals(tr1.getDate(), result.daily().get(0).date());
+                assertEquals(tr4.getAmount(), result.daily().get(2).amount());
+                assertEquals(1, result.budgets().size());
+                assertEquals(food, result.budgets().get(0).spent());
+                assertEquals(new BigDecimal("52.00"), result.budgets().get(0).percentUsed());
+        }
+
+        @Test
+        void testGetDashboard_limitAppliedToCachedRanking() {
+                when(dailyCategoryTotalRepository.findAllWithCategory(userId, month.atDay(1), month.atEndOfMonth()))
+                                .thenReturn(List.of(dayTotal(tr1), dayTotal(tr4)));
+                when(budgetRepository.findByUserIdAndMonth(userId, month)).thenReturn(List.of());
+
+                assertEquals(1, analyticsService.getDashboard(month, 1).topCategories().size());
+                assertEquals(2, analyticsService.getDashboard(month, 5).topCategories().size());
+                verify(dailyCategoryTotalRepository, times(1)).findAllWithCategory(userId, month.atDay(1),
+                                month.atEndOfMonth());
+        }
+
+        @Test
+        void testGetDashboard_invalidLimit() {
+                assertThrows(IllegalArgumentException.class, () -> analyticsService.getDashboard(month, 0));
+        }
+
+        private static CategoryDayTotalProjection dayTotal(Transaction transaction) {
+                return new CategoryDayTotalProjection() {
+                        @Override
+                        public LocalDate getDate() {
+                                return transaction.getDate();
+                        }
+
+                        @Override
+                        public UUID getCategoryId() {
+                                return transaction.getCategory().getId();
+                        }
+
+                        @Override
+                        public String getCategoryName() {
+                                return transaction.getCategory().getName();
+                        }
+
+                        @Override
+                        public CategoryType getType() {
+                                return transaction.getCategory().getType();
+                        }
+
+                        @Override
+                        public BigDecimal getTotal() {
+                                return transaction.getAmount();
+                        }
+                };
+        }
+
+        private static CategoryTypeTotalProjection typeTotal(CategoryType type, BigDecimal total) {
+                return new CategoryTypeTotalProjection() {
+                        @Override
+                        public CategoryType getType() {
+                                return type;
+                        }
+
+                        @Override
+                        public BigDecimal getTotal() {
+                                return total;
+                        }
+                };
+        }
+
 }
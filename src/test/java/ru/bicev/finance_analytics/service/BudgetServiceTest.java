@@ -6,6 +6,7 @@ import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
@@ -42,6 +43,15 @@ public class BudgetServiceTest {
         @Mock
         private UserService userService;
 
+        @Mock
+        private AnalyticsCache analyticsCache;
+
+        @Mock
+        private MonthSnapshotService monthSnapshotService;
+
+        @Mock
+        private DataVersionService dataVersionService;
+
         @InjectMocks
         private BudgetService budgetService;
 
@@ -63,7 +73,7 @@ public class BudgetServiceTest {
                                 .build();
 
                 lenient().when(userService.getCurrentUserId()).thenReturn(100L);
-                lenient().when(userService.getCurrentUser()).thenReturn(user);
+                lenient().when(userService.getCurrentUserReference()).thenReturn(user);
         }
 
         // --------------------------------------------------------
@@ -219,6 +229,7 @@ public class BudgetServiceTest {
                 assertEquals(amount, result.amount());
 
                 verify(budgetRepository).save(existing);
+                verify(dataVersionService).bump(user.getId());
         }
 
         @Test
@@ -249,6 +260,7 @@ public class BudgetServiceTest {
                 budgetService.deleteBudget(id);
 
                 verify(budgetRepository).delete(b);
+                verify(dataVersionService).bump(user.getId());
         }
 
         @Test
@@ -263,24 +275,17 @@ public class BudgetServiceTest {
         }
 
         // --------------------------------------------------------
-        // createBudgetForCategoryAndUser()
+        // generateBudgetsFromTemplates()
         // --------------------------------------------------------
         @Test
-        void createBudgetForCategoryAndUser_success() {
-                when(budgetRepository.existsByUserIdAndCategoryIdAndMonth(user.getId(), category.getId(),
-                                YearMonth.now())).thenReturn(false);
-
-                budgetService.createBudgetForCategoryAndUser(user, category, amount, YearMonth.now());
-                verify(budgetRepository, times(1)).save(any(Budget.class));
-        }
+        void generateBudgetsFromTemplates_success() {
+                YearMonth month = YearMonth.of(2025, 8);
+                when(budgetRepository.insertFromActiveTemplates(eq(month), any(LocalDateTime.class))).thenReturn(3);
 
-        @Test
-        void createBudgetForCategoryAndUser_budgetExists() {
-                when(budgetRepository.existsByUserIdAndCategoryIdAndMonth(user.getId(), category.getId(),
-                                YearMonth.now())).thenReturn(true);
+                int created = budgetService.generateBudgetsFromTemplates(month);
 
-                budgetService.createBudgetForCategoryAndUser(user, category, amount, YearMonth.now());
-                verify(budgetRepository, times(0)).save(any(Budget.class));
+                assertEquals(3, created);
+                verify(budgetRepository, never()).save(any(Budget.class));
         }
 
 }
@@ -44,6 +44,9 @@ public class BudgetTemplateServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private DataVersionService dataVersionService;
+
     @InjectMocks
     private BudgetTemplateService budgetTemplateService;
 
@@ -89,7 +92,7 @@ public class BudgetTemplateServiceTest {
         request = new BudgetTemplateRequest(category.getId(), BigDecimal.valueOf(100.00), true, YearMonth.of(2025, 1));
         updateRequest = new BudgetTemplateUpdateRequest(null, BigDecimal.valueOf(200.00), true, YearMonth.of(2025, 5));
         lenient().when(userService.getCurrentUserId()).thenReturn(user.getId());
-        lenient().when(userService.getCurrentUser()).thenReturn(user);
+        lenient().when(userService.getCurrentUserReference()).thenReturn(user);
     }
 
     // ----------------------------------
@@ -31,6 +31,15 @@ public class CategoryServiceTest {
         @Mock
         private CategoryRepository categoryRepository;
 
+        @Mock
+        private AnalyticsCache analyticsCache;
+
+        @Mock
+        private MonthSnapshotService monthSnapshotService;
+
+        @Mock
+        private DataVersionService dataVersionService;
+
         @InjectMocks
         private CategoryService categoryService;
 
@@ -43,7 +52,7 @@ public class CategoryServiceTest {
                                 .email("test@mail.com")
                                 .build();
 
-                lenient().when(userService.getCurrentUser()).thenReturn(user);
+                lenient().when(userService.getCurrentUserReference()).thenReturn(user);
                 lenient().when(userService.getCurrentUserId()).thenReturn(user.getId());
         }
 
@@ -210,6 +219,7 @@ public class CategoryServiceTest {
                 categoryService.deleteCategory(id);
 
                 verify(categoryRepository).delete(cat);
+                verify(dataVersionService).bump(user.getId());
         }
 
         @Test
@@ -0,0 +1,101 @@
+package ru.bicev.finance_analytics.service;
+
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import ru.bicev.finance_analytics.entity.Category;
+import ru.bicev.finance_analytics.entity.Transaction;
+import ru.bicev.finance_analytics.entity.User;
+import ru.bicev.finance_analytics.repo.DailyCategoryTotalRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class DailyCategoryTotalServiceTest {
+
+    @Mock
+    private DailyCategoryTotalRepository dailyCategoryTotalRepository;
+
+    @Mock
+    private AnalyticsCache analyticsCache;
+
+    @Mock
+    private MonthSnapshotService monthSnapshotService;
+
+    private DailyCategoryTotalService service;
+
+    private User user;
+    private Category category;
+    private Transaction transaction;
+
+    @BeforeEach
+    void init() {
+        service = new DailyCategoryTotalService(dailyCategoryTotalRepository, analyticsCache, monthSnapshotService);
+
+        user = User.builder().id(1L).build();
+        category = Category.builder().id(UUID.randomUUID()).user(user).build();
+        transaction = Transaction.builder()
+                .id(UUID.randomUUID())
+                .user(user)
+                .category(category)
+                .amount(new BigDecimal("120.50"))
+                .date(LocalDate.of(2025, 10, 5))
+                .build();
+    }
+
+    @Test
+    void testAdd() {
+        service.add(transaction);
+
+        verify(dailyCategoryTotalRepository).addToTotal(user.getId(), category.getId(), transaction.getDate(),
+                new BigDecimal("120.50"), 1);
+        verify(dailyCategoryTotalRepository, never()).deleteEmpty(any(), any(), any());
+        verify(analyticsCache).evict(user.getId(), YearMonth.of(2025, 10));
+        verify(monthSnapshotService).reopen(user.getId(), YearMonth.of(2025, 10));
+    }
+
+    @Test
+    void testSubtract_removesEmptyRow() {
+        service.subtract(transaction);
+
+        InOrder inOrder = inOrder(dailyCategoryTotalRepository);
+        inOrder.verify(dailyCategoryTotalRepository).addToTotal(user.getId(), category.getId(),
+                transaction.getDate(), new BigDecimal("-120.50"), -1);
+        inOrder.verify(dailyCategoryTotalRepository).deleteEmpty(user.getId(), category.getId(),
+                transaction.getDate());
+        verify(analyticsCache).evict(user.getId(), YearMonth.of(2025, 10));
+        verify(monthSnapshotService).reopen(user.getId(), YearMonth.of(2025, 10));
+    }
+
+    @Test
+    void testAddAll_groupsByDayAndEvictsEachMonthOnce() {
+        Transaction sameDay = Transaction.builder().user(user).category(category)
+                .amount(new BigDecimal("9.50")).date(transaction.getDate()).build();
+        Transaction sameMonth = Transaction.builder().user(user).category(category)
+                .amount(BigDecimal.ONE).date(LocalDate.of(2025, 10, 20)).build();
+        Transaction nextMonth = Transaction.builder().user(user).category(category)
+                .amount(BigDecimal.TEN).date(LocalDate.of(2025, 11, 1)).build();
+
+        service.addAll(List.of(transaction, sameDay, sameMonth, nextMonth));
+
+        verify(dailyCategoryTotalRepository).addToTotal(user.getId(), category.getId(), transaction.getDate(),
+                new BigDecimal("130.00"), 2);
+        verify(dailyCategoryTotalRepository, times(3)).addToTotal(any(), any(), any(), any(), anyLong());
+        verify(analyticsCache).evict(user.getId(), YearMonth.of(2025, 10));
+        verify(monthSnapshotService).reopen(user.getId(), YearMonth.of(2025, 10));
+        verify(analyticsCache).evict(user.getId(), YearMonth.of(2025, 11));
+        verify(monthSnapshotService).reopen(user.getId(), YearMonth.of(2025, 11));
+        verifyNoMoreInteractions(analyticsCache);
+    }
+
+}
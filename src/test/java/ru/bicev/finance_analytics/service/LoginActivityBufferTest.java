@@ -0,0 +1,84 @@
+package ru.bicev.finance_analytics.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import ru.bicev.finance_analytics.repo.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class LoginActivityBufferTest {
+
+    private static final LocalDateTime LOGIN = LocalDateTime.of(2025, 10, 1, 9, 0);
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private LoginActivityBuffer loginActivityBuffer;
+
+    @Test
+    void testFlush_keepsLatestLoginPerUser() {
+        loginActivityBuffer.record(1L, LOGIN.plusMinutes(5));
+        loginActivityBuffer.record(1L, LOGIN);
+        loginActivityBuffer.record(2L, LOGIN);
+        when(userRepository.updateLastLoginAt(any(), any())).thenReturn(2);
+
+        ArgumentCaptor<Long[]> userIds = ArgumentCaptor.forClass(Long[].class);
+        ArgumentCaptor<LocalDateTime[]> lastLoginAts = ArgumentCaptor.forClass(LocalDateTime[].class);
+
+        assertEquals(2, loginActivityBuffer.flush());
+
+        verify(userRepository, times(1)).updateLastLoginAt(userIds.capture(), lastLoginAts.capture());
+        assertEquals(2, userIds.getValue().length);
+        for (int i = 0; i < userIds.getValue().length; i++) {
+            LocalDateTime expected = userIds.getValue()[i] == 1L ? LOGIN.plusMinutes(5) : LOGIN;
+            assertEquals(expected, lastLoginAts.getValue()[i]);
+        }
+    }
+
+    @Test
+    void testFlush_emptyBufferSkipsUpdate() {
+        loginActivityBuffer.record(1L, LOGIN);
+        loginActivityBuffer.flush();
+
+        assertEquals(0, loginActivityBuffer.flush());
+
+        verify(userRepository, times(1)).updateLastLoginAt(any(), any());
+    }
+
+    @Test
+    void testFlush_failureKeepsLogins() {
+        loginActivityBuffer.record(1L, LOGIN);
+        when(userRepository.updateLastLoginAt(any(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(1);
+
+        assertThrows(QueryTimeoutException.class, () -> loginActivityBuffer.flush());
+        assertEquals(1, loginActivityBuffer.flush());
+
+        verify(userRepository, times(2)).updateLastLoginAt(new Long[] { 1L }, new LocalDateTime[] { LOGIN });
+    }
+
+    @Test
+    void testFlush_nothingRecorded() {
+        assertEquals(0, loginActivityBuffer.flush());
+
+        verify(userRepository, never()).updateLastLoginAt(any(), any());
+    }
+
+}
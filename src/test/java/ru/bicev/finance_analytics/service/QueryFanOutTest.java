@@ -0,0 +1,141 @@
+package ru.bicev.finance_analytics.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ru.bicev.finance_analytics.security.CustomUserPrincipal;
+
+public class QueryFanOutTest {
+
+    private QueryFanOut queryFanOut;
+
+    @BeforeEach
+    void init() {
+        queryFanOut = new QueryFanOut(TransactionOperations.withoutTransaction(), 4);
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                new CustomUserPrincipal(1L, Map.of()), null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        queryFanOut.shutdown();
+        SecurityContextHolder.clearContext();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    @Test
+    void testJoin_runsQueriesConcurrently() {
+        CountDownLatch started = new CountDownLatch(2);
+
+        String result = queryFanOut.join(
+                () -> awaitBoth(started, "forked"),
+                () -> awaitBoth(started, "inline"),
+                (forked, inline) -> forked + ":" + inline);
+
+        assertEquals("forked:inline", result);
+    }
+
+    @Test
+    void testJoin_propagatesSecurityContext() {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        Object forkedPrincipal = queryFanOut.join(
+                () -> SecurityContextHolder.getContext().getAuthentication().getPrincipal(),
+                () -> null,
+                (forked, inline) -> forked);
+
+        assertSame(principal, forkedPrincipal);
+    }
+
+    @Test
+    void testJoin_forkedFailureRethrown() {
+        IllegalStateException error = new IllegalStateException("failed");
+
+        assertSame(error, assertThrows(IllegalStateException.class, () -> queryFanOut.join(
+                () -> {
+                    throw error;
+                },
+                () -> "inline",
+                (forked, inline) -> inline)));
+    }
+
+    @Test
+    void testJoin_readWriteTransactionRunsInline() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        Thread caller = Thread.currentThread();
+
+        Thread forkedThread = queryFanOut.join(Thread::currentThread, () -> null, (forked, inline) -> forked);
+
+        assertSame(caller, forkedThread);
+    }
+
+    @Test
+    void testJoin_readOnlyTransactionForks() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Thread caller = Thread.currentThread();
+
+        Thread forkedThread = queryFanOut.join(Thread::currentThread, () -> null, (forked, inline) -> forked);
+
+        assertNotSame(caller, forkedThread);
+        assertTrue(forkedThread.isVirtual());
+    }
+
+    @Test
+    void testJoin_noPermitsRunsInline() {
+        queryFanOut = new QueryFanOut(TransactionOperations.withoutTransaction(), 0);
+        Thread caller = Thread.currentThread();
+
+        Thread forkedThread = queryFanOut.join(Thread::currentThread, () -> null, (forked, inline) -> forked);
+
+        assertSame(caller, forkedThread);
+    }
+
+    @Test
+    void testCheckMaxConcurrency_belowPoolSize() {
+        assertEquals(9, QueryFanOut.checkMaxConcurrency(9, 10));
+    }
+
+    @Test
+    void testCheckMaxConcurrency_notBelowPoolSize() {
+        assertThrows(IllegalStateException.class, () -> QueryFanOut.checkMaxConcurrency(10, 10));
+        assertThrows(IllegalStateException.class, () -> QueryFanOut.checkMaxConcurrency(16, 10));
+    }
+
+    /**
+     * Запрос, который завершается, только когда оба запроса запущены
+     */
+    private static String awaitBoth(CountDownLatch started, String value) {
+        started.countDown();
+        try {
+            if (!started.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Queries were not run concurrently");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return value;
+    }
+
+}
@@ -38,6 +38,9 @@ public class RecuringTransactionServiceTest {
         @Mock
         private RecurringTransactionRepository recurringTransactionRepository;
 
+        @Mock
+        private DataVersionService dataVersionService;
+
         @InjectMocks
         private RecurringTransactionService service;
 
@@ -49,7 +52,7 @@ public class RecuringTransactionServiceTest {
                 user = User.builder().id(1L).email("test@mail.com").build();
                 category = Category.builder().id(UUID.randomUUID()).user(user).name("Food").build();
 
-                lenient().when(userService.getCurrentUser()).thenReturn(user);
+                lenient().when(userService.getCurrentUserReference()).thenReturn(user);
                 lenient().when(userService.getCurrentUserId()).thenReturn(user.getId());
         }
 
@@ -4,10 +4,11 @@ import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,13 +16,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import ru.bicev.finance_analytics.entity.Category;
 import ru.bicev.finance_analytics.entity.RecurringTransaction;
+import ru.bicev.finance_analytics.entity.Transaction;
 import ru.bicev.finance_analytics.entity.User;
-import ru.bicev.finance_analytics.repo.CategoryRepository;
-import ru.bicev.finance_analytics.repo.UserRepository;
+import ru.bicev.finance_analytics.exception.LeaseLostException;
 import ru.bicev.finance_analytics.util.Frequency;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,11 +41,13 @@ public class RecurringExecutionServiceTest {
     private RecurringTransactionService recuringTransactionService;
 
     @Mock
-    private UserRepository userRepository;
+    private PlatformTransactionManager transactionManager;
 
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @Mock
-    private CategoryRepository categoryRepository;
+    private SchedulerLockService schedulerLockService;
 
     @InjectMocks
     private RecurringExecutionService service;
@@ -62,50 +71,195 @@ public class RecurringExecutionServiceTest {
                 .isActive(true)
                 .nextExecutionDate(LocalDate.now())
                 .build();
+
+        ReflectionTestUtils.setField(service, "partitions", 1);
     }
 
+    @SuppressWarnings("unchecked")
     @Test
     void testExecuteDueTransactions_success() {
-        when(recuringTransactionService.findAllActiveByNextExecutionDateBefore(any(LocalDate.class)))
+        when(recuringTransactionService.claimDueChunk(any(LocalDate.class), anyInt(), anyInt(), anyInt()))
                 .thenReturn(List.of(recurring));
 
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(categoryRepository.findByIdAndUserId(category.getId(), user.getId())).thenReturn(Optional.of(category));
-        when(recuringTransactionService.save(any(RecurringTransaction.class)))
-                .thenAnswer(inv -> inv.getArgument(0));
-
-        service.executeDueTransactions();
+        int created = service.executeDueTransactions().created();
 
-        ArgumentCaptor<UUID> categoryCaptor = ArgumentCaptor.forClass(UUID.class);
-        ArgumentCaptor<BigDecimal> amountCaptor = ArgumentCaptor.forClass(BigDecimal.class);
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, times(1)).saveAll(captor.capture());
 
-        verify(transactionService, times(1)).createTransactionForUser(eq(user), any());
+        assertEquals(1, created);
+        assertEquals(1, captor.getValue().size());
+        Transaction transaction = captor.getValue().get(0);
+        assertEquals(user, transaction.getUser());
+        assertEquals(category, transaction.getCategory());
+        assertEquals(new BigDecimal("100.00"), transaction.getAmount());
+        assertEquals(LocalDate.now(), transaction.getDate());
 
         assertEquals(LocalDate.now().plusMonths(1), recurring.getNextExecutionDate());
         assertEquals(LocalDate.now(), recurring.getLastExecutionDate());
 
-        verify(recuringTransactionService, times(1)).save(recurring);
+        verify(recuringTransactionService, times(1)).saveAll(List.of(recurring));
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testExecuteDueTransactions_catchUpMissedPeriods() {
+        LocalDate start = LocalDate.now().minusWeeks(2);
+        recurring.setFrequency(Frequency.WEEKLY);
+        recurring.setNextExecutionDate(start);
+        when(recuringTransactionService.claimDueChunk(any(LocalDate.class), anyInt(), anyInt(), anyInt()))
+                .thenReturn(List.of(recurring));
+
+        int created = service.executeDueTransactions().created();
+
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService).saveAll(captor.capture());
+
+        assertEquals(3, created);
+        assertEquals(List.of(start, start.plusWeeks(1), start.plusWeeks(2)),
+                captor.getValue().stream().map(Transaction::getDate).toList());
+        assertEquals(start.plusWeeks(2), recurring.getLastExecutionDate());
+        assertEquals(start.plusWeeks(3), recurring.getNextExecutionDate());
+    }
+
+    @Test
+    void testExecuteDueTransactions_multipleChunks() {
+        RecurringTransaction second = RecurringTransaction.builder()
+                .id(UUID.randomUUID())
+                .user(user)
+                .category(category)
+                .amount(BigDecimal.TEN)
+                .frequency(Frequency.MONTHLY)
+                .isActive(true)
+                .nextExecutionDate(LocalDate.now())
+                .build();
+        ReflectionTestUtils.setField(service, "chunkSize", 1);
+        when(recuringTransactionService.claimDueChunk(any(LocalDate.class), eq(0), eq(1), eq(1)))
+                .thenReturn(List.of(recurring), List.of(second), List.of());
+
+        int created = service.executeDueTransactions().created();
+
+        assertEquals(2, created);
+        verify(recuringTransactionService, times(3)).claimDueChunk(any(LocalDate.class), eq(0), eq(1), eq(1));
+        verify(transactionService, times(2)).saveAll(any());
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void testExecuteDueTransactions_partitionsProcessedInParallel() {
+        User otherUser = User.builder().id(2L).build();
+        RecurringTransaction other = RecurringTransaction.builder()
+                .id(UUID.randomUUID())
+                .user(otherUser)
+                .category(Category.builder().id(UUID.randomUUID()).user(otherUser).build())
+                .amount(BigDecimal.TEN)
+                .frequency(Frequency.WEEKLY)
+                .isActive(true)
+                .nextExecutionDate(LocalDate.now().minusWeeks(1))
+                .build();
+        ReflectionTestUtils.setField(service, "partitions", 2);
+        ReflectionTestUtils.setField(service, "workers", 2);
+        when(recuringTransactionService.claimDueChunk(any(LocalDate.class), eq(0), eq(2), anyInt()))
+                .thenReturn(List.of(other));
+        when(recuringTransactionService.claimDueChunk(any(LocalDate.class), eq(1), eq(2), anyInt()))
+                .thenReturn(List.of(recurring));
+
+        int created = service.executeDueTransactions().created();
+
+        assertEquals(3, created);
+        assertEquals(2.0, meterRegistry.counter("recurring.execution.transactions", "partition", "0").count());
+        assertEquals(1.0, meterRegistry.counter("recurring.execution.transactions", "partition", "1").count());
+        assertEquals(1.0, meterRegistry.counter("recurring.execution.rows", "partition", "1").count());
+    }
+
+    @Test
+    void testExecuteDueTransactions_failedChunkStopsPartition() {
+        when(recuringTransactionService.claimDueChunk(any(LocalDate.class), anyInt(), anyInt(), anyInt()))
+                .thenReturn(List.of(recurring));
+        when(transactionService.saveAll(any())).thenThrow(new IllegalStateException("db error"));
+
+        assertEquals(new RecurringExecutionResult(0, 1), service.executeDueTransactions());
+
+        verify(transactionManager).rollback(any());
+        verify(recuringTransactionService, never()).saveAll(any());
+        assertEquals(1.0, meterRegistry.counter("recurring.execution.failures", "partition", "0").count());
+    }
+
+    @Test
+    void testExecuteDueTransactions_failedPartitionReported() {
+        ReflectionTestUtils.setField(service, "partitions", 2);
+        ReflectionTestUtils.setField(service, "workers", 2);
+        when(recuringTransactionService.claimDueChunk(any(LocalDate.class), eq(0), eq(2), anyInt()))
+                .thenThrow(new IllegalStateException("db error"));
+        when(recuringTransactionService.claimDueChunk(any(LocalDate.class), eq(1), eq(2), anyInt()))
+                .thenReturn(List.of(recurring));
+
+        RecurringExecutionResult result = service.executeDueTransactions();
+
+        assertEquals(1, result.created());
+        assertEquals(1, result.failedPartitions());
+    }
+
+    @Test
+    void testExecuteDueTransactions_verifiesLeaseForEachChunk() {
+        JobLease lease = new JobLease("recurring-transactions", "node", 1L);
+        when(recuringTransactionService.claimDueChunk(any(LocalDate.class), anyInt(), anyInt(), anyInt()))
+                .thenReturn(List.of(recurring));
+
+        assertEquals(new RecurringExecutionResult(1, 0), service.executeDueTransactions(lease));
+
+        verify(schedulerLockService).verify(lease);
+    }
+
+    @Test
+    void testExecuteDueTransactions_leaseLost() {
+        JobLease lease = new JobLease("recurring-transactions", "node", 1L);
+        doThrow(new LeaseLostException("Lease is lost")).when(schedulerLockService).verify(lease);
+
+        assertThrows(LeaseLostException.class, () -> service.executeDueTransactions(lease));
+
+        verify(recuringTransactionService, never()).claimDueChunk(any(), anyInt(), anyInt(), anyInt());
+        verify(transactionService, never()).saveAll(any());
+    }
+
+    @Test
+    void testExecuteDueTransactions_timeoutStopsWorkersBeforeReturning() {
+        ReflectionTestUtils.setField(service, "timeout", Duration.ofMillis(200));
+        AtomicBoolean workerFinished = new AtomicBoolean();
+        when(recuringTransactionService.claimDueChunk(any(LocalDate.class), anyInt(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    try {
+                        Thread.sleep(Duration.ofSeconds(30));
+                        return List.of(recurring);
+                    } finally {
+                        workerFinished.set(true);
+                    }
+                });
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> service.executeDueTransactions());
+
+        assertTrue(e.getMessage().contains("timed out"));
+        assertTrue(workerFinished.get());
+        verify(recuringTransactionService, times(1)).claimDueChunk(any(), anyInt(), anyInt(), anyInt());
+        verify(transactionService, never()).saveAll(any());
     }
 
     @Test
     void testExecuteDueTransactions_noDueTransactions() {
-        when(recuringTransactionService.findAllActiveByNextExecutionDateBefore(any(LocalDate.class)))
+        when(recuringTransactionService.claimDueChunk(any(LocalDate.class), anyInt(), anyInt(), anyInt()))
                 .thenReturn(List.of());
 
-        assertDoesNotThrow(() -> service.executeDueTransactions());
+        assertEquals(new RecurringExecutionResult(0, 0), assertDoesNotThrow(() -> service.executeDueTransactions()));
 
-        verify(transactionService, never()).createTransactionForUser(any(), any());
-        verify(recuringTransactionService, never()).save(any());
+        verify(transactionService, never()).saveAll(any());
+        verify(recuringTransactionService, never()).saveAll(any());
     }
 
     @Test
     void testCalculateNextDate_yearlyFrequency() {
         recurring.setFrequency(Frequency.YEARLY);
-        when(recuringTransactionService.findAllActiveByNextExecutionDateBefore(any(LocalDate.class)))
+        when(recuringTransactionService.claimDueChunk(any(LocalDate.class), anyInt(), anyInt(), anyInt()))
                 .thenReturn(List.of(recurring));
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(categoryRepository.findByIdAndUserId(category.getId(), user.getId())).thenReturn(Optional.of(category));
-        when(recuringTransactionService.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
         service.executeDueTransactions();
 
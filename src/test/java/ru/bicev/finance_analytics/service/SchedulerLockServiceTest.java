@@ -0,0 +1,157 @@
+package ru.bicev.finance_analytics.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import ru.bicev.finance_analytics.entity.JobRun;
+import ru.bicev.finance_analytics.entity.SchedulerLock;
+import ru.bicev.finance_analytics.exception.LeaseLostException;
+import ru.bicev.finance_analytics.repo.JobRunRepository;
+import ru.bicev.finance_analytics.repo.SchedulerLockRepository;
+import ru.bicev.finance_analytics.util.JobRunStatus;
+
+@ExtendWith(MockitoExtension.class)
+public class SchedulerLockServiceTest {
+
+    private static final String JOB = "test-job";
+
+    @Mock
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Mock
+    private JobRunRepository jobRunRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private SchedulerLockService service;
+
+    private void acquireWithToken(long token) {
+        when(schedulerLockRepository.tryAcquire(eq(JOB), anyString(), anyLong())).thenReturn(1);
+        when(schedulerLockRepository.findById(JOB)).thenReturn(Optional.of(SchedulerLock.builder()
+                .name(JOB)
+                .lockedAt(LocalDateTime.now())
+                .lockedUntil(LocalDateTime.now().plusMinutes(5))
+                .fencingToken(token)
+                .build()));
+    }
+
+    @Test
+    void testRunExclusively_success() {
+        acquireWithToken(7L);
+        AtomicReference<JobLease> received = new AtomicReference<>();
+
+        boolean executed = service.runExclusively(JOB, lease -> {
+            received.set(lease);
+            return JobResult.success(42);
+        });
+
+        assertTrue(executed);
+        assertEquals(7L, received.get().fencingToken());
+        assertEquals(JOB, received.get().jobName());
+        verify(schedulerLockRepository).release(eq(JOB), eq(received.get().ownerId()), eq(7L), anyLong());
+
+        ArgumentCaptor<JobRun> captor = ArgumentCaptor.forClass(JobRun.class);
+        verify(jobRunRepository).save(captor.capture());
+        JobRun run = captor.getValue();
+        assertEquals(JOB, run.getJobName());
+        assertEquals(7L, run.getFencingToken());
+        assertEquals(42L, run.getRowsProcessed());
+        assertEquals(JobRunStatus.SUCCESS, run.getStatus());
+        assertNull(run.getError());
+        assertTrue(run.getDurationMs() >= 0);
+    }
+
+    @Test
+    void testRunExclusively_leaseHeldByAnotherNode() {
+        when(schedulerLockRepository.tryAcquire(eq(JOB), anyString(), anyLong())).thenReturn(0);
+
+        boolean executed = service.runExclusively(JOB, lease -> fail("job must not run"));
+
+        assertFalse(executed);
+        verify(schedulerLockRepository, never()).release(any(), any(), anyLong(), anyLong());
+        verify(jobRunRepository, never()).save(any());
+    }
+
+    @Test
+    void testRunExclusively_jobFailed() {
+        acquireWithToken(3L);
+
+        boolean executed = service.runExclusively(JOB, lease -> {
+            throw new IllegalStateException("boom");
+        });
+
+        assertTrue(executed);
+        verify(schedulerLockRepository).release(eq(JOB), anyString(), eq(3L), anyLong());
+        ArgumentCaptor<JobRun> captor = ArgumentCaptor.forClass(JobRun.class);
+        verify(jobRunRepository).save(captor.capture());
+        assertEquals(JobRunStatus.FAILED, captor.getValue().getStatus());
+        assertEquals("IllegalStateException: boom", captor.getValue().getError());
+    }
+
+    @Test
+    void testRunExclusively_jobPartiallyFailed() {
+        acquireWithToken(4L);
+
+        boolean executed = service.runExclusively(JOB, lease -> JobResult.failed(10, "Failed partitions: 1"));
+
+        assertTrue(executed);
+        ArgumentCaptor<JobRun> captor = ArgumentCaptor.forClass(JobRun.class);
+        verify(jobRunRepository).save(captor.capture());
+        assertEquals(JobRunStatus.FAILED, captor.getValue().getStatus());
+        assertEquals(10L, captor.getValue().getRowsProcessed());
+        assertEquals("Failed partitions: 1", captor.getValue().getError());
+    }
+
+    @Test
+    void testRunExclusively_leaseLost() {
+        acquireWithToken(5L);
+
+        boolean executed = service.runExclusively(JOB, lease -> {
+            throw new LeaseLostException("Lease for job " + JOB + " is lost");
+        });
+
+        assertTrue(executed);
+        ArgumentCaptor<JobRun> captor = ArgumentCaptor.forClass(JobRun.class);
+        verify(jobRunRepository).save(captor.capture());
+        assertEquals(JobRunStatus.FAILED, captor.getValue().getStatus());
+        assertEquals("LeaseLostException: Lease for job " + JOB + " is lost", captor.getValue().getError());
+    }
+
+    @Test
+    void testVerify_leaseHeld() {
+        JobLease lease = new JobLease(JOB, "node", 5L);
+        when(schedulerLockRepository.findFencingTokenForShare(JOB, "node")).thenReturn(Optional.of(5L));
+
+        assertDoesNotThrow(() -> service.verify(lease));
+    }
+
+    @Test
+    void testVerify_leaseLost() {
+        JobLease lease = new JobLease(JOB, "node", 5L);
+        when(schedulerLockRepository.findFencingTokenForShare(JOB, "node")).thenReturn(Optional.of(6L));
+
+        assertThrows(LeaseLostException.class, () -> service.verify(lease));
+    }
+
+    @Test
+    void testVerify_leaseTakenByAnotherOwner() {
+        JobLease lease = new JobLease(JOB, "node", 5L);
+        when(schedulerLockRepository.findFencingTokenForShare(JOB, "node")).thenReturn(Optional.empty());
+
+        assertThrows(LeaseLostException.class, () -> service.verify(lease));
+    }
+}
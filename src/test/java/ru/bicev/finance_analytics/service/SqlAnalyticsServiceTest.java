@@ -0,0 +1,292 @@
+package ru.bicev.finance_analytics.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionOperations;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import ru.bicev.finance_analytics.dto.DateRange;
+import ru.bicev.finance_analytics.dto.MonthlyExpenseDto;
+import ru.bicev.finance_analytics.dto.SummaryDto;
+import ru.bicev.finance_analytics.dto.TopCategoryDto;
+import ru.bicev.finance_analytics.dto.TrendsDto;
+import ru.bicev.finance_analytics.repo.BudgetRepository;
+import ru.bicev.finance_analytics.repo.TransactionAnalyticsRepository;
+import ru.bicev.finance_analytics.repo.projection.CategoryTypeTotalProjection;
+import ru.bicev.finance_analytics.repo.projection.MonthlyExpenseProjection;
+import ru.bicev.finance_analytics.repo.projection.MonthlyTrendProjection;
+import ru.bicev.finance_analytics.util.CategoryType;
+
+@ExtendWith(MockitoExtension.class)
+public class SqlAnalyticsServiceTest {
+
+    @Mock
+    private TransactionAnalyticsRepository transactionRepository;
+
+    @Mock
+    private BudgetRepository budgetRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Spy
+    private QueryFanOut queryFanOut = new QueryFanOut(TransactionOperations.withoutTransaction(), 4);
+
+    @Spy
+    private AnalyticsCache analyticsCache = new AnalyticsCache(new SimpleMeterRegistry(),
+            mock(DataVersionService.class), 100, Duration.ofMinutes(1));
+
+    @InjectMocks
+    private SqlAnalyticsService sqlAnalyticsService;
+
+    private final Long userId = 1L;
+    private final YearMonth month = YearMonth.of(2025, 12);
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(userService.getCurrentUserId()).thenReturn(userId);
+    }
+
+    @Test
+    void testGetSummary_addsBudgetsToIncome() {
+        when(budgetRepository.sumAmountByUserIdAndMonth(userId, month))
+                .thenReturn(Optional.of(new BigDecimal("1000.00")));
+        when(transactionRepository.getTotalsByType(userId, month.atDay(1), month.atEndOfMonth()))
+                .thenReturn(List.of(typeTotal(CategoryType.INCOME, "250.50"), typeTotal(CategoryType.EXPENSE, "400.25")));
+
+        SummaryDto summary = sqlAnalyticsService.getSummary(month);
+        sqlAnalyticsService.getSummary(month);
+
+        assertEquals(new SummaryDto(new BigDecimal("1250.50"), new BigDecimal("400.25"), new BigDecimal("850.25")),
+                summary);
+        verify(transactionRepository, times(1)).getTotalsByType(userId, month.atDay(1), month.atEndOfMonth());
+    }
+
+    @Test
+    void testGetSummary_noData() {
+        when(budgetRepository.sumAmountByUserIdAndMonth(userId, month)).thenReturn(Optional.empty());
+        when(transactionRepository.getTotalsByType(userId, month.atDay(1), month.atEndOfMonth()))
+                .thenReturn(List.of());
+
+        assertEquals(new SummaryDto(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO),
+                sqlAnalyticsService.getSummary(month));
+    }
+
+    @Test
+    void testGetTopCategories_expensesOnly() {
+        List<TopCategoryDto> top = List.of(new TopCategoryDto("Food", new BigDecimal("300.00")));
+        when(transactionRepository.getTopCategories(userId, CategoryType.EXPENSE, month.atDay(1),
+                month.atEndOfMonth(), Limit.of(1))).thenReturn(top);
+
+        assertEquals(top, sqlAnalyticsService.getTopCategories(month, 1));
+    }
+
+    @Test
+    void testGetTopCategories_invalidLimit() {
+        assertThrows(IllegalArgumentException.class, () -> sqlAnalyticsService.getTopCategories(month, 0));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void testGetMonthlyExpenses_success() {
+        DateRange range = new DateRange(LocalDate.of(2025, 11, 15), LocalDate.of(2025, 12, 31));
+        when(transactionRepository.getMonthlyTotals(userId, CategoryType.EXPENSE, range.start(), range.end()))
+                .thenReturn(List.of(monthTotal(2025, 11, "100.00"), monthTotal(2025, 12, "200.00")));
+
+        assertEquals(List.of(new MonthlyExpenseDto("11.2025", new BigDecimal("100.00")),
+                new MonthlyExpenseDto("12.2025", new BigDecimal("200.00"))),
+                sqlAnalyticsService.getMonthlyExpenses(range));
+    }
+
+    @Test
+    void testGetMonthlyExpenses_invalidRange() {
+        DateRange range = new DateRange(LocalDate.of(2025, 12, 31), LocalDate.of(2025, 11, 1));
+
+        assertThrows(IllegalStateException.class, () -> sqlAnalyticsService.getMonthlyExpenses(range));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void testGetTrends_closedMonthsCached() {
+        UUID categoryId = UUID.randomUUID();
+        YearMonth from = YearMonth.of(2025, 1);
+        YearMonth to = YearMonth.of(2025, 2);
+        when(transactionRepository.getMonthlyTrends(userId, LocalDate.of(2024, 1, 1), from.atDay(1),
+                LocalDate.of(2025, 3, 1))).thenReturn(List.of(
+                        trend(null, null, from, "100.00"),
+                        trend(null, null, to, "0.00"),
+                        trend(categoryId, "Food", from, "100.00"),
+                        trend(categoryId, "Food", to, "0.00")));
+
+        TrendsDto trends = sqlAnalyticsService.getTrends(from, to);
+        TrendsDto cached = sqlAnalyticsService.getTrends(from, to);
+
+        assertEquals(trends, cached);
+        assertEquals(2, trends.months().size());
+        assertEquals("01.2025", trends.months().get(0).month());
+        assertEquals(1, trends.categories().size());
+        assertEquals(2, trends.categories().get(0).months().size());
+        verify(transactionRepository, times(1)).getMonthlyTrends(userId, LocalDate.of(2024, 1, 1), from.atDay(1),
+                LocalDate.of(2025, 3, 1));
+    }
+
+    @Test
+    void testGetTrends_zeroCategoryMonthsFilled() {
+        UUID categoryId = UUID.randomUUID();
+        UUID emptyCategoryId = UUID.randomUUID();
+        YearMonth from = YearMonth.of(2025, 1);
+        YearMonth to = YearMonth.of(2025, 2);
+        when(transactionRepository.getMonthlyTrends(userId, LocalDate.of(2024, 1, 1), from.atDay(1),
+                LocalDate.of(2025, 3, 1))).thenReturn(List.of(
+                        trend(null, null, from, "0.00"),
+                        trend(null, null, to, "100.00"),
+                        trend(categoryId, "Food", from, "0.00"),
+                        trend(categoryId, "Food", to, "100.00"),
+                        trend(emptyCategoryId, "Empty", from, "0.00")));
+
+        TrendsDto trends = sqlAnalyticsService.getTrends(from, to);
+
+        assertEquals(1, trends.categories().size());
+        assertEquals(categoryId, trends.categories().get(0).categoryId());
+        assertEquals("01.2025", trends.categories().get(0).months().get(0).month());
+        assertEquals(new BigDecimal("0.00"), trends.categories().get(0).months().get(0).total());
+        assertEquals(new BigDecimal("100.00"), trends.categories().get(0).months().get(1).total());
+    }
+
+    @Test
+    void testGetTrends_currentMonthNotCached() {
+        YearMonth current = YearMonth.now();
+        when(transactionRepository.getMonthlyTrends(userId, current.minusMonths(12).atDay(1), current.atDay(1),
+                current.plusMonths(1).atDay(1))).thenReturn(List.of(trend(null, null, current, "10.00")));
+
+        sqlAnalyticsService.getTrends(current, current);
+        sqlAnalyticsService.getTrends(current, current);
+
+        verify(transactionRepository, times(2)).getMonthlyTrends(userId, current.minusMonths(12).atDay(1),
+                current.atDay(1), current.plusMonths(1).atDay(1));
+    }
+
+    @Test
+    void testGetTrends_invalidRange() {
+        assertThrows(IllegalStateException.class,
+                () -> sqlAnalyticsService.getTrends(YearMonth.of(2025, 2), YearMonth.of(2025, 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> sqlAnalyticsService.getTrends(YearMonth.of(2000, 1), YearMonth.of(2025, 1)));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    /**
+     * Тренд месяца, в котором сумма и все показатели равны {@code total}
+     */
+    private static MonthlyTrendProjection trend(UUID categoryId, String categoryName, YearMonth month, String total) {
+        return new MonthlyTrendProjection() {
+            @Override
+            public UUID getCategoryId() {
+                return categoryId;
+            }
+
+            @Override
+            public String getCategoryName() {
+                return categoryName;
+            }
+
+            @Override
+            public Integer getYear() {
+                return month.getYear();
+            }
+
+            @Override
+            public Integer getMonth() {
+                return month.getMonthValue();
+            }
+
+            @Override
+            public BigDecimal getTotal() {
+                return new BigDecimal(total);
+            }
+
+            @Override
+            public BigDecimal getMonthOverMonth() {
+                return new BigDecimal(total);
+            }
+
+            @Override
+            public BigDecimal getYearOverYear() {
+                return new BigDecimal(total);
+            }
+
+            @Override
+            public BigDecimal getMovingAverage3() {
+                return new BigDecimal(total);
+            }
+
+            @Override
+            public BigDecimal getMovingAverage6() {
+                return new BigDecimal(total);
+            }
+
+            @Override
+            public BigDecimal getMovingAverage12() {
+                return new BigDecimal(total);
+            }
+        };
+    }
+
+    private static CategoryTypeTotalProjection typeTotal(CategoryType type, String total) {
+        return new CategoryTypeTotalProjection() {
+            @Override
+            public CategoryType getType() {
+                return type;
+            }
+
+            @Override
+            public BigDecimal getTotal() {
+                return new BigDecimal(total);
+            }
+        };
+    }
+
+    private static MonthlyExpenseProjection monthTotal(int year, int month, String total) {
+        return new MonthlyExpenseProjection() {
+            @Override
+            public Integer getYear() {
+                return year;
+            }
+
+            @Override
+            public Integer getMonth() {
+                return month;
+            }
+
+            @Override
+            public BigDecimal getTotalAmount() {
+                return new BigDecimal(total);
+            }
+        };
+    }
+
+}
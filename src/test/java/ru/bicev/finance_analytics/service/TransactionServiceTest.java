@@ -5,9 +5,12 @@ import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,8 +19,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import ru.bicev.finance_analytics.dto.TransactionBatchResultDto;
+import ru.bicev.finance_analytics.dto.TransactionCursor;
 import ru.bicev.finance_analytics.dto.TransactionDto;
+import ru.bicev.finance_analytics.dto.TransactionPageDto;
 import ru.bicev.finance_analytics.dto.TransactionRequest;
 import ru.bicev.finance_analytics.entity.Category;
 import ru.bicev.finance_analytics.entity.Transaction;
@@ -39,6 +48,18 @@ public class TransactionServiceTest {
         @Mock
         private CategoryRepository categoryRepository;
 
+        @Mock
+        private DailyCategoryTotalService dailyCategoryTotalService;
+
+        @Mock
+        private EntityManager entityManager;
+
+        @Mock
+        private Validator validator;
+
+        @Mock
+        private DataVersionService dataVersionService;
+
         @InjectMocks
         private TransactionService service;
 
@@ -50,7 +71,7 @@ public class TransactionServiceTest {
                 user = User.builder().id(1L).email("test@mail.com").build();
                 category = Category.builder().id(UUID.randomUUID()).user(user).name("Food").build();
 
-                lenient().when(userService.getCurrentUser()).thenReturn(user);
+                lenient().when(userService.getCurrentUserReference()).thenReturn(user);
                 lenient().when(userService.getCurrentUserId()).thenReturn(user.getId());
         }
 
@@ -88,6 +109,9 @@ public class TransactionServiceTest {
                 assertEquals("Groceries", saved.getDescription());
                 assertFalse(saved.isPlanned());
                 assertNotNull(saved.getCreatedAt());
+
+                verify(dailyCategoryTotalService).add(saved);
+                verify(dataVersionService).bump(user.getId());
         }
 
 
@@ -108,6 +132,58 @@ public class TransactionServiceTest {
                                 () -> service.createTransaction(request));
         }
 
+        // --------------------------------------------------------
+        // createTransactions()
+        // --------------------------------------------------------
+        @Test
+        void testCreateTransactions_partialSuccess() {
+                UUID unknownCategory = UUID.randomUUID();
+                TransactionRequest valid1 = new TransactionRequest(category.getId(), new BigDecimal("10.005"),
+                                LocalDate.of(2025, 1, 1), "One", false);
+                TransactionRequest valid2 = new TransactionRequest(category.getId(), BigDecimal.TEN,
+                                LocalDate.of(2025, 1, 2), "Two", false);
+                TransactionRequest missingCategory = new TransactionRequest(unknownCategory, BigDecimal.ONE,
+                                LocalDate.of(2025, 1, 3), "Three", false);
+
+                when(categoryRepository.findAllByUserIdAndIdIn(eq(user.getId()), anyCollection()))
+                                .thenReturn(List.of(category));
+                when(transactionRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+                TransactionBatchResultDto result = service.createTransactions(
+                                Arrays.asList(valid1, null, missingCategory, valid2));
+
+                assertEquals(4, result.received());
+                assertEquals(2, result.created());
+                assertEquals(2, result.errors().size());
+                assertEquals(1, result.errors().get(0).index());
+                assertEquals(2, result.errors().get(1).index());
+                assertEquals("categoryId", result.errors().get(1).errors().get(0).field());
+
+                @SuppressWarnings("unchecked")
+                ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+                verify(transactionRepository).saveAll(captor.capture());
+                assertEquals(new BigDecimal("10.01"), captor.getValue().get(0).getAmount());
+                verify(categoryRepository, times(1)).findAllByUserIdAndIdIn(eq(user.getId()), anyCollection());
+                verify(dailyCategoryTotalService).addAll(anyList());
+        }
+
+        // --------------------------------------------------------
+        // saveAll()
+        // --------------------------------------------------------
+        @Test
+        void testSaveAll_updatesAggregates() {
+                List<Transaction> transactions = List.of(
+                                Transaction.builder().user(user).category(category).amount(BigDecimal.ONE)
+                                                .date(LocalDate.now()).build());
+                when(transactionRepository.saveAll(transactions)).thenReturn(transactions);
+
+                List<Transaction> saved = service.saveAll(transactions);
+
+                assertEquals(transactions, saved);
+                verify(dailyCategoryTotalService).addAll(transactions);
+                verify(dataVersionService).bump(List.of(user.getId()));
+        }
+
         // --------------------------------------------------------
         // getTransactionById()
         // --------------------------------------------------------
@@ -144,6 +220,8 @@ public class TransactionServiceTest {
                 Transaction existing = Transaction.builder()
                                 .id(id)
                                 .user(user)
+                                .category(category)
+                                .date(LocalDate.now())
                                 .amount(new BigDecimal("50.00"))
                                 .description("Old")
                                 .isPlanned(false)
@@ -170,6 +248,10 @@ public class TransactionServiceTest {
                 assertTrue(updated.isPlanned());
                 assertEquals(category.getId(), updated.categoryId());
                 assertEquals(request.date(), updated.date());
+
+                verify(dailyCategoryTotalService).subtract(user.getId(), category.getId(), LocalDate.now(),
+                                new BigDecimal("50.00"));
+                verify(dailyCategoryTotalService).add(existing);
         }
 
         @Test
@@ -203,6 +285,8 @@ public class TransactionServiceTest {
                 service.deleteTransaction(id);
 
                 verify(transactionRepository).delete(transaction);
+                verify(dailyCategoryTotalService).subtract(transaction);
+                verify(dataVersionService).bump(user.getId());
         }
 
         @Test
@@ -227,14 +311,14 @@ public class TransactionServiceTest {
                 Transaction t1 = Transaction.builder().id(UUID.randomUUID()).user(user).category(category).build();
                 Transaction t2 = Transaction.builder().id(UUID.randomUUID()).user(user).category(category).build();
 
-                when(transactionRepository.findAllByUserIdAndDateBetween(
+                when(transactionRepository.findAllByUserIdAndDateBetweenOrderByDateAsc(
                                 user.getId(),  from, to))
                                 .thenReturn(List.of(t1, t2));
 
                 List<TransactionDto> result = service.getTransactionsByDateBetween(from, to);
 
                 assertEquals(2, result.size());
-                verify(transactionRepository).findAllByUserIdAndDateBetween(user.getId(), from,
+                verify(transactionRepository).findAllByUserIdAndDateBetweenOrderByDateAsc(user.getId(), from,
                                 to);
         }
 
@@ -246,4 +330,67 @@ public class TransactionServiceTest {
                 assertThrows(IllegalArgumentException.class,
                                 () -> service.getTransactionsByDateBetween(from, to));
         }
+        // --------------------------------------------------------
+        // getTransactionsPage()
+        // --------------------------------------------------------
+        @Test
+        void testGetTransactionsPage_firstPageWithNext() {
+                Transaction t1 = Transaction.builder().id(UUID.randomUUID()).user(user).category(category)
+                                .date(LocalDate.of(2025, 1, 1)).build();
+                Transaction t2 = Transaction.builder().id(UUID.randomUUID()).user(user).category(category)
+                                .date(LocalDate.of(2025, 1, 2)).build();
+                Transaction t3 = Transaction.builder().id(UUID.randomUUID()).user(user).category(category)
+                                .date(LocalDate.of(2025, 1, 3)).build();
+
+                when(transactionRepository.findPageByUserId(user.getId(), Limit.of(3)))
+                                .thenReturn(List.of(t1, t2, t3));
+
+                TransactionPageDto page = service.getTransactionsPage(null, 2);
+
+                assertEquals(2, page.items().size());
+                assertEquals(t2.getId(), page.items().get(1).id());
+                TransactionCursor cursor = TransactionCursor.decode(page.nextCursor());
+                assertEquals(t2.getDate(), cursor.date());
+                assertEquals(t2.getId(), cursor.id());
+        }
+
+        @Test
+        void testGetTransactionsPage_lastPage() {
+                TransactionCursor cursor = new TransactionCursor(LocalDate.of(2025, 1, 2), UUID.randomUUID());
+                Transaction t3 = Transaction.builder().id(UUID.randomUUID()).user(user).category(category)
+                                .date(LocalDate.of(2025, 1, 3)).build();
+
+                when(transactionRepository.findPageByUserIdAfter(user.getId(), cursor.date(), cursor.id(),
+                                Limit.of(3))).thenReturn(List.of(t3));
+
+                TransactionPageDto page = service.getTransactionsPage(cursor.encode(), 2);
+
+                assertEquals(1, page.items().size());
+                assertNull(page.nextCursor());
+        }
+
+        @Test
+        void testGetTransactionsPage_invalidCursor() {
+                assertThrows(IllegalArgumentException.class,
+                                () -> service.getTransactionsPage("not-a-cursor", 2));
+        }
+
+        // --------------------------------------------------------
+        // streamTransactions()
+        // --------------------------------------------------------
+        @Test
+        void testStreamTransactions_detachesEachRow() {
+                Transaction t1 = Transaction.builder().id(UUID.randomUUID()).user(user).category(category).build();
+                Transaction t2 = Transaction.builder().id(UUID.randomUUID()).user(user).category(category).build();
+
+                when(transactionRepository.streamAllByUserId(user.getId())).thenReturn(Stream.of(t1, t2));
+
+                List<TransactionDto> received = new ArrayList<>();
+                service.streamTransactions(received::add);
+
+                assertEquals(2, received.size());
+                verify(entityManager).detach(t1);
+                verify(entityManager).detach(t2);
+        }
+
 }
@@ -1,10 +1,12 @@
 package ru.bicev.finance_analytics.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -36,6 +38,9 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private LoginActivityBuffer loginActivityBuffer;
+
     @Mock
     private OAuth2User oAuth2User;
 
@@ -69,59 +74,48 @@ public class UserServiceTest {
     }
 
     // --------------------------------------------------------
-    // getOrCreateOAuthUser()
+    // provisionOAuthUser()
     // --------------------------------------------------------
     @Test
-    void testGetOrCreateOAuthUser_Success() {
+    void testProvisionOAuthUser_Success() {
         when(oAuth2User.getAttributes()).thenReturn(attrinbutes);
-        when(userRepository.findByProviderAndProviderId(provider, providerId)).thenReturn(Optional.empty());
-
         when(oAuth2User.getAttribute("email")).thenReturn(email);
         when(oAuth2User.getAttribute("name")).thenReturn(name);
         when(oAuth2User.getAttribute("picture")).thenReturn(avatar);
+        when(userRepository.upsertByProvider(eq(provider), eq(providerId), eq(email), eq(name), eq(avatar),
+                any(LocalDateTime.class))).thenReturn(Optional.of(1L));
 
-        ArgumentCaptor<User> captor = ArgumentCaptor.forClass(User.class);
+        ArgumentCaptor<LocalDateTime> createdAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> loginAt = ArgumentCaptor.forClass(LocalDateTime.class);
 
-        userService.getOrCreateOAuthUser(provider, oAuth2User);
-
-        verify(userRepository).save(captor.capture());
-        User saved = captor.getValue();
-
-        assertEquals(provider, saved.getProvider());
-        assertEquals(providerId, saved.getProviderId());
-        assertEquals(email, saved.getEmail());
-        assertEquals(name, saved.getName());
-        assertEquals(avatar, saved.getAvatarUrl());
+        Long result = userService.provisionOAuthUser(provider, oAuth2User);
 
+        assertEquals(1L, result);
+        verify(userRepository).upsertByProvider(eq(provider), eq(providerId), eq(email), eq(name), eq(avatar),
+                createdAt.capture());
+        verify(loginActivityBuffer).record(eq(1L), loginAt.capture());
+        assertEquals(createdAt.getValue(), loginAt.getValue());
+        verify(userRepository, never()).findByProviderAndProviderId(provider, providerId);
+        verify(userRepository, never()).save(any());
     }
 
     @Test
-    void testGetOrCreateOAuthUser_UserExists() {
+    void testProvisionOAuthUser_ConcurrentlyCreated() {
         User existing = User.builder()
                 .id(1L)
                 .provider(provider)
                 .providerId(providerId)
-                .name(name)
-                .email(email)
-                .avatarUrl(avatar)
-                .lastLoginAt(LocalDateTime.now().minusDays(1))
                 .build();
 
-        LocalDateTime old = existing.getLastLoginAt();
-
         when(oAuth2User.getAttributes()).thenReturn(attrinbutes);
+        when(userRepository.upsertByProvider(eq(provider), eq(providerId), any(), any(), any(),
+                any(LocalDateTime.class))).thenReturn(Optional.empty());
         when(userRepository.findByProviderAndProviderId(provider, providerId)).thenReturn(Optional.of(existing));
-        when(userRepository.save(existing)).thenReturn(existing);
 
-        User result = userService.getOrCreateOAuthUser(provider, oAuth2User);
+        Long result = userService.provisionOAuthUser(provider, oAuth2User);
 
-        assertNotNull(result);
-        assertEquals(existing.getId(), result.getId());
-        assertEquals(existing.getEmail(), result.getEmail());
-        assertTrue(result.getLastLoginAt().isAfter(old));
-
-        verify(userRepository, times(1)).findByProviderAndProviderId(provider, providerId);
-        verify(userRepository, times(1)).save(existing);
+        assertEquals(existing.getId(), result);
+        verify(loginActivityBuffer, times(1)).record(eq(existing.getId()), any(LocalDateTime.class));
     }
 
     // --------------------------------------------------------
@@ -190,4 +184,28 @@ public class UserServiceTest {
 
     }
 
+    // --------------------------------------------------------
+    // getCurrentUserReference()
+    // --------------------------------------------------------
+    @Test
+    void testGetCurrentUserReference_doesNotLoadUser() {
+        User reference = User.builder().id(10L).build();
+        CustomUserPrincipal principal = new CustomUserPrincipal(reference.getId(), Map.of());
+
+        Authentication auth = mock(Authentication.class);
+        when(auth.getPrincipal()).thenReturn(principal);
+
+        SecurityContext context = mock(SecurityContext.class);
+        when(context.getAuthentication()).thenReturn(auth);
+
+        SecurityContextHolder.setContext(context);
+
+        when(userRepository.getReferenceById(principal.getUserId())).thenReturn(reference);
+
+        User result = userService.getCurrentUserReference();
+
+        assertSame(reference, result);
+        verify(userRepository, never()).findById(principal.getUserId());
+    }
+
 }
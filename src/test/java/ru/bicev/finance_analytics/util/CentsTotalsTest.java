@@ -0,0 +1,57 @@
+package ru.bicev.finance_analytics.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import org.junit.jupiter.api.Test;
+
+public class CentsTotalsTest {
+
+    @Test
+    void testAdd_sumsPerIndex() {
+        CentsTotals totals = new CentsTotals(3);
+
+        totals.add(0, new BigDecimal("10.10"));
+        totals.add(0, new BigDecimal("0.95"));
+        totals.add(2, new BigDecimal("5"));
+
+        assertEquals(new BigDecimal("11.05"), totals.get(0));
+        assertEquals(new BigDecimal("5.00"), totals.get(2));
+        assertTrue(totals.isPresent(0));
+        assertFalse(totals.isPresent(1));
+        assertEquals(new BigDecimal("0.00"), totals.get(1));
+    }
+
+    @Test
+    void testToCents_roundsHalfUp() {
+        assertEquals(1235L, CentsTotals.toCents(new BigDecimal("12.345")));
+        assertEquals(-1000L, CentsTotals.toCents(new BigDecimal("-10")));
+        assertEquals(new BigDecimal("12.35"), CentsTotals.toAmount(1235L));
+    }
+
+    @Test
+    void testAdd_overflow() {
+        CentsTotals totals = new CentsTotals(1);
+        totals.addCents(0, Long.MAX_VALUE);
+
+        assertThrows(ArithmeticException.class, () -> totals.addCents(0, 1));
+        assertThrows(ArithmeticException.class,
+                () -> CentsTotals.toCents(new BigDecimal("100000000000000000000")));
+    }
+
+    @Test
+    void testMonthIndex_spansYears() {
+        assertEquals(1, CentsTotals.monthIndex(LocalDate.of(2026, 1, 31))
+                - CentsTotals.monthIndex(LocalDate.of(2025, 12, 1)));
+    }
+
+    @Test
+    void testMonthIndex_extremeDates() {
+        assertEquals(YearMonth.from(LocalDate.MAX), CentsTotals.month(CentsTotals.monthIndex(LocalDate.MAX)));
+        assertEquals(YearMonth.from(LocalDate.MIN), CentsTotals.month(CentsTotals.monthIndex(LocalDate.MIN)));
+    }
+
+}
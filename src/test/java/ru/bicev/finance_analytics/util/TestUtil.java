@@ -7,6 +7,11 @@ import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import jakarta.persistence.EntityManager;
 import ru.bicev.finance_analytics.entity.Budget;
 import ru.bicev.finance_analytics.entity.Category;
 import ru.bicev.finance_analytics.entity.RecurringTransaction;
@@ -17,6 +22,46 @@ public class TestUtil {
 
     private static final LocalDateTime NOW = LocalDateTime.now();
 
+    private static final String DELETE_DAILY_TOTALS = "DELETE FROM daily_category_total WHERE user_id = ?";
+    private static final String INSERT_DAILY_TOTALS = """
+            INSERT INTO daily_category_total (id, user_id, category_id, date, total, transaction_count)
+            SELECT gen_random_uuid(), t.user_id, t.category_id, t.date, SUM(t.amount), COUNT(*)
+            FROM transaction t
+            WHERE t.user_id = ?
+            GROUP BY t.user_id, t.category_id, t.date
+            """;
+
+    /**
+     * Сбрасывает контекст персистентности и статистику Hibernate, чтобы следующий
+     * запрос загружал сущности из базы данных и его запросы можно было посчитать
+     */
+    public static Statistics resetStatistics(EntityManager entityManager) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    /**
+     * Пересчитывает дневные суммы пользователя по его транзакциям, сохраненным
+     * в обход сервисов
+     */
+    public static int rebuildDailyTotals(EntityManager entityManager, Long userId) {
+        entityManager.flush();
+        entityManager.createNativeQuery(DELETE_DAILY_TOTALS).setParameter(1, userId).executeUpdate();
+        return entityManager.createNativeQuery(INSERT_DAILY_TOTALS).setParameter(1, userId).executeUpdate();
+    }
+
+    /**
+     * Пересчитывает дневные суммы пользователя по его транзакциям, созданным
+     * через JDBC
+     */
+    public static int rebuildDailyTotals(JdbcTemplate jdbcTemplate, Long userId) {
+        jdbcTemplate.update(DELETE_DAILY_TOTALS, userId);
+        return jdbcTemplate.update(INSERT_DAILY_TOTALS, userId);
+    }
+
     public static List<Transaction> generateTransactions(User user, Category category, int number, int year,
             int month) {
         List<Transaction> transactions = new ArrayList<>();